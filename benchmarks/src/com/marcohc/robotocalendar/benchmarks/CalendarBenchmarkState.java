@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Locale and first day of week sweep shared by the benchmarks. Every invocation moves to the next of 24 consecutive months, as a month flip does.
+ */
+@State(Scope.Thread)
+public class CalendarBenchmarkState {
+
+    static final int MONTHS = 24;
+
+    @Param({"en_US", "es_ES", "de_DE", "fr_FR", "ja_JP", "zh_TW", "ar_EG"})
+    public String localeTag;
+
+    @Param({"1", "2", "7"})
+    public int firstDayOfWeek;
+
+    Locale locale;
+    TimeZone timeZone;
+    Calendar[] calendars;
+    int[] years;
+    int[] months;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        String[] parts = localeTag.split("_");
+        locale = new Locale(parts[0], parts[1]);
+        timeZone = TimeZone.getDefault();
+
+        calendars = new Calendar[MONTHS];
+        years = new int[MONTHS];
+        months = new int[MONTHS];
+        for (int i = 0; i < MONTHS; i++) {
+            Calendar calendar = Calendar.getInstance(locale);
+            calendar.setFirstDayOfWeek(firstDayOfWeek);
+            calendar.set(2015, Calendar.JANUARY, 15, 12, 0, 0);
+            calendar.add(Calendar.MONTH, i);
+            calendars[i] = calendar;
+            years[i] = calendar.get(Calendar.YEAR);
+            months[i] = calendar.get(Calendar.MONTH);
+        }
+    }
+
+    int nextMonth() {
+        int month = next;
+        next = (next + 1) % MONTHS;
+        return month;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar.benchmarks;
+
+import com.marcohc.robotocalendar.DayHistogram;
+import com.marcohc.robotocalendar.MonthGrid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregation of four million timestamps over a year into the per day counts of the heatmap, apart from any rendering: a time zone lookup per
+ * timestamp, the histogram on one thread and the histogram in parallel
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DayHistogramBenchmark {
+
+    private static final int TIMESTAMPS = 4 * 1000 * 1000;
+    private static final int DAYS = 365;
+    // Chunks short enough to be counted on the calling thread
+    private static final int SEQUENTIAL_CHUNK = 1 << 15;
+
+    private final TimeZone timeZone = TimeZone.getTimeZone("Europe/Madrid");
+    private int firstEpochDay;
+    private long[] timestamps;
+
+    @Setup
+    public void setUp() {
+        firstEpochDay = MonthGrid.toEpochDay(2015, Calendar.JANUARY, 1);
+        long firstMillis = MonthGrid.toMillis(firstEpochDay, timeZone);
+        long span = DAYS * 24L * 60 * 60 * 1000;
+        Random random = new Random(42);
+        timestamps = new long[TIMESTAMPS];
+        for (int i = 0; i < TIMESTAMPS; i++) {
+            timestamps[i] = firstMillis + (long) (random.nextDouble() * span);
+        }
+    }
+
+    @Benchmark
+    public int[] timeZoneLookupPerTimestamp() {
+        int[] counts = new int[DAYS];
+        for (long timestamp : timestamps) {
+            int day = MonthGrid.toEpochDay(timestamp, timeZone) - firstEpochDay;
+            if (day >= 0 && day < DAYS) {
+                counts[day]++;
+            }
+        }
+        return counts;
+    }
+
+    @Benchmark
+    public DayHistogram sequentialHistogram() {
+        DayHistogram dayHistogram = new DayHistogram(firstEpochDay, DAYS, timeZone);
+        for (int offset = 0; offset < TIMESTAMPS; offset += SEQUENTIAL_CHUNK) {
+            dayHistogram.addAll(timestamps, offset, Math.min(SEQUENTIAL_CHUNK, TIMESTAMPS - offset));
+        }
+        return dayHistogram;
+    }
+
+    @Benchmark
+    public DayHistogram parallelHistogram() {
+        DayHistogram dayHistogram = new DayHistogram(firstEpochDay, DAYS, timeZone);
+        dayHistogram.addAll(timestamps);
+        return dayHistogram;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar.benchmarks;
+
+import com.marcohc.robotocalendar.MonthGrid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cell to date resolution of a day click and date to day fields conversion, Calendar and tag parsing against primitive epoch days
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DayLookupBenchmark {
+
+    private final String[] containerTags = new String[MonthGrid.DAYS_IN_GRID];
+    private final String[] dayOfMonthTexts = new String[MonthGrid.DAYS_IN_GRID];
+    private Calendar currentCalendar;
+    private MonthGrid monthGrid;
+    private TimeZone timeZone;
+    private long[] instants;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        currentCalendar = Calendar.getInstance();
+        currentCalendar.set(2015, Calendar.JULY, 15, 12, 0, 0);
+        timeZone = currentCalendar.getTimeZone();
+        monthGrid = MonthGrid.of(2015, Calendar.JULY, Calendar.MONDAY);
+
+        for (int i = 0; i < MonthGrid.DAYS_IN_GRID; i++) {
+            containerTags[i] = LegacyCalendarMath.DAY_OF_MONTH_CONTAINER + (i + 1);
+            int dayOfMonth = monthGrid.getDayOfMonth(i);
+            dayOfMonthTexts[i] = String.valueOf(dayOfMonth == 0 ? 1 : dayOfMonth);
+        }
+
+        instants = new long[1024];
+        for (int i = 0; i < instants.length; i++) {
+            instants[i] = currentCalendar.getTimeInMillis() + i * 7L * 60 * 60 * 1000;
+        }
+    }
+
+    private int nextIndex() {
+        index = (index + 1) % MonthGrid.DAYS_IN_GRID;
+        return index;
+    }
+
+    @Benchmark
+    public Date legacyClickedDate() {
+        return LegacyCalendarMath.getClickedDate(containerTags[nextIndex()], dayOfMonthTexts, currentCalendar);
+    }
+
+    @Benchmark
+    public int monthGridClickedEpochDay() {
+        return monthGrid.getEpochDay(nextIndex());
+    }
+
+    @Benchmark
+    public int calendarDayFields() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(instants[nextIndex()]);
+        return calendar.get(Calendar.YEAR) * 10000 + (calendar.get(Calendar.MONTH) + 1) * 100 + calendar.get(Calendar.DAY_OF_MONTH);
+    }
+
+    @Benchmark
+    public int epochDayFields() {
+        return MonthGrid.toPackedDate(MonthGrid.toEpochDay(instants[nextIndex()], timeZone));
+    }
+}
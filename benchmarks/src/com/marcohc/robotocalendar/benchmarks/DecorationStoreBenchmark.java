@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar.benchmarks;
+
+import com.marcohc.robotocalendar.DecorationStore;
+import com.marcohc.robotocalendar.MonthDecorations;
+import com.marcohc.robotocalendar.MonthGrid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk insert of ten years of markers and the per month lookup done when a month is displayed
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DecorationStoreBenchmark {
+
+    private static final int YEARS = 10;
+
+    private int[] epochDays;
+    private DecorationStore decorationStore;
+    private int month;
+
+    @Setup
+    public void setUp() {
+        int firstEpochDay = MonthGrid.toEpochDay(2010, Calendar.JANUARY, 1);
+        epochDays = new int[YEARS * 365];
+        for (int i = 0; i < epochDays.length; i++) {
+            epochDays[i] = firstEpochDay + i;
+        }
+        decorationStore = new DecorationStore();
+        decorationStore.addAll(epochDays, DecorationStore.SLOT_FIRST_UNDERLINE, 1);
+    }
+
+    @Benchmark
+    public DecorationStore bulkInsertTenYears() {
+        DecorationStore decorationStore = new DecorationStore();
+        decorationStore.addAll(epochDays, DecorationStore.SLOT_FIRST_UNDERLINE, 1);
+        return decorationStore;
+    }
+
+    @Benchmark
+    public int visibleMonthLookup() {
+        month = (month + 1) % (YEARS * 12);
+        MonthDecorations monthDecorations = decorationStore.getMonth(2010 + month / 12, month % 12);
+        int styles = 0;
+        int mask = monthDecorations.getMask(DecorationStore.SLOT_FIRST_UNDERLINE);
+        while (mask != 0) {
+            int dayOfMonth = Integer.numberOfTrailingZeros(mask) + 1;
+            mask &= mask - 1;
+            styles += monthDecorations.getStyle(DecorationStore.SLOT_FIRST_UNDERLINE, dayOfMonth);
+        }
+        return styles;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar.benchmarks;
+
+import com.marcohc.robotocalendar.DecorationStore;
+import com.marcohc.robotocalendar.IcsImporter;
+import com.marcohc.robotocalendar.MonthGrid;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import of a synthetic export of a hundred thousand VEVENTs over ten years, a tenth of them repeating, through the memory mapped file and a
+ * stream. JMH reports the imports, the bytes and the events per second, the heap allocated by an import is reported by the GC profiler.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IcsImportBenchmark {
+
+    private static final int EVENTS = 100000;
+    private static final int YEARS = 10;
+
+    private File file;
+
+    /**
+     * Bytes and events read by the imports of an iteration, reported per second next to the imports
+     */
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class ImportCounters {
+
+        public long bytes;
+        public long events;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+            events = 0;
+        }
+
+        void add(IcsImporter importer) {
+            bytes += importer.getByteCount();
+            events += importer.getEventCount();
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("synthetic", ".ics");
+        int firstEpochDay = MonthGrid.toEpochDay(2010, Calendar.JANUARY, 1);
+        Random random = new Random(42);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            writer.write("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//RobotoCalendar//Benchmark//EN\r\n");
+            for (int i = 0; i < EVENTS; i++) {
+                int packedDate = MonthGrid.toPackedDate(firstEpochDay + random.nextInt(YEARS * 365));
+                writer.write("BEGIN:VEVENT\r\nUID:" + i + "@benchmark\r\n");
+                // A summary long enough to be folded as the exports do
+                writer.write("SUMMARY:Synthetic event number " + i + " with a summary long enough to be folded at sev\r\n enty five octets\r\n");
+                writer.write("DTSTART:" + packedDate + "T093000Z\r\nDTEND:" + packedDate + "T103000Z\r\n");
+                if (i % 10 == 0) {
+                    writer.write("RRULE:FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,TH;COUNT=20\r\n");
+                }
+                writer.write("BEGIN:VALARM\r\nTRIGGER:-PT15M\r\nACTION:DISPLAY\r\nEND:VALARM\r\nEND:VEVENT\r\n");
+            }
+            writer.write("END:VCALENDAR\r\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public DecorationStore importMappedFile(ImportCounters counters) throws IOException {
+        DecorationStore decorationStore = new DecorationStore();
+        IcsImporter importer = new IcsImporter(decorationStore, IcsImporter.fixedStyle(DecorationStore.SLOT_FIRST_UNDERLINE, 1), TimeZone.getTimeZone("UTC"));
+        importer.importFile(file);
+        counters.add(importer);
+        return decorationStore;
+    }
+
+    @Benchmark
+    public DecorationStore importStream(ImportCounters counters) throws IOException {
+        DecorationStore decorationStore = new DecorationStore();
+        IcsImporter importer = new IcsImporter(decorationStore, IcsImporter.fixedStyle(DecorationStore.SLOT_FIRST_UNDERLINE, 1), TimeZone.getTimeZone("UTC"));
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+        try {
+            importer.importStream(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        counters.add(importer);
+        return decorationStore;
+    }
+}
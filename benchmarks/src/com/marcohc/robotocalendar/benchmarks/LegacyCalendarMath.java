@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar.benchmarks;
+
+import java.text.DateFormatSymbols;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Copy of the Calendar based date math that RobotoCalendarView used before MonthGrid, kept as the baseline of the benchmarks
+ */
+final class LegacyCalendarMath {
+
+    static final String DAY_OF_MONTH_CONTAINER = "dayOfMonthContainer";
+
+    private LegacyCalendarMath() {
+    }
+
+    // setDaysInCalendar(), fills the day of month of every cell, 1 based as the tags of the layout
+    static int[] getDaysInCalendar(Calendar currentCalendar, Locale locale, int[] dayOfMonthByIndex) {
+        Calendar auxCalendar = Calendar.getInstance(locale);
+        auxCalendar.setTime(currentCalendar.getTime());
+        auxCalendar.set(Calendar.DAY_OF_MONTH, 1);
+
+        int firstDayOfMonth = auxCalendar.get(Calendar.DAY_OF_WEEK);
+        int dayOfMonthIndex = getWeekIndex(firstDayOfMonth, auxCalendar);
+
+        for (int i = 1; i <= auxCalendar.getActualMaximum(Calendar.DAY_OF_MONTH); i++, dayOfMonthIndex++) {
+            if (dayOfMonthIndex > dayOfMonthByIndex.length) {
+                break;
+            }
+            dayOfMonthByIndex[dayOfMonthIndex - 1] = i;
+        }
+        return dayOfMonthByIndex;
+    }
+
+    // getDayIndexByDate() of a date of the displayed month
+    static int getDayIndexByDate(Date date, Locale locale) {
+        Calendar currentCalendar = Calendar.getInstance(locale);
+        currentCalendar.setTime(date);
+        int monthOffset = getMonthOffset(currentCalendar);
+        int currentDay = currentCalendar.get(Calendar.DAY_OF_MONTH);
+        return currentDay + monthOffset;
+    }
+
+    static int getMonthOffset(Calendar currentCalendar) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(currentCalendar.getTime());
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        int firstDayWeekPosition = calendar.getFirstDayOfWeek();
+        int dayPosition = calendar.get(Calendar.DAY_OF_WEEK);
+
+        if (firstDayWeekPosition == 1) {
+            return dayPosition - 1;
+        } else {
+            if (dayPosition == 1) {
+                return 6;
+            } else {
+                return dayPosition - 2;
+            }
+        }
+    }
+
+    static int getWeekIndex(int weekIndex, Calendar currentCalendar) {
+        int firstDayWeekPosition = currentCalendar.getFirstDayOfWeek();
+
+        if (firstDayWeekPosition == 1) {
+            return weekIndex;
+        } else {
+            if (weekIndex == 1) {
+                return 7;
+            } else {
+                return weekIndex - 1;
+            }
+        }
+    }
+
+    // initializeTitleLayout()
+    static String getTitle(Calendar currentCalendar, Locale locale) {
+        String dateText = new DateFormatSymbols(locale).getMonths()[currentCalendar.get(Calendar.MONTH)].toString();
+        dateText = dateText.substring(0, 1).toUpperCase() + dateText.subSequence(1, dateText.length());
+        Calendar calendar = Calendar.getInstance();
+        if (currentCalendar.get(Calendar.YEAR) == calendar.get(Calendar.YEAR)) {
+            return dateText;
+        } else {
+            return dateText + " " + currentCalendar.get(Calendar.YEAR);
+        }
+    }
+
+    // initializeWeekDaysLayout()
+    static String[] getWeekDayLabels(Calendar currentCalendar, Locale locale, String[] labels) {
+        String[] weekDaysArray = new DateFormatSymbols(locale).getShortWeekdays();
+        for (int i = 1; i < weekDaysArray.length; i++) {
+            String dayOfTheWeekString = weekDaysArray[i];
+            if (i == 4 && locale.getCountry().equals("ES")) {
+                dayOfTheWeekString = "X";
+            }
+            labels[getWeekIndex(i, currentCalendar) - 1] = dayOfTheWeekString;
+        }
+        return labels;
+    }
+
+    // onDayOfMonthClickListener, from the tag of the clicked container and the text of its day
+    static Date getClickedDate(String containerTag, String[] dayOfMonthTextByTag, Calendar currentCalendar) {
+        String tagId = containerTag.substring(DAY_OF_MONTH_CONTAINER.length(), containerTag.length());
+        String dayOfMonthText = dayOfMonthTextByTag[Integer.valueOf(tagId) - 1];
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(currentCalendar.getTime());
+        calendar.set(Calendar.DAY_OF_MONTH, Integer.valueOf(dayOfMonthText));
+        return calendar.getTime();
+    }
+}
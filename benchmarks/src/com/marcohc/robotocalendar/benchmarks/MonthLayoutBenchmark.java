@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar.benchmarks;
+
+import com.marcohc.robotocalendar.MonthGrid;
+import com.marcohc.robotocalendar.MonthGridCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First day and offset computation of a month flip: placing every day of the month in the grid and resolving the cell of a date
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MonthLayoutBenchmark {
+
+    private final int[] dayOfMonthByIndex = new int[MonthGrid.DAYS_IN_GRID];
+
+    @Benchmark
+    public int[] legacyDaysInCalendar(CalendarBenchmarkState state) {
+        return LegacyCalendarMath.getDaysInCalendar(state.calendars[state.nextMonth()], state.locale, dayOfMonthByIndex);
+    }
+
+    @Benchmark
+    public int[] monthGridDaysInCalendar(CalendarBenchmarkState state) {
+        int month = state.nextMonth();
+        MonthGrid monthGrid = MonthGrid.of(state.years[month], state.months[month], state.firstDayOfWeek);
+        for (int i = 0; i < MonthGrid.DAYS_IN_GRID; i++) {
+            dayOfMonthByIndex[i] = monthGrid.getDayOfMonth(i);
+        }
+        return dayOfMonthByIndex;
+    }
+
+    // Calendars showing a month already built by another calendar, the sweep fits in the cache
+    @Benchmark
+    public int[] monthGridCacheDaysInCalendar(CalendarBenchmarkState state) {
+        int month = state.nextMonth();
+        MonthGrid monthGrid = MonthGridCache.get(state.years[month], state.months[month], state.firstDayOfWeek);
+        for (int i = 0; i < MonthGrid.DAYS_IN_GRID; i++) {
+            dayOfMonthByIndex[i] = monthGrid.getDayOfMonth(i);
+        }
+        return dayOfMonthByIndex;
+    }
+
+    @Benchmark
+    public int legacyDayIndexByDate(CalendarBenchmarkState state) {
+        Date date = state.calendars[state.nextMonth()].getTime();
+        return LegacyCalendarMath.getDayIndexByDate(date, state.locale);
+    }
+
+    @Benchmark
+    public int monthGridDayIndexByDate(CalendarBenchmarkState state) {
+        int month = state.nextMonth();
+        MonthGrid monthGrid = MonthGrid.of(state.years[month], state.months[month], state.firstDayOfWeek);
+        long timeInMillis = state.calendars[month].getTimeInMillis();
+        return monthGrid.getIndex(MonthGrid.toEpochDay(timeInMillis, state.timeZone));
+    }
+}
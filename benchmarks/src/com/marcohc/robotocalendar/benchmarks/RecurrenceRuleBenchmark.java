@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar.benchmarks;
+
+import com.marcohc.robotocalendar.DecorationStore;
+import com.marcohc.robotocalendar.MonthDecorations;
+import com.marcohc.robotocalendar.MonthGrid;
+import com.marcohc.robotocalendar.RecurrenceRule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Calendar;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A thousand daily, weekly, monthly and yearly rules over ten years: expanding them for a month and reading a month already expanded
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecurrenceRuleBenchmark {
+
+    private static final int RULES = 1000;
+    private static final int YEARS = 10;
+    // Months browsed by the cached lookup, as many as the store keeps expanded
+    private static final int BROWSED_MONTHS = 24;
+
+    private RecurrenceRule[] rules;
+    private DecorationStore decorationStore;
+    private int month;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int firstEpochDay = MonthGrid.toEpochDay(2010, Calendar.JANUARY, 1);
+        rules = new RecurrenceRule[RULES];
+        decorationStore = new DecorationStore();
+        for (int i = 0; i < RULES; i++) {
+            int frequency = i % 4;
+            RecurrenceRule.Builder builder = new RecurrenceRule.Builder(frequency, firstEpochDay + random.nextInt(YEARS * 365))
+                    .setInterval(1 + random.nextInt(3));
+            if (frequency == RecurrenceRule.FREQUENCY_WEEKLY) {
+                builder.setWeekDays(Calendar.MONDAY + random.nextInt(5));
+            }
+            if (random.nextBoolean()) {
+                builder.setCount(10 + random.nextInt(100));
+            }
+            rules[i] = builder.build();
+            decorationStore.addRule(rules[i], i % 2, 1);
+        }
+    }
+
+    @Benchmark
+    public int expandMonth() {
+        month = (month + 1) % (YEARS * 12);
+        int year = 2010 + month / 12;
+        int days = 0;
+        for (RecurrenceRule rule : rules) {
+            days |= rule.getMonthMask(year, month % 12);
+        }
+        return days;
+    }
+
+    @Benchmark
+    public MonthDecorations expandedMonthLookup() {
+        month = (month + 1) % BROWSED_MONTHS;
+        return decorationStore.getMonth(2015 + month / 12, month % 12);
+    }
+}
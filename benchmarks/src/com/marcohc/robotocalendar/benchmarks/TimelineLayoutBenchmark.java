@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar.benchmarks;
+
+import com.marcohc.robotocalendar.TimelineLayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Column layout of the timed events of one day, from a few meetings to a day packed with hundreds of overlapping events
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimelineLayoutBenchmark {
+
+    private static final long MILLIS_PER_MINUTE = 60 * 1000;
+
+    @Param({"10", "100", "1000"})
+    public int events;
+
+    private final TimelineLayout timelineLayout = new TimelineLayout();
+    private long[] starts;
+    private long[] ends;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        starts = new long[events];
+        ends = new long[events];
+        for (int i = 0; i < events; i++) {
+            // Quarter hour starts lasting from 15 minutes to 3 hours
+            starts[i] = random.nextInt(24 * 4) * 15 * MILLIS_PER_MINUTE;
+            ends[i] = starts[i] + (1 + random.nextInt(12)) * 15 * MILLIS_PER_MINUTE;
+        }
+    }
+
+    @Benchmark
+    public int layout() {
+        timelineLayout.layout(starts, ends, events);
+        return timelineLayout.getMaxColumnCount();
+    }
+}
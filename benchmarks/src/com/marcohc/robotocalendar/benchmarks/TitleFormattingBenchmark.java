@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar.benchmarks;
+
+import com.marcohc.robotocalendar.CalendarSymbols;
+import com.marcohc.robotocalendar.MonthGrid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Month title and weekday header labels built from DateFormatSymbols on every month flip, against the cached {@link CalendarSymbols}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TitleFormattingBenchmark {
+
+    private static final int CURRENT_YEAR = Calendar.getInstance().get(Calendar.YEAR);
+
+    private final String[] weekDayLabels = new String[MonthGrid.DAYS_IN_WEEK];
+
+    @Benchmark
+    public String legacyTitle(CalendarBenchmarkState state) {
+        return LegacyCalendarMath.getTitle(state.calendars[state.nextMonth()], state.locale);
+    }
+
+    @Benchmark
+    public String[] legacyWeekDayLabels(CalendarBenchmarkState state) {
+        return LegacyCalendarMath.getWeekDayLabels(state.calendars[state.nextMonth()], state.locale, weekDayLabels);
+    }
+
+    // The cached variants include the cache lookup, the view only repeats it when the locale or the first day of the week change
+    @Benchmark
+    public String cachedTitle(CalendarBenchmarkState state) {
+        int month = state.nextMonth();
+        return CalendarSymbols.get(state.locale, state.firstDayOfWeek).getTitle(state.years[month], state.months[month], CURRENT_YEAR);
+    }
+
+    @Benchmark
+    public String[] cachedWeekDayLabels(CalendarBenchmarkState state) {
+        state.nextMonth();
+        CalendarSymbols calendarSymbols = CalendarSymbols.get(state.locale, state.firstDayOfWeek);
+        for (int column = 0; column < MonthGrid.DAYS_IN_WEEK; column++) {
+            weekDayLabels[column] = calendarSymbols.getWeekDayLabel(column);
+        }
+        return weekDayLabels;
+    }
+}
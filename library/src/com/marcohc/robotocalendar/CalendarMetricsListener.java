@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+/**
+ * Receives the cost of the work done by a {@link RobotoCalendarView}. Nothing is measured while no listener is installed.
+ */
+public interface CalendarMetricsListener {
+
+    /**
+     * Called after every {@link RobotoCalendarView#initializeCalendar(java.util.Calendar)}. The metrics instance is reused, read it before returning.
+     */
+    void onRebind(RebindMetrics metrics);
+
+    /**
+     * Called when a day is touched, clicks without a touch are not reported
+     *
+     * @param latencyNanos time from the release of the touch on a day to the call of the day selection listeners, with the millisecond precision
+     *                     of touch events
+     */
+    void onDayOfMonthClick(long latencyNanos);
+
+    /**
+     * Called once, when the calendar is drawn for the first time
+     *
+     * @param timeToFirstDrawNanos time from the construction of the calendar to its first draw
+     */
+    void onFirstDraw(long timeToFirstDrawNanos);
+
+    /**
+     * Debug messages of the calendar, which are not logged otherwise
+     */
+    void onDebugMessage(String message);
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary form of the state of a {@link RobotoCalendarView}, saved across configuration changes.
+ * <p/>
+ * Epoch days are written as varints of their delta to the previous day, the selection as runs of consecutive days and the marker styles as
+ * indexes in a table of the distinct styles, so the size grows with the number of marked days and not with the length of the spans. The
+ * recurrence rules of the store are not saved, they are added again by the code that created the calendar and kept when decoding.
+ */
+final class CalendarStateCodec {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    private static final int VERSION = 1;
+
+    static final int NO_DAY = Integer.MIN_VALUE;
+
+    /**
+     * State read and written by the codec, the selection and the store are filled in place when decoding
+     */
+    static final class CalendarState {
+
+        int year;
+        int month;
+        int firstDayOfWeek;
+        int currentDay = NO_DAY;
+        int selectedDay = NO_DAY;
+        int selectionMode;
+        int rangeAnchor = NO_DAY;
+        DaySelection daySelection;
+        DecorationStore decorationStore;
+    }
+
+    private CalendarStateCodec() {
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Encoding
+    // ************************************************************************************************************************************************************************
+
+    static byte[] encode(CalendarState state) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarint(out, VERSION);
+
+        writeSignedVarint(out, state.year);
+        writeVarint(out, state.month);
+        writeVarint(out, state.firstDayOfWeek);
+        writeDay(out, state.currentDay);
+        writeDay(out, state.selectedDay);
+        writeVarint(out, state.selectionMode);
+        writeDay(out, state.rangeAnchor);
+
+        writeSelection(out, state.daySelection);
+        writeDecorations(out, state.decorationStore);
+        return out.toByteArray();
+    }
+
+    // Runs of consecutive days, each as the delta from the end of the previous run and the length
+    private static void writeSelection(ByteArrayOutputStream out, DaySelection daySelection) {
+        int runs = 0;
+        for (int start = daySelection.nextSelected(Integer.MIN_VALUE); start != NO_DAY; start = daySelection.nextSelected(daySelection.nextUnselected(start))) {
+            runs++;
+        }
+        writeVarint(out, runs);
+
+        int previous = 0;
+        for (int start = daySelection.nextSelected(Integer.MIN_VALUE); start != NO_DAY; ) {
+            int end = daySelection.nextUnselected(start);
+            writeSignedVarint(out, start - previous);
+            writeVarint(out, end - start - 1);
+            previous = end;
+            start = daySelection.nextSelected(end);
+        }
+    }
+
+    private static void writeDecorations(ByteArrayOutputStream out, DecorationStore decorationStore) {
+        List<MonthDecorations> months = decorationStore.getMonths();
+
+        // Table of the distinct styles
+        Map<Integer, Integer> styleIndexes = new HashMap<Integer, Integer>();
+        int[] styles = new int[8];
+        for (MonthDecorations monthDecorations : months) {
+            for (int slot = 0; slot < DecorationStore.SLOTS; slot++) {
+                int mask = monthDecorations.getMask(slot);
+                while (mask != 0) {
+                    int dayOfMonth = Integer.numberOfTrailingZeros(mask) + 1;
+                    mask &= mask - 1;
+                    int style = monthDecorations.getStyle(slot, dayOfMonth);
+                    if (!styleIndexes.containsKey(style)) {
+                        if (styleIndexes.size() == styles.length) {
+                            int[] newStyles = new int[styles.length * 2];
+                            System.arraycopy(styles, 0, newStyles, 0, styles.length);
+                            styles = newStyles;
+                        }
+                        styles[styleIndexes.size()] = style;
+                        styleIndexes.put(style, styleIndexes.size());
+                    }
+                }
+            }
+        }
+        writeVarint(out, styleIndexes.size());
+        for (int i = 0; i < styleIndexes.size(); i++) {
+            writeSignedVarint(out, styles[i]);
+        }
+
+        // Days of every slot in date order
+        for (int slot = 0; slot < DecorationStore.SLOTS; slot++) {
+            int count = 0;
+            for (MonthDecorations monthDecorations : months) {
+                count += Integer.bitCount(monthDecorations.getMask(slot));
+            }
+            writeVarint(out, count);
+
+            int previous = 0;
+            for (MonthDecorations monthDecorations : months) {
+                int firstEpochDay = MonthGrid.toEpochDay(monthDecorations.getYear(), monthDecorations.getMonth(), 1);
+                int mask = monthDecorations.getMask(slot);
+                while (mask != 0) {
+                    int dayOfMonth = Integer.numberOfTrailingZeros(mask) + 1;
+                    mask &= mask - 1;
+                    int epochDay = firstEpochDay + dayOfMonth - 1;
+                    writeSignedVarint(out, epochDay - previous);
+                    writeVarint(out, styleIndexes.get(monthDecorations.getStyle(slot, dayOfMonth)));
+                    previous = epochDay;
+                }
+            }
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Decoding
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Reads the state, clearing and filling the selection and the marked days of the store of the given state, its rules are kept
+     *
+     * @throws IllegalArgumentException if the data was not written by this version of the codec
+     */
+    static void decode(byte[] data, CalendarState state) {
+        Reader in = new Reader(data);
+        int version = in.readVarint();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown calendar state version: " + version);
+        }
+
+        state.year = in.readSignedVarint();
+        state.month = in.readVarint();
+        state.firstDayOfWeek = in.readVarint();
+        state.currentDay = readDay(in);
+        state.selectedDay = readDay(in);
+        state.selectionMode = in.readVarint();
+        state.rangeAnchor = readDay(in);
+
+        state.daySelection.clear();
+        int runs = in.readVarint();
+        int previous = 0;
+        for (int i = 0; i < runs; i++) {
+            int start = previous + in.readSignedVarint();
+            int end = start + in.readVarint() + 1;
+            state.daySelection.addRange(start, end - 1);
+            previous = end;
+        }
+
+        int[] styles = new int[in.readVarint()];
+        for (int i = 0; i < styles.length; i++) {
+            styles[i] = in.readSignedVarint();
+        }
+
+        state.decorationStore.clearMarks();
+        for (int slot = 0; slot < DecorationStore.SLOTS; slot++) {
+            int count = in.readVarint();
+            int epochDay = 0;
+            for (int i = 0; i < count; i++) {
+                epochDay += in.readSignedVarint();
+                state.decorationStore.add(epochDay, slot, styles[in.readVarint()]);
+            }
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Varint methods
+    // ************************************************************************************************************************************************************************
+
+    // A day that may be missing, shifted by one so 0 means no day
+    private static void writeDay(ByteArrayOutputStream out, int epochDay) {
+        if (epochDay == NO_DAY) {
+            writeVarint(out, 0);
+        } else {
+            writeVarint(out, 1);
+            writeSignedVarint(out, epochDay);
+        }
+    }
+
+    private static int readDay(Reader in) {
+        return in.readVarint() == 0 ? NO_DAY : in.readSignedVarint();
+    }
+
+    // 7 bits per byte, the high bit set on every byte but the last
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    // Zigzag encoded, so small negative values are also short
+    private static void writeSignedVarint(ByteArrayOutputStream out, int value) {
+        writeVarint(out, (value << 1) ^ (value >> 31));
+    }
+
+    private static final class Reader {
+
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (position >= data.length) {
+                    throw new IllegalArgumentException("Truncated calendar state");
+                }
+                byte b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed calendar state");
+        }
+
+        int readSignedVarint() {
+            int value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
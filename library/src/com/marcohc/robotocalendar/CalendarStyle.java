@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Typeface;
+import android.util.SparseIntArray;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import uk.co.chrisjenx.calligraphy.CalligraphyConfig;
+
+/**
+ * Process-wide style of the calendars, built lazily the first time a calendar needs it.
+ * <p/>
+ * The Roboto typefaces are loaded once from the assets and the colors are resolved once for each theme, so a screen with several calendars
+ * only binds from it. Only used from the UI thread.
+ */
+final class CalendarStyle {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    static final String REGULAR_FONT = "fonts/Roboto-Regular.ttf";
+    static final String LIGHT_FONT = "fonts/Roboto-Light.ttf";
+
+    // Styles by theme, released with the activity owning the theme and built again when its configuration changes
+    private static final Map<Resources.Theme, CalendarStyle> STYLES = new WeakHashMap<Resources.Theme, CalendarStyle>();
+    private static final Map<String, Typeface> TYPEFACES = new HashMap<String, Typeface>();
+    private static boolean calligraphyInitialized;
+
+    private final Resources resources;
+    // The configuration the colors were resolved with
+    private final Configuration configuration;
+    private final SparseIntArray colors = new SparseIntArray();
+    private MonthGridDrawing monthGridDrawing;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    private CalendarStyle(Resources resources) {
+        this.resources = resources;
+        this.configuration = new Configuration(resources.getConfiguration());
+    }
+
+    /**
+     * @return the style of the theme of the context for its current configuration, the style of the previous configuration is replaced
+     */
+    static CalendarStyle get(Context context) {
+        Resources.Theme theme = context.getTheme();
+        CalendarStyle style = STYLES.get(theme);
+        if (style == null || !style.configuration.equals(context.getResources().getConfiguration())) {
+            style = new CalendarStyle(context.getResources());
+            STYLES.put(theme, style);
+        }
+        return style;
+    }
+
+    /**
+     * Sets Roboto Regular as the default font of Calligraphy, only the first time it is called in the process
+     */
+    static void initializeCalligraphy() {
+        if (calligraphyInitialized) {
+            return;
+        }
+        CalligraphyConfig.initDefault(new CalligraphyConfig.Builder()
+                        .setDefaultFontPath(REGULAR_FONT)
+                        .setFontAttrId(R.attr.fontPath)
+                        .build()
+        );
+        calligraphyInitialized = true;
+    }
+
+    /**
+     * @param path the path of the font in the assets of the library, as {@link #LIGHT_FONT}
+     */
+    static Typeface getTypeface(Context context, String path) {
+        Typeface typeface = TYPEFACES.get(path);
+        if (typeface == null) {
+            typeface = Typeface.createFromAsset(context.getApplicationContext().getAssets(), path);
+            TYPEFACES.put(path, typeface);
+        }
+        return typeface;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Style methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * @return the color of the resource, resolved only the first time
+     */
+    int getColor(int colorResource) {
+        int index = colors.indexOfKey(colorResource);
+        if (index >= 0) {
+            return colors.valueAt(index);
+        }
+        int color = resources.getColor(colorResource);
+        colors.put(colorResource, color);
+        return color;
+    }
+
+    /**
+     * @return the paints and dimensions shared by the {@link MonthGridView} of the theme, built only the first time
+     */
+    MonthGridDrawing getMonthGridDrawing(Context context) {
+        if (monthGridDrawing == null) {
+            monthGridDrawing = new MonthGridDrawing(context, this, true);
+        }
+        return monthGridDrawing;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import java.text.DateFormatSymbols;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Month names, weekday header labels and month titles of a locale and first day of the week, built once per process.
+ * <p/>
+ * Binding a month only reads the cached strings, {@link DateFormatSymbols} is created once per locale. Call {@link #clear()} when the device locale
+ * changes to drop the symbols of the previous locale.
+ */
+public final class CalendarSymbols {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    // Titles of the years in this range are cached, the rest are built when asked
+    private static final int FIRST_CACHED_YEAR = 1900;
+    private static final int LAST_CACHED_YEAR = 2100;
+
+    private static final Map<String, CalendarSymbols> CACHE = new HashMap<String, CalendarSymbols>();
+
+    private final Locale locale;
+    private final int firstDayOfWeek;
+    private final String[] monthNames = new String[12];
+    private final String[] weekDayLabels = new String[MonthGrid.DAYS_IN_WEEK];
+    private final String[][] titlesByYear = new String[LAST_CACHED_YEAR - FIRST_CACHED_YEAR + 1][];
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    private CalendarSymbols(Locale locale, int firstDayOfWeek) {
+        this.locale = locale;
+        this.firstDayOfWeek = firstDayOfWeek;
+
+        DateFormatSymbols dateFormatSymbols = new DateFormatSymbols(locale);
+
+        String[] months = dateFormatSymbols.getMonths();
+        for (int i = 0; i < monthNames.length; i++) {
+            monthNames[i] = capitalize(months[i]);
+        }
+
+        String[] shortWeekdays = dateFormatSymbols.getShortWeekdays();
+        for (int column = 0; column < MonthGrid.DAYS_IN_WEEK; column++) {
+            int dayOfWeek = (firstDayOfWeek - 1 + column) % MonthGrid.DAYS_IN_WEEK + 1;
+            weekDayLabels[column] = checkSpecificLocales(shortWeekdays[dayOfWeek], dayOfWeek);
+        }
+    }
+
+    /**
+     * @param firstDayOfWeek the day shown in the first column, as {@link Calendar#getFirstDayOfWeek()}
+     * @return the cached symbols, built the first time they are asked for
+     */
+    public static CalendarSymbols get(Locale locale, int firstDayOfWeek) {
+        String key = locale.toString() + '#' + firstDayOfWeek;
+        synchronized (CACHE) {
+            CalendarSymbols calendarSymbols = CACHE.get(key);
+            if (calendarSymbols == null) {
+                calendarSymbols = new CalendarSymbols(locale, firstDayOfWeek);
+                CACHE.put(key, calendarSymbols);
+            }
+            return calendarSymbols;
+        }
+    }
+
+    /**
+     * Drops every cached locale
+     */
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    private String capitalize(String text) {
+        if (text == null || text.length() == 0) {
+            return "";
+        }
+        return text.substring(0, 1).toUpperCase(locale) + text.substring(1);
+    }
+
+    private String checkSpecificLocales(String dayOfTheWeekString, int dayOfWeek) {
+        // Set Wednesday as "X" in Spanish locale
+        if (dayOfWeek == Calendar.WEDNESDAY && locale.getCountry().equals("ES")) {
+            return "X";
+        }
+        return dayOfTheWeekString;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Getter methods
+    // ************************************************************************************************************************************************************************
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    public int getFirstDayOfWeek() {
+        return firstDayOfWeek;
+    }
+
+    /**
+     * @param month 0 based, as {@link Calendar#MONTH}
+     * @return the capitalized name of the month
+     */
+    public String getMonthName(int month) {
+        return monthNames[month];
+    }
+
+    /**
+     * @return the label of the weekday header shown in the given column
+     */
+    public String getWeekDayLabel(int column) {
+        return weekDayLabels[column];
+    }
+
+    /**
+     * @return the month name alone when the year is the current year, "Month YYYY" otherwise
+     */
+    public String getTitle(int year, int month, int currentYear) {
+        if (year == currentYear) {
+            return monthNames[month];
+        }
+        if (year < FIRST_CACHED_YEAR || year > LAST_CACHED_YEAR) {
+            return monthNames[month] + " " + year;
+        }
+
+        synchronized (titlesByYear) {
+            String[] titles = titlesByYear[year - FIRST_CACHED_YEAR];
+            if (titles == null) {
+                titles = new String[monthNames.length];
+                for (int i = 0; i < titles.length; i++) {
+                    titles[i] = monthNames[i] + " " + year;
+                }
+                titlesByYear[year - FIRST_CACHED_YEAR] = titles;
+            }
+            return titles[month];
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import java.util.TimeZone;
+
+/**
+ * Today as an epoch day in a time zone, computed once per day from a {@link Clock}.
+ * <p/>
+ * The instants of the start of today and of tomorrow are kept, so asking for today only reads the clock and compares it with them, without
+ * creating a {@link java.util.Calendar}. Today is computed again when the clock leaves that interval, at midnight or after the clock was set, or
+ * when the time zone changes. Not thread safe.
+ */
+public final class CalendarToday {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    public interface Clock {
+
+        long currentTimeMillis();
+    }
+
+    public static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    private final Clock clock;
+    private TimeZone timeZone;
+    private int epochDay;
+    private long dayStartMillis;
+    private long nextDayStartMillis;
+    private int computeCount;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    public CalendarToday(Clock clock, TimeZone timeZone) {
+        this.clock = clock;
+        this.timeZone = timeZone;
+        compute(clock.currentTimeMillis());
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Today methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * @return the epoch day of the current time of the clock
+     */
+    public int getEpochDay() {
+        long now = clock.currentTimeMillis();
+        if (now < dayStartMillis || now >= nextDayStartMillis) {
+            compute(now);
+        }
+        return epochDay;
+    }
+
+    /**
+     * Computes today again if the time zone has other rules, a zone equal to the current one, as a new copy of the default zone, keeps it
+     */
+    public void setTimeZone(TimeZone timeZone) {
+        if (!this.timeZone.getID().equals(timeZone.getID()) || !this.timeZone.hasSameRules(timeZone)) {
+            this.timeZone = timeZone;
+            compute(clock.currentTimeMillis());
+        }
+    }
+
+    private void compute(long now) {
+        epochDay = MonthGrid.toEpochDay(now, timeZone);
+        // A day that starts after midnight, as when a zone moved across the date line, must still contain now
+        dayStartMillis = Math.min(MonthGrid.toMillis(epochDay, timeZone), now);
+        nextDayStartMillis = Math.max(MonthGrid.toMillis(epochDay + 1, timeZone), now + 1);
+        computeCount++;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Getter methods
+    // ************************************************************************************************************************************************************************
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    public TimeZone getTimeZone() {
+        return timeZone;
+    }
+
+    /**
+     * @return the instant tomorrow starts, as known when today was last computed
+     */
+    public long getNextDayStartMillis() {
+        return nextDayStartMillis;
+    }
+
+    /**
+     * @return the time from now to the start of tomorrow, 0 if it already started
+     */
+    public long getMillisToNextDay() {
+        return Math.max(0, nextDayStartMillis - clock.currentTimeMillis());
+    }
+
+    /**
+     * @return the number of times today was computed, once per day unless the clock or the zone changed
+     */
+    public int getComputeCount() {
+        return computeCount;
+    }
+}
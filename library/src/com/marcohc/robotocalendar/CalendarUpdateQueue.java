@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.Arrays;
+
+/**
+ * Queue of cell changes that can be posted from any thread and are applied on the UI thread in one batch per frame.
+ * <p/>
+ * Changes to the same cell are merged before they are applied: the last style posted for an underline of a day wins and only the last current
+ * and selected day are kept, so a burst of updates costs one pass and one traversal.
+ */
+final class CalendarUpdateQueue {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    static final int KIND_CURRENT_DAY = 0;
+    static final int KIND_SELECTED_DAY = 1;
+    static final int KIND_FIRST_UNDERLINE = 2;
+    static final int KIND_SECOND_UNDERLINE = 3;
+
+    private static final int KIND_BITS = 2;
+    private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+
+    private final Target target;
+    private final FrameScheduler frameScheduler;
+
+    // Guarded by the lock, key is the day and the kind of the change, value the epoch day or the style
+    private final Object lock = new Object();
+    private ChangeTable pending = new ChangeTable();
+    private ChangeTable applying = new ChangeTable();
+    private boolean scheduled;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Must be created on the UI thread
+     */
+    CalendarUpdateQueue(Target target) {
+        this.target = target;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            frameScheduler = new ChoreographerFrameScheduler(flushRunnable);
+        } else {
+            frameScheduler = new HandlerFrameScheduler(flushRunnable);
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Queue methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Queues a change, can be called from any thread
+     */
+    void post(int kind, int epochDay, int style) {
+        long key;
+        int value;
+        if (kind == KIND_CURRENT_DAY || kind == KIND_SELECTED_DAY) {
+            // There is only one current and one selected day
+            key = kind;
+            value = epochDay;
+        } else {
+            key = ((long) epochDay << KIND_BITS) | kind;
+            value = style;
+        }
+
+        synchronized (lock) {
+            pending.put(key, value);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        frameScheduler.schedule();
+    }
+
+    int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Applies every queued change, called on the UI thread
+     */
+    void flush() {
+        ChangeTable changes;
+        synchronized (lock) {
+            changes = pending;
+            pending = applying;
+            applying = changes;
+            scheduled = false;
+        }
+
+        int count = changes.getCount();
+        for (int position = 0; position < count; position++) {
+            if (!changes.isLive(position)) {
+                continue;
+            }
+            long key = changes.getKey(position);
+            int kind = (int) (key & KIND_MASK);
+            if (kind == KIND_CURRENT_DAY || kind == KIND_SELECTED_DAY) {
+                target.apply(kind, changes.getValue(position), 0);
+            } else {
+                target.apply(kind, (int) (key >> KIND_BITS), changes.getValue(position));
+            }
+        }
+        changes.clear();
+    }
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    // ************************************************************************************************************************************************************************
+    // * Change table
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Changes in the order of their last post, in parallel arrays with an open addressed index from the key to its last change, so posting
+     * allocates nothing once the arrays have grown to the size of a burst.
+     * <p/>
+     * A change posted again is appended and the older one is left dead in place, the dead changes are dropped when the arrays are full.
+     */
+    private static final class ChangeTable {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private int[] values = new int[INITIAL_CAPACITY];
+        // Slot of each change in the index, a key keeps its slot until the index is rebuilt
+        private int[] slots = new int[INITIAL_CAPACITY];
+        // Position plus one of the last change of the key in the slot, zero when the slot is empty. Twice the capacity, so at most half full
+        private int[] index = new int[INITIAL_CAPACITY * 2];
+        private int count;
+        private int size;
+
+        void put(long key, int value) {
+            int slot = findSlot(key);
+            int last = index[slot] - 1;
+            if (last == count - 1 && last >= 0) {
+                // Already the last change, it keeps its place
+                values[last] = value;
+                return;
+            }
+            if (count == keys.length) {
+                makeRoom();
+                slot = findSlot(key);
+                last = index[slot] - 1;
+            }
+            if (last == -1) {
+                size++;
+            }
+            keys[count] = key;
+            values[count] = value;
+            slots[count] = slot;
+            index[slot] = ++count;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isLive(int position) {
+            return index[slots[position]] == position + 1;
+        }
+
+        long getKey(int position) {
+            return keys[position];
+        }
+
+        int getValue(int position) {
+            return values[position];
+        }
+
+        void clear() {
+            for (int position = 0; position < count; position++) {
+                index[slots[position]] = 0;
+            }
+            count = 0;
+            size = 0;
+        }
+
+        private int findSlot(long key) {
+            int mask = index.length - 1;
+            int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (index[slot] != 0 && keys[index[slot] - 1] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        // Drops the dead changes, and doubles the arrays when at least half of the changes are live
+        private void makeRoom() {
+            int live = 0;
+            for (int position = 0; position < count; position++) {
+                if (isLive(position)) {
+                    keys[live] = keys[position];
+                    values[live] = values[position];
+                    live++;
+                }
+            }
+            if (live >= keys.length / 2) {
+                long[] grownKeys = new long[keys.length * 2];
+                System.arraycopy(keys, 0, grownKeys, 0, live);
+                keys = grownKeys;
+                int[] grownValues = new int[values.length * 2];
+                System.arraycopy(values, 0, grownValues, 0, live);
+                values = grownValues;
+                slots = new int[slots.length * 2];
+                index = new int[index.length * 2];
+            } else {
+                Arrays.fill(index, 0);
+            }
+            count = 0;
+            for (int position = 0; position < live; position++) {
+                int slot = findSlot(keys[position]);
+                slots[position] = slot;
+                index[slot] = ++count;
+            }
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Frame schedulers
+    // ************************************************************************************************************************************************************************
+
+    interface Target {
+
+        void apply(int kind, int epochDay, int style);
+    }
+
+    private interface FrameScheduler {
+
+        void schedule();
+    }
+
+    // Runs the flush before the traversal of the next frame
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static final class ChoreographerFrameScheduler implements FrameScheduler, Choreographer.FrameCallback {
+
+        private final Choreographer choreographer = Choreographer.getInstance();
+        private final Runnable flush;
+
+        ChoreographerFrameScheduler(Runnable flush) {
+            this.flush = flush;
+        }
+
+        @Override
+        public void schedule() {
+            choreographer.postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            flush.run();
+        }
+    }
+
+    // Before Jelly Bean the flush is posted to the main looper, the changes still end up in the same traversal
+    private static final class HandlerFrameScheduler implements FrameScheduler {
+
+        private final Handler handler = new Handler(Looper.getMainLooper());
+        private final Runnable flush;
+
+        HandlerFrameScheduler(Runnable flush) {
+            this.flush = flush;
+        }
+
+        @Override
+        public void schedule() {
+            handler.post(flush);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Typeface;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.RelativeLayout;
+import android.widget.TextView;
+
+/**
+ * Builds the week rows of the day grid in code from a single cell template, the same views as roboto_calendar_week_1.xml without parsing
+ * the six week layouts.
+ */
+final class DayGridBuilder {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    private static final int DAYS_IN_WEEK = MonthGrid.DAYS_IN_WEEK;
+    private static final int WEEK_ROWS = MonthGrid.WEEK_ROWS;
+
+    // Values of the DayOfTheMonth style
+    private static final float DAY_OF_MONTH_TEXT_SIZE = 14;
+    private static final float SECOND_UNDERLINE_MARGIN = 1;
+
+    private final Context context;
+    private final int backgroundSize;
+    private final int rowSpacing;
+    private final int underlineWidth;
+    private final int underlineHeight;
+    private final int secondUnderlineMargin;
+    private final float textSize;
+    private final int textColor;
+    private final Typeface typeface;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    DayGridBuilder(Context context, CalendarStyle calendarStyle) {
+        this.context = context;
+
+        Resources resources = context.getResources();
+        backgroundSize = resources.getDimensionPixelSize(R.dimen.day_of_month_background_size);
+        rowSpacing = resources.getDimensionPixelSize(R.dimen.week_bottom_padding);
+        underlineWidth = resources.getDimensionPixelSize(R.dimen.underline_weight);
+        underlineHeight = resources.getDimensionPixelSize(R.dimen.underline_height);
+        secondUnderlineMargin = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, SECOND_UNDERLINE_MARGIN, resources.getDisplayMetrics());
+        textSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, DAY_OF_MONTH_TEXT_SIZE, resources.getDisplayMetrics());
+        textColor = calendarStyle.getColor(R.color.day_of_month);
+        typeface = CalendarStyle.getTypeface(context, CalendarStyle.LIGHT_FONT);
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Build methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Builds a week row and adds it to the days container, its cells are stored in the cell registry by index
+     *
+     * @param row 0 based week row
+     */
+    ViewGroup buildWeekRow(ViewGroup daysContainer, int row, DayOfMonthCell[] dayOfMonthCells) {
+        LinearLayout weekRow = new LinearLayout(context);
+        weekRow.setOrientation(LinearLayout.HORIZONTAL);
+        weekRow.setBaselineAligned(false);
+        weekRow.setWeightSum(DAYS_IN_WEEK);
+
+        for (int column = 0; column < DAYS_IN_WEEK; column++) {
+            int index = row * DAYS_IN_WEEK + column;
+            dayOfMonthCells[index] = buildCell(weekRow, index);
+        }
+
+        LinearLayout.LayoutParams weekRowParams = new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        if (row < WEEK_ROWS - 1) {
+            weekRowParams.bottomMargin = rowSpacing;
+        }
+        // Rows built lazily are placed after the rows already built
+        daysContainer.addView(weekRow, weekRowParams);
+        return weekRow;
+    }
+
+    private DayOfMonthCell buildCell(ViewGroup weekRow, int index) {
+        RelativeLayout container = new RelativeLayout(context);
+        LinearLayout.LayoutParams containerParams = new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT, 1);
+        containerParams.gravity = Gravity.CENTER_VERTICAL;
+        weekRow.addView(container, containerParams);
+
+        View background = new View(context);
+        RelativeLayout.LayoutParams backgroundParams = new RelativeLayout.LayoutParams(backgroundSize, backgroundSize);
+        backgroundParams.addRule(RelativeLayout.CENTER_IN_PARENT);
+        container.addView(background, backgroundParams);
+
+        LinearLayout content = new LinearLayout(context);
+        content.setOrientation(LinearLayout.VERTICAL);
+        content.setGravity(Gravity.CENTER_VERTICAL | Gravity.CENTER_HORIZONTAL);
+        RelativeLayout.LayoutParams contentParams = new RelativeLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        contentParams.addRule(RelativeLayout.CENTER_IN_PARENT);
+        container.addView(content, contentParams);
+
+        TextView text = new TextView(context);
+        text.setGravity(Gravity.CENTER);
+        text.setTextSize(TypedValue.COMPLEX_UNIT_PX, textSize);
+        text.setTextColor(textColor);
+        text.setTypeface(typeface);
+        content.addView(text, new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+
+        // The underlines are hidden and colored by the first commit of the cell
+        View firstUnderline = new View(context);
+        content.addView(firstUnderline, new LinearLayout.LayoutParams(underlineWidth, underlineHeight));
+
+        View secondUnderline = new View(context);
+        LinearLayout.LayoutParams secondUnderlineParams = new LinearLayout.LayoutParams(underlineWidth, underlineHeight);
+        secondUnderlineParams.topMargin = secondUnderlineMargin;
+        content.addView(secondUnderline, secondUnderlineParams);
+
+        return new DayOfMonthCell(index, container, background, text, firstUnderline, secondUnderline);
+    }
+}
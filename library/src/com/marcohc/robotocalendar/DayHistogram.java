@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Number of timestamps falling on each day of a range of epoch days in a time zone, the data of the heatmap of {@link RobotoCalendarView#setHeatmap(DayHistogram)}.
+ * <p/>
+ * The start of every day of the range is computed once, so a timestamp is counted without a time zone lookup. Large inputs are counted in parallel,
+ * each thread in its own histogram merged at the end. Fill the histogram off the UI thread and do not change it once it is shown.
+ */
+public final class DayHistogram {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    // Each parallel task counts at least this many timestamps
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private static ExecutorService aggregationExecutor;
+
+    private final int firstEpochDay;
+    private final int days;
+    private final TimeZone timeZone;
+    private final int[] counts;
+    // Instant of the start of each day of the range and of the day after it
+    private final long[] dayStarts;
+    private long totalCount;
+    private long outOfRangeCount;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * @param days the number of days of the range, timestamps out of it are only counted by {@link #getOutOfRangeCount()}
+     */
+    public DayHistogram(int firstEpochDay, int days, TimeZone timeZone) {
+        if (days < 1) {
+            throw new IllegalArgumentException("Invalid number of days: " + days);
+        }
+        this.firstEpochDay = firstEpochDay;
+        this.days = days;
+        this.timeZone = timeZone;
+        counts = new int[days];
+        dayStarts = new long[days + 1];
+        for (int i = 0; i <= days; i++) {
+            dayStarts[i] = getDayStart(firstEpochDay + i, timeZone);
+            if (i > 0 && dayStarts[i] < dayStarts[i - 1]) {
+                dayStarts[i] = dayStarts[i - 1];
+            }
+        }
+    }
+
+    // First instant of the day, searched around the estimate when the time zone shifts by a whole day or at midnight
+    private static long getDayStart(int epochDay, TimeZone timeZone) {
+        long dayStart = MonthGrid.toMillis(epochDay, timeZone);
+        if (MonthGrid.toEpochDay(dayStart, timeZone) == epochDay && MonthGrid.toEpochDay(dayStart - 1, timeZone) < epochDay) {
+            return dayStart;
+        }
+
+        long low = (epochDay - 2) * MILLIS_PER_DAY;
+        long high = (epochDay + 2) * MILLIS_PER_DAY;
+        while (low < high) {
+            long middle = low + (high - low) / 2;
+            if (MonthGrid.toEpochDay(middle, timeZone) < epochDay) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Aggregation methods
+    // ************************************************************************************************************************************************************************
+
+    public void addAll(long[] timestamps) {
+        addAll(timestamps, 0, timestamps.length);
+    }
+
+    /**
+     * Counts the timestamps in one pass, in parallel when there are enough of them. A stream is counted passing its chunks one after the other.
+     *
+     * @param timestamps instants in milliseconds, in any order
+     */
+    public void addAll(long[] timestamps, int offset, int length) {
+        int tasks = Math.min(Runtime.getRuntime().availableProcessors(), length / PARALLEL_THRESHOLD);
+        if (tasks > 1) {
+            addAllInParallel(timestamps, offset, length, tasks);
+        } else {
+            outOfRangeCount += count(timestamps, offset, offset + length, counts);
+        }
+        totalCount += length;
+    }
+
+    public void add(long timestamp) {
+        int day = getDayIndex(timestamp);
+        if (day < 0) {
+            outOfRangeCount++;
+        } else {
+            counts[day]++;
+        }
+        totalCount++;
+    }
+
+    // The calling thread counts the first part while the executor counts the rest
+    private void addAllInParallel(final long[] timestamps, int offset, int length, int tasks) {
+        int partLength = length / tasks;
+        List<Future<Long>> futures = new ArrayList<Future<Long>>(tasks - 1);
+        final List<int[]> partCounts = new ArrayList<int[]>(tasks - 1);
+        for (int task = 1; task < tasks; task++) {
+            final int from = offset + task * partLength;
+            final int to = task == tasks - 1 ? offset + length : from + partLength;
+            final int[] part = new int[days];
+            partCounts.add(part);
+            futures.add(getAggregationExecutor().submit(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    return count(timestamps, from, to, part);
+                }
+            }));
+        }
+
+        outOfRangeCount += count(timestamps, offset, offset + partLength, counts);
+
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                outOfRangeCount += futures.get(i).get();
+                int[] part = partCounts.get(i);
+                for (int day = 0; day < days; day++) {
+                    counts[day] += part[day];
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while counting the timestamps", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error counting the timestamps", e.getCause());
+        }
+    }
+
+    // Counts the timestamps into the given counts, returning the number out of the range
+    private long count(long[] timestamps, int from, int to, int[] counts) {
+        long first = dayStarts[0];
+        long last = dayStarts[days];
+        long outOfRange = 0;
+        for (int i = from; i < to; i++) {
+            long timestamp = timestamps[i];
+            if (timestamp < first || timestamp >= last) {
+                outOfRange++;
+                continue;
+            }
+            counts[findDay(timestamp, first)]++;
+        }
+        return outOfRange;
+    }
+
+    private int getDayIndex(long timestamp) {
+        if (timestamp < dayStarts[0] || timestamp >= dayStarts[days]) {
+            return -1;
+        }
+        return findDay(timestamp, dayStarts[0]);
+    }
+
+    // The day at a fixed offset, moved across the offset changes of the time zone since the first day
+    private int findDay(long timestamp, long first) {
+        int day = (int) Math.min((timestamp - first) / MILLIS_PER_DAY, days - 1);
+        while (timestamp < dayStarts[day]) {
+            day--;
+        }
+        while (timestamp >= dayStarts[day + 1]) {
+            day++;
+        }
+        return day;
+    }
+
+    private static synchronized ExecutorService getAggregationExecutor() {
+        if (aggregationExecutor == null) {
+            aggregationExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "DayHistogramAggregation");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return aggregationExecutor;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Getter methods
+    // ************************************************************************************************************************************************************************
+
+    public int getFirstEpochDay() {
+        return firstEpochDay;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public TimeZone getTimeZone() {
+        return timeZone;
+    }
+
+    /**
+     * @return the number of timestamps of the day, 0 out of the range
+     */
+    public int getCount(int epochDay) {
+        int day = epochDay - firstEpochDay;
+        return day >= 0 && day < days ? counts[day] : 0;
+    }
+
+    /**
+     * @return the highest count of the days between the two, both included
+     */
+    public int getMaxCount(int fromEpochDay, int toEpochDay) {
+        int from = Math.max(fromEpochDay - firstEpochDay, 0);
+        int to = Math.min(toEpochDay - firstEpochDay, days - 1);
+        int maxCount = 0;
+        for (int day = from; day <= to; day++) {
+            maxCount = Math.max(maxCount, counts[day]);
+        }
+        return maxCount;
+    }
+
+    /**
+     * @return the number of timestamps added, in the range or not
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getOutOfRangeCount() {
+        return outOfRangeCount;
+    }
+
+    /**
+     * Maps a count to a shade of a linear scale up to the highest count
+     *
+     * @return 0 for no timestamps, otherwise a level from 1 to levels
+     */
+    public static int getShadeLevel(int count, int maxCount, int levels) {
+        if (count <= 0 || maxCount <= 0) {
+            return 0;
+        }
+        return Math.min(levels, 1 + (int) ((long) (count - 1) * levels / maxCount));
+    }
+}
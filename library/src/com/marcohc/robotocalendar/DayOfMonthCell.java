@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.view.View;
+import android.widget.TextView;
+
+/**
+ * Holder for the views of one day cell of the month grid, resolved once when the calendar is created.
+ * <p/>
+ * The fields hold the wanted state of the cell and {@link #commit(View.OnClickListener)} writes to the views only the properties that differ from
+ * the last committed state, so rebinding a month does not rewrite identical values nor request layouts for them.
+ */
+final class DayOfMonthCell {
+
+    static final int NO_STYLE = 0;
+
+    // Texts of the days of the month, so binding a day does not build a String
+    private static final String[] DAY_OF_MONTH_TEXTS = new String[32];
+
+    static {
+        for (int i = 0; i < DAY_OF_MONTH_TEXTS.length; i++) {
+            DAY_OF_MONTH_TEXTS[i] = String.valueOf(i);
+        }
+    }
+
+    final int index;
+    final View container;
+    final View background;
+    final TextView text;
+    final View firstUnderline;
+    final View secondUnderline;
+
+    // Wanted state
+    boolean textVisible;
+    int dayOfMonth;
+    int textColor;
+    int backgroundResource;
+    int containerBackgroundResource = android.R.color.transparent;
+    // Heatmap shade, shown when the container has no other background
+    int shadeResource = android.R.color.transparent;
+    boolean clickable;
+    int firstUnderlineStyle = NO_STYLE;
+    int secondUnderlineStyle = NO_STYLE;
+
+    // Committed state, nothing is committed until the first commit
+    private boolean bound;
+    private boolean boundTextVisible;
+    private int boundDayOfMonth;
+    private int boundTextColor;
+    private int boundBackgroundResource;
+    private int boundContainerBackgroundResource;
+    private boolean boundClickable;
+    private int boundFirstUnderlineStyle;
+    private int boundSecondUnderlineStyle;
+
+    DayOfMonthCell(int index, View container, View background, TextView text, View firstUnderline, View secondUnderline) {
+        this.index = index;
+        this.container = container;
+        this.background = background;
+        this.text = text;
+        this.firstUnderline = firstUnderline;
+        this.secondUnderline = secondUnderline;
+    }
+
+    /**
+     * Writes the wanted state to the views
+     *
+     * @return the number of view mutations done
+     */
+    int commit(View.OnClickListener onClickListener) {
+        int mutations = 0;
+
+        if (!bound) {
+            text.setBackgroundResource(android.R.color.transparent);
+            mutations++;
+        }
+
+        int containerResource = containerBackgroundResource != android.R.color.transparent ? containerBackgroundResource : shadeResource;
+        if (!bound || boundContainerBackgroundResource != containerResource) {
+            container.setBackgroundResource(containerResource);
+            boundContainerBackgroundResource = containerResource;
+            mutations++;
+        }
+
+        if (!bound || boundTextVisible != textVisible) {
+            text.setVisibility(textVisible ? View.VISIBLE : View.INVISIBLE);
+            boundTextVisible = textVisible;
+            mutations++;
+        }
+
+        if (!bound || boundDayOfMonth != dayOfMonth) {
+            text.setText(DAY_OF_MONTH_TEXTS[dayOfMonth]);
+            boundDayOfMonth = dayOfMonth;
+            mutations++;
+        }
+
+        if (!bound || boundTextColor != textColor) {
+            text.setTextColor(textColor);
+            boundTextColor = textColor;
+            mutations++;
+        }
+
+        if (!bound || boundBackgroundResource != backgroundResource) {
+            background.setBackgroundResource(backgroundResource);
+            boundBackgroundResource = backgroundResource;
+            mutations++;
+        }
+
+        if (!bound || boundClickable != clickable) {
+            container.setOnClickListener(clickable ? onClickListener : null);
+            boundClickable = clickable;
+            mutations++;
+        }
+
+        if (!bound || boundFirstUnderlineStyle != firstUnderlineStyle) {
+            mutations += commitUnderline(firstUnderline, boundFirstUnderlineStyle, firstUnderlineStyle);
+            boundFirstUnderlineStyle = firstUnderlineStyle;
+        }
+
+        if (!bound || boundSecondUnderlineStyle != secondUnderlineStyle) {
+            mutations += commitUnderline(secondUnderline, boundSecondUnderlineStyle, secondUnderlineStyle);
+            boundSecondUnderlineStyle = secondUnderlineStyle;
+        }
+
+        bound = true;
+        return mutations;
+    }
+
+    private int commitUnderline(View underline, int boundStyle, int style) {
+        if (style == NO_STYLE) {
+            underline.setVisibility(View.INVISIBLE);
+            return 1;
+        }
+
+        int mutations = 0;
+        if (!bound || boundStyle == NO_STYLE) {
+            underline.setVisibility(View.VISIBLE);
+            mutations++;
+        }
+        underline.setBackgroundResource(style);
+        return mutations + 1;
+    }
+}
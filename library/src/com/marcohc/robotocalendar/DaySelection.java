@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import java.util.Arrays;
+
+/**
+ * Set of selected epoch days stored as a bitset, one bit per day.
+ * <p/>
+ * Ranges are filled a 64 bit word at a time and the days of a month are read with at most two words, so selecting and drawing a range does not
+ * depend on its length. The selection is not thread safe, it is used from the UI thread as the calendar itself.
+ */
+public final class DaySelection {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    private static final long[] EMPTY = new long[0];
+
+    // words[0] holds the days from firstWord * 64
+    private long[] words = EMPTY;
+    private int firstWord;
+
+    // ************************************************************************************************************************************************************************
+    // * Public methods
+    // ************************************************************************************************************************************************************************
+
+    public boolean contains(int epochDay) {
+        return (getWord(epochDay >> 6) & (1L << epochDay)) != 0;
+    }
+
+    public void add(int epochDay) {
+        ensureCapacity(epochDay >> 6, epochDay >> 6);
+        words[(epochDay >> 6) - firstWord] |= 1L << epochDay;
+    }
+
+    public void remove(int epochDay) {
+        int word = (epochDay >> 6) - firstWord;
+        if (word >= 0 && word < words.length) {
+            words[word] &= ~(1L << epochDay);
+        }
+    }
+
+    /**
+     * @return true if the day is selected after the call
+     */
+    public boolean toggle(int epochDay) {
+        if (contains(epochDay)) {
+            remove(epochDay);
+            return false;
+        }
+        add(epochDay);
+        return true;
+    }
+
+    /**
+     * Selects the days from the first to the last one, both included
+     */
+    public void addRange(int firstEpochDay, int lastEpochDay) {
+        checkRange(firstEpochDay, lastEpochDay);
+        int first = firstEpochDay >> 6;
+        int last = lastEpochDay >> 6;
+        ensureCapacity(first, last);
+        for (int word = first; word <= last; word++) {
+            words[word - firstWord] |= getRangeMask(word, first, last, firstEpochDay, lastEpochDay);
+        }
+    }
+
+    /**
+     * Unselects the days from the first to the last one, both included
+     */
+    public void removeRange(int firstEpochDay, int lastEpochDay) {
+        checkRange(firstEpochDay, lastEpochDay);
+        int first = Math.max(firstEpochDay >> 6, firstWord);
+        int last = Math.min(lastEpochDay >> 6, firstWord + words.length - 1);
+        for (int word = first; word <= last; word++) {
+            words[word - firstWord] &= ~getRangeMask(word, firstEpochDay >> 6, lastEpochDay >> 6, firstEpochDay, lastEpochDay);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of selected days
+     */
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    /**
+     * @return the first selected day, or {@link Integer#MIN_VALUE} if the selection is empty
+     */
+    public int getFirst() {
+        for (int i = 0; i < words.length; i++) {
+            if (words[i] != 0) {
+                return (firstWord + i) * 64 + Long.numberOfTrailingZeros(words[i]);
+            }
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * @return the last selected day, or {@link Integer#MIN_VALUE} if the selection is empty
+     */
+    public int getLast() {
+        for (int i = words.length - 1; i >= 0; i--) {
+            if (words[i] != 0) {
+                return (firstWord + i) * 64 + 63 - Long.numberOfLeadingZeros(words[i]);
+            }
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * @param days the number of days to read, up to 32
+     * @return the selected days from the first epoch day as a bitmap, bit 0 being the first epoch day, as {@link MonthDecorations#getMask(int)}
+     */
+    public int getMask(int firstEpochDay, int days) {
+        int word = firstEpochDay >> 6;
+        int bit = firstEpochDay & 63;
+        long bits = getWord(word) >>> bit;
+        if (bit != 0) {
+            bits |= getWord(word + 1) << (64 - bit);
+        }
+        return (int) (bits & ((1L << days) - 1));
+    }
+
+    /**
+     * @return the first selected day from the given one, or {@link Integer#MIN_VALUE} if there is none
+     */
+    int nextSelected(int fromEpochDay) {
+        int index = (fromEpochDay >> 6) - firstWord;
+        long bits;
+        if (index < 0) {
+            index = 0;
+            bits = words.length > 0 ? words[0] : 0;
+        } else if (index >= words.length) {
+            return Integer.MIN_VALUE;
+        } else {
+            bits = words[index] & (-1L << fromEpochDay);
+        }
+
+        while (true) {
+            if (bits != 0) {
+                return (firstWord + index) * 64 + Long.numberOfTrailingZeros(bits);
+            }
+            if (++index >= words.length) {
+                return Integer.MIN_VALUE;
+            }
+            bits = words[index];
+        }
+    }
+
+    /**
+     * @return the first day from the given one that is not selected
+     */
+    int nextUnselected(int fromEpochDay) {
+        int index = (fromEpochDay >> 6) - firstWord;
+        if (index < 0 || index >= words.length) {
+            return fromEpochDay;
+        }
+
+        long bits = ~words[index] & (-1L << fromEpochDay);
+        while (true) {
+            if (bits != 0) {
+                return (firstWord + index) * 64 + Long.numberOfTrailingZeros(bits);
+            }
+            if (++index == words.length) {
+                return (firstWord + index) * 64;
+            }
+            bits = ~words[index];
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Private methods
+    // ************************************************************************************************************************************************************************
+
+    private long getWord(int word) {
+        int index = word - firstWord;
+        return index >= 0 && index < words.length ? words[index] : 0;
+    }
+
+    // Bits of the word inside the range
+    private static long getRangeMask(int word, int first, int last, int firstEpochDay, int lastEpochDay) {
+        long mask = -1L;
+        if (word == first) {
+            mask &= -1L << (firstEpochDay & 63);
+        }
+        if (word == last) {
+            mask &= -1L >>> (63 - (lastEpochDay & 63));
+        }
+        return mask;
+    }
+
+    private void ensureCapacity(int first, int last) {
+        if (words.length == 0) {
+            words = new long[last - first + 1];
+            firstWord = first;
+            return;
+        }
+
+        int lastWord = firstWord + words.length - 1;
+        if (first >= firstWord && last <= lastWord) {
+            return;
+        }
+
+        int newFirstWord = Math.min(first, firstWord);
+        int newLastWord = Math.max(last, lastWord);
+        long[] newWords = new long[newLastWord - newFirstWord + 1];
+        System.arraycopy(words, 0, newWords, firstWord - newFirstWord, words.length);
+        words = newWords;
+        firstWord = newFirstWord;
+    }
+
+    private static void checkRange(int firstEpochDay, int lastEpochDay) {
+        if (lastEpochDay < firstEpochDay) {
+            throw new IllegalArgumentException("The last day is before the first one");
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Day decorations of the calendar, such as the underline markers, indexed by month.
+ * <p/>
+ * Days are epoch days as in {@link MonthGrid}. Inserts are meant to be done in bulk, each month keeps its marks in a {@link MonthDecorations}
+ * so the visible month is applied with one lookup. Repeating events are added as {@link RecurrenceRule}s, expanded only for the months asked for and
+ * cached. The store is not thread safe, it is modified from the UI thread as the calendar itself.
+ */
+public final class DecorationStore {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    public static final int SLOT_FIRST_UNDERLINE = 0;
+    public static final int SLOT_SECOND_UNDERLINE = 1;
+
+    static final int SLOTS = 2;
+
+    // Months with their rules expanded kept at most, the recently shown ones
+    private static final int EXPANDED_MONTHS = 24;
+
+    private final Map<Integer, MonthDecorations> months = new HashMap<Integer, MonthDecorations>();
+
+    // Month of the last insert, consecutive days of the same month skip the date conversion and the map lookup
+    private MonthDecorations lastMonth;
+    private int lastMonthFirstEpochDay;
+    private int lastMonthLastEpochDay = -1;
+
+    // Increased by every change, so data built from an older state can be detected
+    private int version;
+
+    // Recurrence rules, and the months merged with them for the version of the store they were expanded in
+    private final List<RecurringDecoration> rules = new ArrayList<RecurringDecoration>();
+    private final Map<Integer, MonthDecorations> expandedMonths = new LinkedHashMap<Integer, MonthDecorations>(EXPANDED_MONTHS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, MonthDecorations> eldest) {
+            return size() > EXPANDED_MONTHS;
+        }
+    };
+    private int expandedVersion;
+
+    // ************************************************************************************************************************************************************************
+    // * Public methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * @param slot  {@link #SLOT_FIRST_UNDERLINE} or {@link #SLOT_SECOND_UNDERLINE}
+     * @param style the style of the marker, a color resource such as {@link RobotoCalendarView#RED_COLOR}
+     */
+    public void add(int epochDay, int slot, int style) {
+        checkSlot(slot);
+        MonthDecorations monthDecorations = getOrCreateMonth(epochDay);
+        monthDecorations.set(slot, epochDay - lastMonthFirstEpochDay + 1, style);
+        version++;
+    }
+
+    /**
+     * Marks every given day in the same slot and style
+     */
+    public void addAll(int[] epochDays, int slot, int style) {
+        checkSlot(slot);
+        for (int epochDay : epochDays) {
+            MonthDecorations monthDecorations = getOrCreateMonth(epochDay);
+            monthDecorations.set(slot, epochDay - lastMonthFirstEpochDay + 1, style);
+        }
+        version++;
+    }
+
+    /**
+     * Marks every given day with its own slot and style, the three arrays must have the same length
+     */
+    public void addAll(int[] epochDays, int[] slots, int[] styles) {
+        if (epochDays.length != slots.length || epochDays.length != styles.length) {
+            throw new IllegalArgumentException("The days, slots and styles must have the same length");
+        }
+        for (int i = 0; i < epochDays.length; i++) {
+            checkSlot(slots[i]);
+            MonthDecorations monthDecorations = getOrCreateMonth(epochDays[i]);
+            monthDecorations.set(slots[i], epochDays[i] - lastMonthFirstEpochDay + 1, styles[i]);
+        }
+        version++;
+    }
+
+    /**
+     * Adds the marked days and the rules of another store, such as one filled from a background thread. The days marked in both keep the style
+     * of the other store.
+     */
+    public void addAll(DecorationStore decorationStore) {
+        for (MonthDecorations monthDecorations : decorationStore.months.values()) {
+            int firstEpochDay = MonthGrid.toEpochDay(monthDecorations.getYear(), monthDecorations.getMonth(), 1);
+            MonthDecorations target = getOrCreateMonth(firstEpochDay);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                int mask = monthDecorations.getMask(slot);
+                while (mask != 0) {
+                    int dayOfMonth = Integer.numberOfTrailingZeros(mask) + 1;
+                    mask &= mask - 1;
+                    target.set(slot, dayOfMonth, monthDecorations.getStyle(slot, dayOfMonth));
+                }
+            }
+        }
+        rules.addAll(decorationStore.rules);
+        version++;
+    }
+
+    public void remove(int epochDay, int slot) {
+        checkSlot(slot);
+        MonthDecorations monthDecorations = months.get(getMonthKey(MonthGrid.getYearOfEpochDay(epochDay), MonthGrid.getMonthOfEpochDay(epochDay)));
+        if (monthDecorations != null) {
+            monthDecorations.remove(slot, MonthGrid.getDayOfMonthOfEpochDay(epochDay));
+        }
+        version++;
+    }
+
+    /**
+     * Marks every occurrence of the rule. Days marked with {@link #add(int, int, int)} keep their style, as the days of rules added before.
+     *
+     * @param slot  {@link #SLOT_FIRST_UNDERLINE} or {@link #SLOT_SECOND_UNDERLINE}
+     * @param style the style of the marker, a color resource such as {@link RobotoCalendarView#RED_COLOR}
+     */
+    public void addRule(RecurrenceRule rule, int slot, int style) {
+        checkSlot(slot);
+        rules.add(new RecurringDecoration(rule, slot, style));
+        version++;
+    }
+
+    /**
+     * Removes the rule from every slot it was added to
+     */
+    public void removeRule(RecurrenceRule rule) {
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            if (rules.get(i).rule == rule) {
+                rules.remove(i);
+            }
+        }
+        version++;
+    }
+
+    public int getRuleCount() {
+        return rules.size();
+    }
+
+    /**
+     * Removes the marked days and the rules
+     */
+    public void clear() {
+        rules.clear();
+        clearMarks();
+    }
+
+    /**
+     * Removes the days marked with {@link #add(int, int, int)}, the rules are kept
+     */
+    void clearMarks() {
+        months.clear();
+        expandedMonths.clear();
+        lastMonth = null;
+        lastMonthLastEpochDay = -1;
+        lastMonthFirstEpochDay = 0;
+        version++;
+    }
+
+    /**
+     * @param month 0 based, as {@link java.util.Calendar#MONTH}
+     * @return the decorations of the month including the occurrences of the rules, or null if it has none
+     */
+    public MonthDecorations getMonth(int year, int month) {
+        Integer key = getMonthKey(year, month);
+        MonthDecorations monthDecorations = months.get(key);
+        if (rules.isEmpty()) {
+            return monthDecorations;
+        }
+
+        if (expandedVersion != version) {
+            expandedMonths.clear();
+            expandedVersion = version;
+        }
+        if (expandedMonths.containsKey(key)) {
+            return expandedMonths.get(key);
+        }
+
+        MonthDecorations expanded = expandRules(year, month, monthDecorations != null ? monthDecorations.copy() : null, rules);
+        expandedMonths.put(key, expanded);
+        return expanded;
+    }
+
+    /**
+     * @return the month as {@link #getMonth(int, int)} returns it, to be expanded on another thread. The marked days and the rules are copied, so
+     * the store can keep changing on the UI thread.
+     */
+    MonthExpansion getMonthExpansion(int year, int month) {
+        Integer key = getMonthKey(year, month);
+        MonthDecorations monthDecorations = months.get(key);
+        List<RecurringDecoration> monthRules = Collections.emptyList();
+        if (!rules.isEmpty()) {
+            if (expandedVersion == version && expandedMonths.containsKey(key)) {
+                // Already expanded in this version of the store
+                monthDecorations = expandedMonths.get(key);
+            } else {
+                monthRules = new ArrayList<RecurringDecoration>(rules);
+            }
+        }
+        return new MonthExpansion(year, month, monthDecorations != null ? monthDecorations.copy() : null, monthRules);
+    }
+
+    /**
+     * @return a counter increased by every change of the store
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the number of days marked with {@link #add(int, int, int)} over all the months and slots, the occurrences of the rules are not counted
+     */
+    public int size() {
+        int size = 0;
+        for (MonthDecorations monthDecorations : months.values()) {
+            size += monthDecorations.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the months with days marked with {@link #add(int, int, int)} in date order
+     */
+    List<MonthDecorations> getMonths() {
+        List<MonthDecorations> sortedMonths = new ArrayList<MonthDecorations>(months.values());
+        Collections.sort(sortedMonths, new Comparator<MonthDecorations>() {
+            @Override
+            public int compare(MonthDecorations lhs, MonthDecorations rhs) {
+                int lhsKey = getMonthKey(lhs.getYear(), lhs.getMonth());
+                int rhsKey = getMonthKey(rhs.getYear(), rhs.getMonth());
+                return lhsKey < rhsKey ? -1 : (lhsKey == rhsKey ? 0 : 1);
+            }
+        });
+        return sortedMonths;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Private methods
+    // ************************************************************************************************************************************************************************
+
+    // Adds the occurrences of the rules on the days still free to a copy of the marked days of the month, rules are immutable so any thread can
+    // expand them
+    private static MonthDecorations expandRules(int year, int month, MonthDecorations expanded, List<RecurringDecoration> rules) {
+        for (int i = 0; i < rules.size(); i++) {
+            RecurringDecoration recurringDecoration = rules.get(i);
+            int mask = recurringDecoration.rule.getMonthMask(year, month);
+            if (expanded != null) {
+                mask &= ~expanded.getMask(recurringDecoration.slot);
+            }
+            if (mask == 0) {
+                continue;
+            }
+
+            if (expanded == null) {
+                expanded = new MonthDecorations(year, month);
+            }
+            while (mask != 0) {
+                expanded.set(recurringDecoration.slot, Integer.numberOfTrailingZeros(mask) + 1, recurringDecoration.style);
+                mask &= mask - 1;
+            }
+        }
+        return expanded;
+    }
+
+    private MonthDecorations getOrCreateMonth(int epochDay) {
+        if (lastMonth != null && epochDay >= lastMonthFirstEpochDay && epochDay <= lastMonthLastEpochDay) {
+            return lastMonth;
+        }
+
+        int year = MonthGrid.getYearOfEpochDay(epochDay);
+        int month = MonthGrid.getMonthOfEpochDay(epochDay);
+        Integer key = getMonthKey(year, month);
+        MonthDecorations monthDecorations = months.get(key);
+        if (monthDecorations == null) {
+            monthDecorations = new MonthDecorations(year, month);
+            months.put(key, monthDecorations);
+        }
+
+        lastMonth = monthDecorations;
+        lastMonthFirstEpochDay = MonthGrid.toEpochDay(year, month, 1);
+        lastMonthLastEpochDay = lastMonthFirstEpochDay + MonthGrid.getDaysInMonth(year, month) - 1;
+        return monthDecorations;
+    }
+
+    private static int getMonthKey(int year, int month) {
+        return year * 12 + month;
+    }
+
+    private static void checkSlot(int slot) {
+        if (slot < 0 || slot >= SLOTS) {
+            throw new IllegalArgumentException("Invalid slot: " + slot);
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Inner classes
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * A month of the store with the rules to expand in it, taken on the UI thread and expanded on any thread
+     */
+    static final class MonthExpansion {
+
+        private final int year;
+        private final int month;
+        private final MonthDecorations monthDecorations;
+        private final List<RecurringDecoration> rules;
+
+        private MonthExpansion(int year, int month, MonthDecorations monthDecorations, List<RecurringDecoration> rules) {
+            this.year = year;
+            this.month = month;
+            this.monthDecorations = monthDecorations;
+            this.rules = rules;
+        }
+
+        /**
+         * @return the decorations of the month including the occurrences of the rules, or null if it has none. Call it once.
+         */
+        MonthDecorations expand() {
+            return expandRules(year, month, monthDecorations, rules);
+        }
+    }
+
+    private static final class RecurringDecoration {
+
+        final RecurrenceRule rule;
+        final int slot;
+        final int style;
+
+        RecurringDecoration(RecurrenceRule rule, int slot, int style) {
+            this.rule = rule;
+            this.slot = slot;
+            this.style = style;
+        }
+    }
+}
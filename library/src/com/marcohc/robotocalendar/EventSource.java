@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+/**
+ * Provider of the markers of the calendar, queried by month when a month is displayed.
+ * <p/>
+ * Loads run on a background thread and a load whose month is no longer displayed is interrupted, so implementations should stop when the thread
+ * is interrupted.
+ */
+public interface EventSource {
+
+    /**
+     * Adds to the store the markers of the days from the first to the last epoch day, both included
+     *
+     * @param decorationStore a store owned by this load, it is not shared with other threads
+     */
+    void loadEvents(int firstEpochDay, int lastEpochDay, DecorationStore decorationStore) throws Exception;
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads the months of an {@link EventSource} on a background thread and keeps the last ones in a LRU cache.
+ * <p/>
+ * Only the last requested month is loaded, requesting another month cancels the pending load. The cache and the statistics are meant to be used
+ * from the UI thread, where the loaded months are delivered. The months of every cache are loaded on one shared background thread, call
+ * {@link #release()} when the cache is not used anymore.
+ */
+public final class EventSourceCache {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    public static final int DEFAULT_CAPACITY = 12;
+
+    private final EventSource eventSource;
+    private final Map<Integer, MonthDecorations> months;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    // Loads the months of every cache, one at a time
+    private static ExecutorService executor;
+
+    // Pending load
+    private Future<?> pendingLoad;
+    private int pendingMonthKey = -1;
+    private boolean released;
+
+    // Statistics
+    private int hitCount;
+    private int missCount;
+    private int loadCount;
+    private int cancelCount;
+    private int errorCount;
+    private long lastLoadNanos;
+    private long totalLoadNanos;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    public EventSourceCache(EventSource eventSource) {
+        this(eventSource, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of months kept in the cache
+     */
+    public EventSourceCache(EventSource eventSource, final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.eventSource = eventSource;
+        this.months = new LinkedHashMap<Integer, MonthDecorations>(capacity + 1, 1f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, MonthDecorations> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Public methods
+    // ************************************************************************************************************************************************************************
+
+    public interface OnMonthLoadedListener {
+
+        /**
+         * Called on the UI thread with the loaded markers of the month
+         */
+        void onMonthLoaded(int year, int month, MonthDecorations monthDecorations);
+
+        /**
+         * Called on the UI thread when the source failed to load the month, counted in {@link #getErrorCount()}
+         */
+        void onMonthLoadFailed(int year, int month, Exception exception);
+    }
+
+    /**
+     * @param month 0 based, as {@link java.util.Calendar#MONTH}
+     * @return the cached markers of the month or null if the month has to be loaded, counted as a hit or a miss
+     */
+    public MonthDecorations get(int year, int month) {
+        MonthDecorations monthDecorations = months.get(getMonthKey(year, month));
+        if (monthDecorations != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return monthDecorations;
+    }
+
+    /**
+     * Loads the month in the background, cancelling the pending load of any other month
+     *
+     * @param month 0 based, as {@link java.util.Calendar#MONTH}
+     */
+    public void load(final int year, final int month, final OnMonthLoadedListener listener) {
+        if (released) {
+            throw new IllegalStateException("The cache has been released");
+        }
+        final int monthKey = getMonthKey(year, month);
+        if (pendingLoad != null) {
+            if (pendingMonthKey == monthKey && !pendingLoad.isDone()) {
+                return;
+            }
+            if (pendingLoad.cancel(true)) {
+                cancelCount++;
+            }
+        }
+
+        pendingMonthKey = monthKey;
+        pendingLoad = getExecutor().submit(new Runnable() {
+            @Override
+            public void run() {
+                int firstEpochDay = MonthGrid.toEpochDay(year, month, 1);
+                int lastEpochDay = firstEpochDay + MonthGrid.getDaysInMonth(year, month) - 1;
+                DecorationStore decorationStore = new DecorationStore();
+
+                final long start = System.nanoTime();
+                try {
+                    eventSource.loadEvents(firstEpochDay, lastEpochDay, decorationStore);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (final Exception e) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        // A source that throws something else when interrupted, the load was cancelled and counted as such by load()
+                        return;
+                    }
+                    handler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            onMonthLoadFailed(year, month, e, listener);
+                        }
+                    });
+                    return;
+                }
+                final long loadNanos = System.nanoTime() - start;
+
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                MonthDecorations loaded = decorationStore.getMonth(year, month);
+                final MonthDecorations monthDecorations = loaded != null ? loaded : new MonthDecorations(year, month);
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onMonthLoaded(monthKey, monthDecorations, loadNanos, listener);
+                    }
+                });
+            }
+        });
+    }
+
+    private void onMonthLoaded(int monthKey, MonthDecorations monthDecorations, long loadNanos, OnMonthLoadedListener listener) {
+        if (released) {
+            return;
+        }
+        loadCount++;
+        lastLoadNanos = loadNanos;
+        totalLoadNanos += loadNanos;
+        months.put(monthKey, monthDecorations);
+
+        if (monthKey == pendingMonthKey) {
+            pendingLoad = null;
+            pendingMonthKey = -1;
+        }
+        listener.onMonthLoaded(monthDecorations.getYear(), monthDecorations.getMonth(), monthDecorations);
+    }
+
+    private void onMonthLoadFailed(int year, int month, Exception exception, OnMonthLoadedListener listener) {
+        if (released) {
+            return;
+        }
+        errorCount++;
+        listener.onMonthLoadFailed(year, month, exception);
+    }
+
+    /**
+     * Drops the cached months, to be called when the events of the source change
+     */
+    public void invalidate() {
+        months.clear();
+    }
+
+    /**
+     * Cancels the pending load and drops the cached months, no month is delivered after this call and the cache cannot load anymore
+     */
+    public void release() {
+        released = true;
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+            pendingLoad = null;
+            pendingMonthKey = -1;
+        }
+        months.clear();
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Statistics
+    // ************************************************************************************************************************************************************************
+
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    public int getMissCount() {
+        return missCount;
+    }
+
+    public int getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * @return the number of loads cancelled because another month was requested
+     */
+    public int getCancelCount() {
+        return cancelCount;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public long getLastLoadNanos() {
+        return lastLoadNanos;
+    }
+
+    public long getAverageLoadNanos() {
+        return loadCount == 0 ? 0 : totalLoadNanos / loadCount;
+    }
+
+    public int size() {
+        return months.size();
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "RobotoCalendarEventSource");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    private static int getMonthKey(int year, int month) {
+        return year * 12 + month;
+    }
+}
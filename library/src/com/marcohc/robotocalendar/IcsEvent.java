@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+/**
+ * VEVENT read by {@link IcsImporter}, handed to its {@link IcsImporter.StyleMapping} before the event is added to the decorations.
+ * <p/>
+ * The instance is reused for every event of the file, read it before returning from the mapping.
+ */
+public final class IcsEvent {
+
+    String summary;
+    String categories;
+    int startEpochDay;
+    int endEpochDay;
+    RecurrenceRule rule;
+
+    IcsEvent() {
+    }
+
+    void reset() {
+        summary = null;
+        categories = null;
+        startEpochDay = 0;
+        endEpochDay = 0;
+        rule = null;
+    }
+
+    /**
+     * @return the SUMMARY of the event as it is in the file, or null
+     */
+    public String getSummary() {
+        return summary;
+    }
+
+    /**
+     * @return the CATEGORIES of the event as they are in the file, comma separated, or null
+     */
+    public String getCategories() {
+        return categories;
+    }
+
+    /**
+     * @return the day of DTSTART in the time zone of the import
+     */
+    public int getStartEpochDay() {
+        return startEpochDay;
+    }
+
+    /**
+     * @return the last day the event lasts, included, the start day if it has no DTEND
+     */
+    public int getEndEpochDay() {
+        return endEpochDay;
+    }
+
+    public boolean isRecurring() {
+        return rule != null;
+    }
+
+    /**
+     * @return the rule built from the RRULE and EXDATE of the event, or null if it does not repeat
+     */
+    public RecurrenceRule getRule() {
+        return rule;
+    }
+}
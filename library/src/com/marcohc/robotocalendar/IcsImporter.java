@@ -0,0 +1,749 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Streaming reader of iCalendar (.ics) files that adds the VEVENTs straight to a {@link DecorationStore}.
+ * <p/>
+ * The file is read in fixed size chunks, through a memory mapped buffer for files, and parsed line by line without building the events, so the
+ * memory used does not depend on the size of the file. DTSTART, DTEND, DURATION, RRULE and EXDATE are read. Events which do not repeat mark every
+ * day they last, up to a year, and repeating events are added as a {@link RecurrenceRule}, which only marks the day each occurrence starts.
+ * <p/>
+ * RRULEs using parts {@link RecurrenceRule} does not model, such as BYSETPOS or a BYDAY with an ordinal, only mark the day of DTSTART and are counted
+ * by {@link #getUnsupportedRuleCount()}. WKST is ignored, weeks start on Monday.
+ * <p/>
+ * The importer is not thread safe. As the store is not either, import into a new store from a background thread and add it to the store of the
+ * calendar with {@link DecorationStore#addAll(DecorationStore)} on the UI thread.
+ */
+public final class IcsImporter {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Style returned by a {@link StyleMapping} for the events to skip
+     */
+    public static final int NO_STYLE = 0;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    static final int MAP_WINDOW_SIZE = 32 * 1024 * 1024;
+    // Longer lines are cut, the properties read are far shorter
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    private static final int MAX_EVENT_DAYS = 366;
+    // The heap used is sampled each time this many bytes are read
+    private static final int MEMORY_SAMPLE_BYTES = 1024 * 1024;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final int INVALID_DAY = Integer.MIN_VALUE;
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private static final byte[] BEGIN = ascii("BEGIN");
+    private static final byte[] END = ascii("END");
+    private static final byte[] VEVENT = ascii("VEVENT");
+    private static final byte[] DTSTART = ascii("DTSTART");
+    private static final byte[] DTEND = ascii("DTEND");
+    private static final byte[] DURATION = ascii("DURATION");
+    private static final byte[] RRULE = ascii("RRULE");
+    private static final byte[] EXDATE = ascii("EXDATE");
+    private static final byte[] SUMMARY = ascii("SUMMARY");
+    private static final byte[] CATEGORIES = ascii("CATEGORIES");
+    private static final byte[] TZID = ascii("TZID=");
+    private static final byte[] FREQ = ascii("FREQ");
+    private static final byte[] INTERVAL = ascii("INTERVAL");
+    private static final byte[] COUNT = ascii("COUNT");
+    private static final byte[] UNTIL = ascii("UNTIL");
+    private static final byte[] BYDAY = ascii("BYDAY");
+    private static final byte[] BYMONTH = ascii("BYMONTH");
+    private static final byte[] BYMONTHDAY = ascii("BYMONTHDAY");
+    private static final byte[] WKST = ascii("WKST");
+    private static final String[] FREQUENCIES = {"DAILY", "WEEKLY", "MONTHLY", "YEARLY"};
+    // Two letter days of RFC 5545 in the order of Calendar.DAY_OF_WEEK
+    private static final String[] WEEK_DAYS = {"SU", "MO", "TU", "WE", "TH", "FR", "SA"};
+
+    private final DecorationStore decorationStore;
+    private final StyleMapping styleMapping;
+    private final TimeZone timeZone;
+
+    // Line assembly, a line ending is only known to end the property when the next line is not folded
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private boolean lineEnded;
+
+    // Event being read, the components nested in it such as VALARM are skipped
+    private final IcsEvent event = new IcsEvent();
+    private boolean inEvent;
+    private int nestedComponents;
+    private boolean hasStart;
+    private boolean hasEnd;
+    private int durationDays;
+
+    // RRULE of the event being read
+    private int ruleFrequency;
+    private int ruleInterval;
+    private int ruleCount;
+    private int ruleUntil;
+    private final int[] ruleWeekDays = new int[MonthGrid.DAYS_IN_WEEK];
+    private int ruleWeekDayCount;
+    private int ruleMonth;
+    private int ruleDayOfMonth;
+    private boolean ruleUnsupported;
+    private int[] exclusions = new int[16];
+    private int exclusionCount;
+
+    // Time zones of the TZID parameters, the last one is matched without decoding its name
+    private final Map<String, TimeZone> timeZones = new HashMap<String, TimeZone>();
+    private byte[] lastTimeZoneId = new byte[0];
+    private TimeZone lastTimeZone;
+
+    // Statistics of the last import
+    private long byteCount;
+    private int eventCount;
+    private int addedRuleCount;
+    private int skippedEventCount;
+    private int unsupportedRuleCount;
+    private long elapsedNanos;
+    private long peakMemoryBytes;
+    private long nextMemorySample;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * @param timeZone the time zone of the calendar, the dates with a time are placed in its days
+     */
+    public IcsImporter(DecorationStore decorationStore, StyleMapping styleMapping, TimeZone timeZone) {
+        this.decorationStore = decorationStore;
+        this.styleMapping = styleMapping;
+        this.timeZone = timeZone;
+    }
+
+    /**
+     * @return a mapping giving every event the same slot and style
+     */
+    public static StyleMapping fixedStyle(final int slot, final int style) {
+        return new StyleMapping() {
+            @Override
+            public int getStyle(IcsEvent event) {
+                return style;
+            }
+
+            @Override
+            public int getSlot(IcsEvent event) {
+                return slot;
+            }
+        };
+    }
+
+    private static byte[] ascii(String text) {
+        try {
+            return text.getBytes("US-ASCII");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Import methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Reads the file through a memory mapped buffer, a window of it at a time
+     */
+    public void importFile(File file) throws IOException {
+        FileInputStream inputStream = new FileInputStream(file);
+        try {
+            FileChannel channel = inputStream.getChannel();
+            long size = channel.size();
+            start();
+            for (long position = 0; position < size; position += MAP_WINDOW_SIZE) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW_SIZE, size - position));
+                while (window.hasRemaining()) {
+                    int length = Math.min(buffer.length, window.remaining());
+                    window.get(buffer, 0, length);
+                    read(length);
+                }
+            }
+            finish();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Reads the stream until its end, it is not closed
+     */
+    public void importStream(InputStream inputStream) throws IOException {
+        start();
+        int length;
+        while ((length = inputStream.read(buffer)) != -1) {
+            read(length);
+        }
+        finish();
+    }
+
+    private void start() {
+        byteCount = 0;
+        eventCount = 0;
+        addedRuleCount = 0;
+        skippedEventCount = 0;
+        unsupportedRuleCount = 0;
+        peakMemoryBytes = 0;
+        nextMemorySample = 0;
+        lineLength = 0;
+        lineEnded = false;
+        inEvent = false;
+        elapsedNanos = System.nanoTime();
+    }
+
+    private void finish() {
+        if (lineEnded || lineLength > 0) {
+            readLine();
+        }
+        sampleMemory();
+        elapsedNanos = System.nanoTime() - elapsedNanos;
+    }
+
+    private void read(int length) {
+        for (int i = 0; i < length; i++) {
+            byte b = buffer[i];
+            if (lineEnded) {
+                lineEnded = false;
+                // A folded line goes on after its leading whitespace
+                if (b == ' ' || b == '\t') {
+                    continue;
+                }
+                readLine();
+            }
+
+            if (b == '\n') {
+                lineEnded = true;
+            } else if (b != '\r' && lineLength < MAX_LINE_LENGTH) {
+                if (lineLength == line.length) {
+                    byte[] newLine = new byte[line.length * 2];
+                    System.arraycopy(line, 0, newLine, 0, lineLength);
+                    line = newLine;
+                }
+                line[lineLength++] = b;
+            }
+        }
+
+        byteCount += length;
+        if (byteCount >= nextMemorySample) {
+            sampleMemory();
+            nextMemorySample = byteCount + MEMORY_SAMPLE_BYTES;
+        }
+    }
+
+    private void sampleMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        peakMemoryBytes = Math.max(peakMemoryBytes, runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Property methods
+    // ************************************************************************************************************************************************************************
+
+    private void readLine() {
+        int length = lineLength;
+        lineLength = 0;
+
+        // NAME;PARAM=VALUE;PARAM="VALUE":VALUE, the colons of quoted parameters are not the separator
+        int nameEnd = -1;
+        int colon = -1;
+        boolean quoted = false;
+        for (int i = 0; i < length; i++) {
+            byte b = line[i];
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (!quoted && b == ';' && nameEnd < 0) {
+                nameEnd = i;
+            } else if (!quoted && b == ':') {
+                colon = i;
+                break;
+            }
+        }
+        if (colon < 0) {
+            return;
+        }
+        if (nameEnd < 0) {
+            nameEnd = colon;
+        }
+        int valueStart = colon + 1;
+
+        if (isName(BEGIN, nameEnd)) {
+            if (inEvent) {
+                nestedComponents++;
+            } else if (equals(VEVENT, valueStart, length)) {
+                startEvent();
+            }
+        } else if (isName(END, nameEnd)) {
+            if (inEvent && nestedComponents > 0) {
+                nestedComponents--;
+            } else if (inEvent && equals(VEVENT, valueStart, length)) {
+                endEvent();
+            }
+        } else if (!inEvent || nestedComponents > 0) {
+            return;
+        } else if (isName(DTSTART, nameEnd)) {
+            int epochDay = parseDate(valueStart, length, getTimeZone(nameEnd, colon), false);
+            if (epochDay != INVALID_DAY) {
+                event.startEpochDay = epochDay;
+                hasStart = true;
+            }
+        } else if (isName(DTEND, nameEnd)) {
+            int epochDay = parseDate(valueStart, length, getTimeZone(nameEnd, colon), true);
+            if (epochDay != INVALID_DAY) {
+                event.endEpochDay = epochDay;
+                hasEnd = true;
+            }
+        } else if (isName(DURATION, nameEnd)) {
+            parseDuration(valueStart, length);
+        } else if (isName(RRULE, nameEnd)) {
+            parseRule(valueStart, length);
+        } else if (isName(EXDATE, nameEnd)) {
+            parseExclusions(valueStart, length, getTimeZone(nameEnd, colon));
+        } else if (isName(SUMMARY, nameEnd)) {
+            event.summary = decode(valueStart, length);
+        } else if (isName(CATEGORIES, nameEnd)) {
+            event.categories = decode(valueStart, length);
+        }
+    }
+
+    private void startEvent() {
+        inEvent = true;
+        nestedComponents = 0;
+        event.reset();
+        hasStart = false;
+        hasEnd = false;
+        durationDays = -1;
+        ruleFrequency = -1;
+        ruleInterval = 1;
+        ruleCount = 0;
+        ruleUntil = RecurrenceRule.NO_END;
+        ruleWeekDayCount = 0;
+        ruleMonth = 0;
+        ruleDayOfMonth = 0;
+        ruleUnsupported = false;
+        exclusionCount = 0;
+    }
+
+    private void endEvent() {
+        inEvent = false;
+        if (!hasStart) {
+            skippedEventCount++;
+            return;
+        }
+
+        int startEpochDay = event.startEpochDay;
+        if (!hasEnd) {
+            event.endEpochDay = durationDays > 0 ? startEpochDay + durationDays - 1 : startEpochDay;
+        }
+        event.endEpochDay = Math.min(Math.max(event.endEpochDay, startEpochDay), startEpochDay + MAX_EVENT_DAYS - 1);
+
+        if (ruleFrequency >= 0 && isRuleSupported()) {
+            event.rule = buildRule();
+        } else if (ruleFrequency >= 0 || ruleUnsupported) {
+            unsupportedRuleCount++;
+        }
+
+        int style = styleMapping.getStyle(event);
+        if (style == NO_STYLE) {
+            skippedEventCount++;
+            return;
+        }
+        int slot = styleMapping.getSlot(event);
+
+        if (event.rule != null) {
+            decorationStore.addRule(event.rule, slot, style);
+            addedRuleCount++;
+        } else {
+            for (int epochDay = startEpochDay; epochDay <= event.endEpochDay; epochDay++) {
+                decorationStore.add(epochDay, slot, style);
+            }
+        }
+        eventCount++;
+    }
+
+    // BYMONTH and BYMONTHDAY are only supported when they repeat the month and day of DTSTART
+    private boolean isRuleSupported() {
+        if (ruleUnsupported) {
+            return false;
+        }
+        int packedDate = MonthGrid.toPackedDate(event.startEpochDay);
+        if (ruleMonth != 0 && (ruleFrequency != RecurrenceRule.FREQUENCY_YEARLY || ruleMonth != packedDate / 100 % 100)) {
+            return false;
+        }
+        return ruleDayOfMonth == 0 || (ruleWeekDayCount == 0 && ruleFrequency >= RecurrenceRule.FREQUENCY_MONTHLY && ruleDayOfMonth == packedDate % 100);
+    }
+
+    private RecurrenceRule buildRule() {
+        RecurrenceRule.Builder builder = new RecurrenceRule.Builder(ruleFrequency, event.startEpochDay).setInterval(ruleInterval);
+        if (ruleWeekDayCount > 0) {
+            int[] weekDays = new int[ruleWeekDayCount];
+            System.arraycopy(ruleWeekDays, 0, weekDays, 0, ruleWeekDayCount);
+            builder.setWeekDays(weekDays);
+        }
+        if (ruleCount > 0) {
+            builder.setCount(ruleCount);
+        }
+        builder.setUntil(ruleUntil);
+        for (int i = 0; i < exclusionCount; i++) {
+            builder.addExclusion(exclusions[i]);
+        }
+        return builder.build();
+    }
+
+    // FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,TH;UNTIL=20151231T000000Z
+    private void parseRule(int from, int to) {
+        int partStart = from;
+        while (partStart < to) {
+            int partEnd = indexOf(';', partStart, to);
+            int equals = indexOf('=', partStart, partEnd);
+            int valueStart = equals + 1;
+            if (equals == partEnd) {
+                ruleUnsupported = true;
+            } else if (isPart(FREQ, partStart, equals)) {
+                ruleFrequency = -1;
+                for (int i = 0; i < FREQUENCIES.length; i++) {
+                    if (equals(FREQUENCIES[i], valueStart, partEnd)) {
+                        ruleFrequency = i;
+                    }
+                }
+                // Hourly and finer rules
+                ruleUnsupported |= ruleFrequency < 0;
+            } else if (isPart(INTERVAL, partStart, equals)) {
+                ruleInterval = Math.max(1, parseInt(valueStart, partEnd));
+            } else if (isPart(COUNT, partStart, equals)) {
+                ruleCount = parseInt(valueStart, partEnd);
+                ruleUnsupported |= ruleCount < 1;
+            } else if (isPart(UNTIL, partStart, equals)) {
+                int epochDay = parseDate(valueStart, partEnd, null, false);
+                ruleUnsupported |= epochDay == INVALID_DAY;
+                ruleUntil = epochDay;
+            } else if (isPart(BYDAY, partStart, equals)) {
+                parseWeekDays(valueStart, partEnd);
+            } else if (isPart(BYMONTH, partStart, equals)) {
+                ruleMonth = parseInt(valueStart, partEnd);
+                ruleUnsupported |= ruleMonth < 1;
+            } else if (isPart(BYMONTHDAY, partStart, equals)) {
+                ruleDayOfMonth = parseInt(valueStart, partEnd);
+                ruleUnsupported |= ruleDayOfMonth < 1;
+            } else if (!isPart(WKST, partStart, equals)) {
+                ruleUnsupported = true;
+            }
+            partStart = partEnd + 1;
+        }
+    }
+
+    // MO,TU,WE, a day with an ordinal such as 1MO or -1FR is not supported
+    private void parseWeekDays(int from, int to) {
+        int dayStart = from;
+        while (dayStart < to) {
+            int dayEnd = indexOf(',', dayStart, to);
+            int dayOfWeek = 0;
+            for (int i = 0; i < WEEK_DAYS.length; i++) {
+                if (equals(WEEK_DAYS[i], dayStart, dayEnd)) {
+                    dayOfWeek = i + 1;
+                }
+            }
+            if (dayOfWeek == 0 || ruleWeekDayCount == ruleWeekDays.length) {
+                ruleUnsupported = true;
+            } else {
+                ruleWeekDays[ruleWeekDayCount++] = dayOfWeek;
+            }
+            dayStart = dayEnd + 1;
+        }
+    }
+
+    private void parseExclusions(int from, int to, TimeZone timeZone) {
+        int dateStart = from;
+        while (dateStart < to) {
+            int dateEnd = indexOf(',', dateStart, to);
+            int epochDay = parseDate(dateStart, dateEnd, timeZone, false);
+            if (epochDay != INVALID_DAY) {
+                if (exclusionCount == exclusions.length) {
+                    int[] newExclusions = new int[exclusions.length * 2];
+                    System.arraycopy(exclusions, 0, newExclusions, 0, exclusionCount);
+                    exclusions = newExclusions;
+                }
+                exclusions[exclusionCount++] = epochDay;
+            }
+            dateStart = dateEnd + 1;
+        }
+    }
+
+    // P2D, P1W or P1DT12H, only whole days and weeks make the event last longer
+    private void parseDuration(int from, int to) {
+        int number = 0;
+        int days = 0;
+        for (int i = from; i < to; i++) {
+            byte b = line[i];
+            if (b >= '0' && b <= '9') {
+                number = number * 10 + b - '0';
+            } else if (b == 'W') {
+                days += number * MonthGrid.DAYS_IN_WEEK;
+                number = 0;
+            } else if (b == 'D') {
+                days += number;
+                number = 0;
+            } else if (b == 'T') {
+                break;
+            } else {
+                number = 0;
+            }
+        }
+        durationDays = days;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Date methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Parses yyyymmdd, yyyymmddThhmmss or yyyymmddThhmmssZ. Dates and floating times keep their day, times in UTC or in the given time zone are
+     * placed in the days of the time zone of the import.
+     *
+     * @param end true for the end of an event, which excludes its last instant
+     */
+    private int parseDate(int from, int to, TimeZone sourceTimeZone, boolean end) {
+        if (to - from < 8) {
+            return INVALID_DAY;
+        }
+        int year = parseDigits(from, 4);
+        int month = parseDigits(from + 4, 2);
+        int dayOfMonth = parseDigits(from + 6, 2);
+        if (year < 0 || month < 1 || month > 12 || dayOfMonth < 1 || dayOfMonth > MonthGrid.getDaysInMonth(year, month - 1)) {
+            return INVALID_DAY;
+        }
+        int epochDay = MonthGrid.toEpochDay(year, month - 1, dayOfMonth);
+
+        if (to - from < 15 || line[from + 8] != 'T') {
+            // The end date of an all day event is the day after it
+            return end ? epochDay - 1 : epochDay;
+        }
+
+        int seconds = parseDigits(from + 9, 2) * 3600 + parseDigits(from + 11, 2) * 60 + parseDigits(from + 13, 2);
+        if (seconds < 0) {
+            return INVALID_DAY;
+        }
+        if (to - from >= 16 && line[from + 15] == 'Z') {
+            sourceTimeZone = UTC;
+        }
+
+        if (sourceTimeZone == null || sourceTimeZone.getID().equals(timeZone.getID())) {
+            return end && seconds == 0 ? epochDay - 1 : epochDay;
+        }
+        long millis = (sourceTimeZone == UTC ? epochDay * MILLIS_PER_DAY : MonthGrid.toMillis(epochDay, sourceTimeZone)) + seconds * 1000L;
+        return MonthGrid.toEpochDay(end ? millis - 1 : millis, timeZone);
+    }
+
+    // Time zone of the TZID parameter between the name and the value, or null
+    private TimeZone getTimeZone(int paramsStart, int paramsEnd) {
+        int index = indexOf(TZID, paramsStart, paramsEnd);
+        if (index < 0) {
+            return null;
+        }
+        int idStart = index + TZID.length;
+        if (idStart < paramsEnd && line[idStart] == '"') {
+            idStart++;
+        }
+        int idEnd = idStart;
+        while (idEnd < paramsEnd && line[idEnd] != ';' && line[idEnd] != '"') {
+            idEnd++;
+        }
+
+        if (equals(lastTimeZoneId, idStart, idEnd)) {
+            return lastTimeZone;
+        }
+        String id = decode(idStart, idEnd);
+        TimeZone timeZone = timeZones.get(id);
+        if (timeZone == null) {
+            timeZone = TimeZone.getTimeZone(id);
+            timeZones.put(id, timeZone);
+        }
+        lastTimeZoneId = new byte[idEnd - idStart];
+        System.arraycopy(line, idStart, lastTimeZoneId, 0, lastTimeZoneId.length);
+        lastTimeZone = timeZone;
+        return timeZone;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Line methods
+    // ************************************************************************************************************************************************************************
+
+    private boolean isName(byte[] name, int nameEnd) {
+        return nameEnd == name.length && equals(name, 0, nameEnd);
+    }
+
+    private boolean isPart(byte[] name, int from, int to) {
+        return to - from == name.length && equals(name, from, to);
+    }
+
+    private boolean equals(byte[] text, int from, int to) {
+        if (to - from != text.length) {
+            return false;
+        }
+        for (int i = 0; i < text.length; i++) {
+            if (line[from + i] != text[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean equals(String text, int from, int to) {
+        if (to - from != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (line[from + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (line[i] == c) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private int indexOf(byte[] text, int from, int to) {
+        for (int i = from; i <= to - text.length; i++) {
+            if (equals(text, i, i + text.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // -1 if the digits are not all numbers
+    private int parseDigits(int from, int digits) {
+        int value = 0;
+        for (int i = from; i < from + digits; i++) {
+            byte b = line[i];
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + b - '0';
+        }
+        return value;
+    }
+
+    private int parseInt(int from, int to) {
+        if (to - from < 1 || to - from > 9) {
+            return -1;
+        }
+        return parseDigits(from, to - from);
+    }
+
+    private String decode(int from, int to) {
+        try {
+            return new String(line, from, to - from, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Statistics methods
+    // ************************************************************************************************************************************************************************
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * @return the number of events added to the store, as days or as a rule
+     */
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * @return the number of events added as a {@link RecurrenceRule}
+     */
+    public int getRuleCount() {
+        return addedRuleCount;
+    }
+
+    /**
+     * @return the number of events without a valid DTSTART or skipped by the style mapping
+     */
+    public int getSkippedEventCount() {
+        return skippedEventCount;
+    }
+
+    /**
+     * @return the number of events whose RRULE could not be modeled, only their DTSTART was marked
+     */
+    public int getUnsupportedRuleCount() {
+        return unsupportedRuleCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getBytesPerSecond() {
+        return elapsedNanos > 0 ? (long) (byteCount * 1e9 / elapsedNanos) : 0;
+    }
+
+    /**
+     * @return the highest heap use of the process sampled during the import, which includes the memory of the whole process
+     */
+    public long getPeakMemoryBytes() {
+        return peakMemoryBytes;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Public interface
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Gives the markers of the imported events
+     */
+    public interface StyleMapping {
+
+        /**
+         * @return the style of the markers of the event, a color resource such as {@link RobotoCalendarView#RED_COLOR}, or {@link #NO_STYLE} to skip it
+         */
+        int getStyle(IcsEvent event);
+
+        /**
+         * @return {@link DecorationStore#SLOT_FIRST_UNDERLINE} or {@link DecorationStore#SLOT_SECOND_UNDERLINE}
+         */
+        int getSlot(IcsEvent event);
+    }
+}
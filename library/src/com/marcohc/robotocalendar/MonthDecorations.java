@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+/**
+ * Decorations of the days of one month: a bitmap per slot, bit 0 being the first day of the month, and the style of every marked day
+ */
+public final class MonthDecorations {
+
+    static final int MAX_DAYS_IN_MONTH = 31;
+
+    private final int year;
+    private final int month;
+    private final int[] masks = new int[DecorationStore.SLOTS];
+    private final int[] styles = new int[DecorationStore.SLOTS * MAX_DAYS_IN_MONTH];
+
+    MonthDecorations(int year, int month) {
+        this.year = year;
+        this.month = month;
+    }
+
+    /**
+     * @return a copy that can be read from another thread while the store keeps changing
+     */
+    MonthDecorations copy() {
+        MonthDecorations copy = new MonthDecorations(year, month);
+        System.arraycopy(masks, 0, copy.masks, 0, masks.length);
+        System.arraycopy(styles, 0, copy.styles, 0, styles.length);
+        return copy;
+    }
+
+    void set(int slot, int dayOfMonth, int style) {
+        masks[slot] |= 1 << (dayOfMonth - 1);
+        styles[slot * MAX_DAYS_IN_MONTH + dayOfMonth - 1] = style;
+    }
+
+    void remove(int slot, int dayOfMonth) {
+        masks[slot] &= ~(1 << (dayOfMonth - 1));
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    /**
+     * @return the month, 0 based as {@link java.util.Calendar#MONTH}
+     */
+    public int getMonth() {
+        return month;
+    }
+
+    /**
+     * @return the bitmap of the marked days of the slot, bit 0 being the first day of the month
+     */
+    public int getMask(int slot) {
+        return masks[slot];
+    }
+
+    public boolean isMarked(int slot, int dayOfMonth) {
+        return (masks[slot] & (1 << (dayOfMonth - 1))) != 0;
+    }
+
+    public int getStyle(int slot, int dayOfMonth) {
+        return styles[slot * MAX_DAYS_IN_MONTH + dayOfMonth - 1];
+    }
+
+    public boolean isEmpty() {
+        for (int mask : masks) {
+            if (mask != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of marked days over all the slots
+     */
+    public int size() {
+        int size = 0;
+        for (int mask : masks) {
+            size += Integer.bitCount(mask);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Immutable layout of one month in the 6 x 7 calendar grid.
+ * <p/>
+ * Days are represented as epoch days, the number of days since 1970-01-01, so the model only depends on plain Java and can be computed and
+ * tested outside of the UI thread. Months are 0 based and days of the week use the {@link Calendar} constants, as in {@link Calendar}.
+ */
+public final class MonthGrid {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    public static final int DAYS_IN_WEEK = 7;
+    public static final int WEEK_ROWS = 6;
+    public static final int DAYS_IN_GRID = DAYS_IN_WEEK * WEEK_ROWS;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    // 1970-01-01 was a Thursday
+    private static final int EPOCH_DAY_OF_WEEK = Calendar.THURSDAY;
+
+    private final int year;
+    private final int month;
+    private final int firstDayOfWeek;
+    private final int firstEpochDay;
+    private final int leadingDays;
+    private final int daysInMonth;
+    private final int weekRows;
+    private final int[] epochDays = new int[DAYS_IN_GRID];
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    private MonthGrid(int year, int month, int firstDayOfWeek) {
+        this.year = year;
+        this.month = month;
+        this.firstDayOfWeek = firstDayOfWeek;
+        this.firstEpochDay = toEpochDay(year, month, 1);
+        this.daysInMonth = getDaysInMonth(year, month);
+        this.leadingDays = getColumn(getDayOfWeekOfEpochDay(firstEpochDay), firstDayOfWeek);
+        this.weekRows = (leadingDays + daysInMonth + DAYS_IN_WEEK - 1) / DAYS_IN_WEEK;
+
+        int epochDay = firstEpochDay - leadingDays;
+        for (int i = 0; i < DAYS_IN_GRID; i++) {
+            epochDays[i] = epochDay++;
+        }
+    }
+
+    /**
+     * @param year           the year, as {@link Calendar#YEAR}
+     * @param month          the month, 0 based as {@link Calendar#MONTH}
+     * @param firstDayOfWeek the day shown in the first column, as {@link Calendar#getFirstDayOfWeek()}
+     */
+    public static MonthGrid of(int year, int month, int firstDayOfWeek) {
+        if (month < Calendar.JANUARY || month > Calendar.DECEMBER) {
+            throw new IllegalArgumentException("Invalid month: " + month);
+        }
+        if (firstDayOfWeek < Calendar.SUNDAY || firstDayOfWeek > Calendar.SATURDAY) {
+            throw new IllegalArgumentException("Invalid first day of week: " + firstDayOfWeek);
+        }
+        return new MonthGrid(year, month, firstDayOfWeek);
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Getter methods
+    // ************************************************************************************************************************************************************************
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public int getFirstDayOfWeek() {
+        return firstDayOfWeek;
+    }
+
+    public int getDaysInMonth() {
+        return daysInMonth;
+    }
+
+    /**
+     * @return the number of cells before the first day of the month
+     */
+    public int getLeadingDays() {
+        return leadingDays;
+    }
+
+    /**
+     * @return the number of cells after the last day of the month
+     */
+    public int getTrailingDays() {
+        return DAYS_IN_GRID - leadingDays - daysInMonth;
+    }
+
+    /**
+     * @return the number of week rows containing days of the month, 4 to 6
+     */
+    public int getWeekRows() {
+        return weekRows;
+    }
+
+    public int getFirstEpochDay() {
+        return firstEpochDay;
+    }
+
+    public int getLastEpochDay() {
+        return firstEpochDay + daysInMonth - 1;
+    }
+
+    public int getEpochDay(int index) {
+        return epochDays[index];
+    }
+
+    public boolean isInMonth(int index) {
+        return index >= leadingDays && index < leadingDays + daysInMonth;
+    }
+
+    /**
+     * @return the day of the month of the cell, or 0 if the cell belongs to the previous or next month
+     */
+    public int getDayOfMonth(int index) {
+        return isInMonth(index) ? index - leadingDays + 1 : 0;
+    }
+
+    /**
+     * @return the cell index of the given day of this month
+     */
+    public int getIndexOfDayOfMonth(int dayOfMonth) {
+        return leadingDays + dayOfMonth - 1;
+    }
+
+    /**
+     * @return the cell index of the given epoch day, or -1 if the day does not belong to this month
+     */
+    public int getIndex(int epochDay) {
+        int dayOfMonth = epochDay - firstEpochDay;
+        if (dayOfMonth < 0 || dayOfMonth >= daysInMonth) {
+            return -1;
+        }
+        return leadingDays + dayOfMonth;
+    }
+
+    /**
+     * @return the day of the week shown in the given column, as {@link Calendar#DAY_OF_WEEK}
+     */
+    public int getDayOfWeekOfColumn(int column) {
+        return (firstDayOfWeek - 1 + column) % DAYS_IN_WEEK + 1;
+    }
+
+    public boolean contains(int epochDay) {
+        return epochDay >= firstEpochDay && epochDay < firstEpochDay + daysInMonth;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Date methods
+    // ************************************************************************************************************************************************************************
+
+    public static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    public static int getDaysInMonth(int year, int month) {
+        switch (month) {
+            case Calendar.FEBRUARY:
+                return isLeapYear(year) ? 29 : 28;
+            case Calendar.APRIL:
+            case Calendar.JUNE:
+            case Calendar.SEPTEMBER:
+            case Calendar.NOVEMBER:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * @return the column of the given day of the week when the week starts on firstDayOfWeek, 0 based
+     */
+    public static int getColumn(int dayOfWeek, int firstDayOfWeek) {
+        return (dayOfWeek - firstDayOfWeek + DAYS_IN_WEEK) % DAYS_IN_WEEK;
+    }
+
+    /**
+     * @return the day of the week of the epoch day, as {@link Calendar#DAY_OF_WEEK}
+     */
+    public static int getDayOfWeekOfEpochDay(int epochDay) {
+        return floorMod(epochDay + EPOCH_DAY_OF_WEEK - 1, DAYS_IN_WEEK) + 1;
+    }
+
+    /**
+     * Converts a proleptic Gregorian date to its epoch day
+     *
+     * @param month 0 based, as {@link Calendar#MONTH}
+     */
+    public static int toEpochDay(int year, int month, int dayOfMonth) {
+        // Days from civil, shifting the year to start on March so the leap day is the last one
+        int m = month + 1;
+        int y = m <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (m > 2 ? m - 3 : m + 9) + 2) / 5 + dayOfMonth - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * @return the date of the epoch day packed as yyyymmdd with a 1 based month, as 20150721
+     */
+    public static int toPackedDate(int epochDay) {
+        // Civil from days
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int m = mp < 10 ? mp + 3 : mp - 9;
+        int year = yearOfEra + era * 400 + (m <= 2 ? 1 : 0);
+        return year * 10000 + m * 100 + day;
+    }
+
+    /**
+     * @param packedDate the date packed as yyyymmdd with a 1 based month, as 20150721, for years from 1
+     */
+    public static int fromPackedDate(int packedDate) {
+        return toEpochDay(packedDate / 10000, packedDate / 100 % 100 - 1, packedDate % 100);
+    }
+
+    public static int getYearOfEpochDay(int epochDay) {
+        return toPackedDate(epochDay) / 10000;
+    }
+
+    /**
+     * @return the 0 based month of the epoch day, as {@link Calendar#MONTH}
+     */
+    public static int getMonthOfEpochDay(int epochDay) {
+        return toPackedDate(epochDay) / 100 % 100 - 1;
+    }
+
+    public static int getDayOfMonthOfEpochDay(int epochDay) {
+        return toPackedDate(epochDay) % 100;
+    }
+
+    /**
+     * @return the epoch day of the instant in the given time zone
+     */
+    public static int toEpochDay(long timeInMillis, TimeZone timeZone) {
+        return (int) floorDiv(timeInMillis + timeZone.getOffset(timeInMillis), MILLIS_PER_DAY);
+    }
+
+    /**
+     * @return the instant of the start of the epoch day in the given time zone
+     */
+    public static long toMillis(int epochDay, TimeZone timeZone) {
+        long localMillis = epochDay * MILLIS_PER_DAY;
+        // The offset is looked up twice to land on the right side of a daylight saving transition
+        long millis = localMillis - timeZone.getOffset(localMillis);
+        millis = localMillis - timeZone.getOffset(millis);
+        // When the clocks jump over midnight the day starts at the jump, the instant of midnight with the offset before it
+        if (toEpochDay(millis, timeZone) < epochDay) {
+            millis = localMillis - timeZone.getOffset(millis);
+        }
+        return millis;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long quotient = x / y;
+        if ((x % y != 0) && ((x ^ y) < 0)) {
+            quotient--;
+        }
+        return quotient;
+    }
+
+    private static int floorMod(int x, int y) {
+        int mod = x % y;
+        return mod < 0 ? mod + y : mod;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Object methods
+    // ************************************************************************************************************************************************************************
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MonthGrid)) {
+            return false;
+        }
+        MonthGrid monthGrid = (MonthGrid) o;
+        return year == monthGrid.year && month == monthGrid.month && firstDayOfWeek == monthGrid.firstDayOfWeek;
+    }
+
+    @Override
+    public int hashCode() {
+        return (year * 12 + month) * 8 + firstDayOfWeek;
+    }
+
+    @Override
+    public String toString() {
+        return "MonthGrid{" + year + "-" + (month + 1) + ", firstDayOfWeek=" + firstDayOfWeek + "}";
+    }
+}
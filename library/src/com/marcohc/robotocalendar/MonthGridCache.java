@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import java.util.Calendar;
+
+/**
+ * Month layouts shared by every calendar of the process, so calendars showing the same month bind from one {@link MonthGrid}.
+ * <p/>
+ * The cache is direct mapped by month: the grids of {@link #SIZE} consecutive months never evict each other and a lookup does not allocate. Safe to
+ * use from any thread.
+ */
+public final class MonthGridCache {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    // Ten years and a half of months, a power of two
+    public static final int SIZE = 128;
+
+    private static final MonthGrid[] GRIDS = new MonthGrid[SIZE];
+    private static int hitCount;
+    private static int missCount;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    private MonthGridCache() {
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Cache methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * @param year           the year, as {@link Calendar#YEAR}
+     * @param month          the month, 0 based as {@link Calendar#MONTH}
+     * @param firstDayOfWeek the day shown in the first column, as {@link Calendar#getFirstDayOfWeek()}
+     * @return the cached grid, built the first time it is asked for
+     */
+    public static synchronized MonthGrid get(int year, int month, int firstDayOfWeek) {
+        int slot = (year * 12 + month) & (SIZE - 1);
+        MonthGrid monthGrid = GRIDS[slot];
+        if (monthGrid != null && monthGrid.getYear() == year && monthGrid.getMonth() == month && monthGrid.getFirstDayOfWeek() == firstDayOfWeek) {
+            hitCount++;
+            return monthGrid;
+        }
+
+        missCount++;
+        monthGrid = MonthGrid.of(year, month, firstDayOfWeek);
+        GRIDS[slot] = monthGrid;
+        return monthGrid;
+    }
+
+    /**
+     * Drops every cached grid and resets the counters
+     */
+    public static synchronized void clear() {
+        for (int i = 0; i < SIZE; i++) {
+            GRIDS[i] = null;
+        }
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    public static synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public static synchronized int getMissCount() {
+        return missCount;
+    }
+}
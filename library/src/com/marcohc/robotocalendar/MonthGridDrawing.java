@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Paint;
+import android.util.TypedValue;
+
+/**
+ * Paints and dimensions of {@link MonthGridView}, shared by every grid of a theme through {@link CalendarStyle}.
+ * <p/>
+ * Grids are only drawn on the UI thread, one at a time, so they can share the paints as long as every draw sets the colors that change per cell.
+ */
+final class MonthGridDrawing {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    private static final float DAY_OF_MONTH_TEXT_SIZE = 14;
+    private static final float RING_THICKNESS = 2;
+    private static final float SECOND_UNDERLINE_MARGIN = 1;
+
+    final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    final Paint circlePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    final Paint ringPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    final Paint bandPaint = new Paint();
+    final Paint underlinePaint = new Paint();
+    final Paint shadePaint = new Paint();
+    final float backgroundSize;
+    final float rowSpacing;
+    final float underlineWidth;
+    final float underlineHeight;
+    final float secondUnderlineMargin;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * @param loadTypeface false in the layout editor, where the fonts of the assets are not loaded
+     */
+    MonthGridDrawing(Context context, CalendarStyle calendarStyle, boolean loadTypeface) {
+        Resources resources = context.getResources();
+        backgroundSize = resources.getDimension(R.dimen.day_of_month_background_size);
+        rowSpacing = resources.getDimension(R.dimen.week_bottom_padding);
+        underlineWidth = resources.getDimension(R.dimen.underline_weight);
+        underlineHeight = resources.getDimension(R.dimen.underline_height);
+        secondUnderlineMargin = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, SECOND_UNDERLINE_MARGIN, resources.getDisplayMetrics());
+
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        textPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, DAY_OF_MONTH_TEXT_SIZE, resources.getDisplayMetrics()));
+        if (loadTypeface) {
+            textPaint.setTypeface(CalendarStyle.getTypeface(context, CalendarStyle.LIGHT_FONT));
+        }
+
+        circlePaint.setStyle(Paint.Style.FILL);
+        circlePaint.setColor(calendarStyle.getColor(R.color.circle));
+
+        ringPaint.setStyle(Paint.Style.STROKE);
+        ringPaint.setStrokeWidth(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, RING_THICKNESS, resources.getDisplayMetrics()));
+        ringPaint.setColor(calendarStyle.getColor(R.color.ring));
+
+        underlinePaint.setStyle(Paint.Style.FILL);
+
+        shadePaint.setStyle(Paint.Style.FILL);
+
+        bandPaint.setStyle(Paint.Style.FILL);
+        bandPaint.setColor(calendarStyle.getColor(R.color.range_band));
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Month grid that draws the 42 day cells directly on a canvas instead of inflating one view hierarchy per cell
+ */
+public class MonthGridView extends View {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    public static final int BACKGROUND_NONE = 0;
+    public static final int BACKGROUND_CIRCLE = 1;
+    public static final int BACKGROUND_RING = 2;
+
+    // Selection of a day, a circle alone or a circle at the ends of a range band
+    public static final int SELECTION_NONE = 0;
+    public static final int SELECTION_SINGLE = 1;
+    public static final int SELECTION_RANGE_START = 2;
+    public static final int SELECTION_RANGE_MIDDLE = 3;
+    public static final int SELECTION_RANGE_END = 4;
+
+    private static final int DAYS_IN_WEEK = MonthGrid.DAYS_IN_WEEK;
+    private static final int WEEK_ROWS = MonthGrid.WEEK_ROWS;
+    private static final int DAYS_IN_GRID = MonthGrid.DAYS_IN_GRID;
+
+    // Cell state, 0 means that the cell has no day
+    private final int[] dayOfMonth = new int[DAYS_IN_GRID];
+    private final int[] textColor = new int[DAYS_IN_GRID];
+    private final int[] background = new int[DAYS_IN_GRID];
+    private final int[] selection = new int[DAYS_IN_GRID];
+    // Heatmap shade color of the cell, 0 for none
+    private final int[] shade = new int[DAYS_IN_GRID];
+    private final boolean[] firstUnderlineVisible = new boolean[DAYS_IN_GRID];
+    private final int[] firstUnderlineColor = new int[DAYS_IN_GRID];
+    private final boolean[] secondUnderlineVisible = new boolean[DAYS_IN_GRID];
+    private final int[] secondUnderlineColor = new int[DAYS_IN_GRID];
+    private int weekRows = WEEK_ROWS;
+
+    // Drawing, the paints and dimensions are shared by the grids of the theme
+    private final MonthGridDrawing drawing;
+    private final char[] dayOfMonthChars = new char[2];
+
+    // Touch
+    private int pressedIndex = -1;
+    private OnDayOfMonthClickListener onDayOfMonthClickListener;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    public MonthGridView(Context context) {
+        this(context, null);
+    }
+
+    public MonthGridView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+
+        CalendarStyle calendarStyle = CalendarStyle.get(context);
+        // The layout editor does not load the fonts of the assets
+        drawing = isInEditMode() ? new MonthGridDrawing(context, calendarStyle, false) : calendarStyle.getMonthGridDrawing(context);
+
+        clear(calendarStyle.getColor(R.color.day_of_month));
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Cell methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Removes every day, background and underline from the grid
+     */
+    public void clear(int dayOfMonthTextColor) {
+        for (int i = 0; i < DAYS_IN_GRID; i++) {
+            dayOfMonth[i] = 0;
+            textColor[i] = dayOfMonthTextColor;
+            background[i] = BACKGROUND_NONE;
+            selection[i] = SELECTION_NONE;
+            shade[i] = 0;
+            firstUnderlineVisible[i] = false;
+            secondUnderlineVisible[i] = false;
+        }
+        invalidate();
+    }
+
+    /**
+     * Shows the days of the month with no backgrounds nor underlines
+     */
+    public void bindMonth(MonthGrid monthGrid, int dayOfMonthTextColor) {
+        clear(dayOfMonthTextColor);
+        for (int i = monthGrid.getLeadingDays(), day = 1; day <= monthGrid.getDaysInMonth(); i++, day++) {
+            dayOfMonth[i] = day;
+        }
+        setWeekRows(monthGrid.getWeekRows() == WEEK_ROWS ? WEEK_ROWS : WEEK_ROWS - 1);
+    }
+
+    public void setDayOfMonth(int index, int day) {
+        dayOfMonth[index] = day;
+        invalidate();
+    }
+
+    public int getDayOfMonth(int index) {
+        return dayOfMonth[index];
+    }
+
+    public void setDayOfMonthTextColor(int index, int color) {
+        textColor[index] = color;
+        invalidate();
+    }
+
+    /**
+     * @param type one of {@link #BACKGROUND_NONE}, {@link #BACKGROUND_CIRCLE} or {@link #BACKGROUND_RING}
+     */
+    public void setDayOfMonthBackground(int index, int type) {
+        background[index] = type;
+        invalidate();
+    }
+
+    /**
+     * @param state one of {@link #SELECTION_NONE}, {@link #SELECTION_SINGLE}, {@link #SELECTION_RANGE_START}, {@link #SELECTION_RANGE_MIDDLE} or
+     *              {@link #SELECTION_RANGE_END}
+     */
+    public void setDayOfMonthSelection(int index, int state) {
+        if (selection[index] != state) {
+            selection[index] = state;
+            invalidate();
+        }
+    }
+
+    /**
+     * @param color the color of the heatmap shade drawn behind the day, 0 for none
+     */
+    public void setDayOfMonthShade(int index, int color) {
+        if (shade[index] != color) {
+            shade[index] = color;
+            invalidate();
+        }
+    }
+
+    public void setFirstUnderline(int index, boolean visible, int color) {
+        firstUnderlineVisible[index] = visible;
+        firstUnderlineColor[index] = color;
+        invalidate();
+    }
+
+    public void setSecondUnderline(int index, boolean visible, int color) {
+        secondUnderlineVisible[index] = visible;
+        secondUnderlineColor[index] = color;
+        invalidate();
+    }
+
+    /**
+     * Number of week rows to draw, 5 or 6 depending on the month
+     */
+    public void setWeekRows(int weekRows) {
+        if (this.weekRows != weekRows) {
+            this.weekRows = weekRows;
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Measure and draw methods
+    // ************************************************************************************************************************************************************************
+
+    private float getRowHeight() {
+        return drawing.backgroundSize + drawing.rowSpacing;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int height = (int) Math.ceil(weekRows * getRowHeight()) + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        Paint textPaint = drawing.textPaint;
+        Paint underlinePaint = drawing.underlinePaint;
+        float underlineWidth = drawing.underlineWidth;
+        float underlineHeight = drawing.underlineHeight;
+
+        float cellWidth = (getWidth() - getPaddingLeft() - getPaddingRight()) / (float) DAYS_IN_WEEK;
+        float rowHeight = getRowHeight();
+        float textOffset = (textPaint.descent() + textPaint.ascent()) / 2;
+        float radius = drawing.backgroundSize / 2;
+
+        int cells = weekRows * DAYS_IN_WEEK;
+        for (int i = 0; i < cells; i++) {
+            int day = dayOfMonth[i];
+            if (day == 0) {
+                continue;
+            }
+
+            float centerX = getPaddingLeft() + (i % DAYS_IN_WEEK) * cellWidth + cellWidth / 2;
+            float centerY = getPaddingTop() + (i / DAYS_IN_WEEK) * rowHeight + radius;
+
+            // Heatmap shade, a tile filling the cell
+            if (shade[i] != 0) {
+                drawing.shadePaint.setColor(shade[i]);
+                canvas.drawRect(centerX - cellWidth / 2, centerY - radius, centerX + cellWidth / 2, centerY + radius, drawing.shadePaint);
+            }
+
+            // Range band, from the center of the first day to the center of the last one
+            int selectionState = selection[i];
+            if (selectionState >= SELECTION_RANGE_START) {
+                float left = selectionState == SELECTION_RANGE_START ? centerX : centerX - cellWidth / 2;
+                float right = selectionState == SELECTION_RANGE_END ? centerX : centerX + cellWidth / 2;
+                canvas.drawRect(left, centerY - radius, right, centerY + radius, drawing.bandPaint);
+            }
+
+            // Background
+            if (background[i] == BACKGROUND_CIRCLE || selectionState == SELECTION_SINGLE || selectionState == SELECTION_RANGE_START
+                    || selectionState == SELECTION_RANGE_END) {
+                canvas.drawCircle(centerX, centerY, radius, drawing.circlePaint);
+            } else if (background[i] == BACKGROUND_RING) {
+                canvas.drawCircle(centerX, centerY, radius - drawing.ringPaint.getStrokeWidth() / 2, drawing.ringPaint);
+            }
+
+            // Day number, drawn from a reused char buffer to avoid a String per cell
+            int length;
+            if (day < 10) {
+                dayOfMonthChars[0] = (char) ('0' + day);
+                length = 1;
+            } else {
+                dayOfMonthChars[0] = (char) ('0' + day / 10);
+                dayOfMonthChars[1] = (char) ('0' + day % 10);
+                length = 2;
+            }
+            textPaint.setColor(textColor[i]);
+            canvas.drawText(dayOfMonthChars, 0, length, centerX, centerY - textOffset, textPaint);
+
+            // Underlines
+            float underlineTop = centerY - textOffset + textPaint.descent();
+            if (firstUnderlineVisible[i]) {
+                underlinePaint.setColor(firstUnderlineColor[i]);
+                canvas.drawRect(centerX - underlineWidth / 2, underlineTop, centerX + underlineWidth / 2, underlineTop + underlineHeight, underlinePaint);
+            }
+            if (secondUnderlineVisible[i]) {
+                underlineTop += underlineHeight + drawing.secondUnderlineMargin;
+                underlinePaint.setColor(secondUnderlineColor[i]);
+                canvas.drawRect(centerX - underlineWidth / 2, underlineTop, centerX + underlineWidth / 2, underlineTop + underlineHeight, underlinePaint);
+            }
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Touch methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * @return the cell index under the given point or -1 if there is no day there
+     */
+    public int getDayOfMonthIndexAt(float x, float y) {
+        float cellWidth = (getWidth() - getPaddingLeft() - getPaddingRight()) / (float) DAYS_IN_WEEK;
+        int column = (int) ((x - getPaddingLeft()) / cellWidth);
+        int row = (int) ((y - getPaddingTop()) / getRowHeight());
+        if (x < getPaddingLeft() || y < getPaddingTop() || column >= DAYS_IN_WEEK || row >= weekRows) {
+            return -1;
+        }
+        int index = row * DAYS_IN_WEEK + column;
+        return dayOfMonth[index] == 0 ? -1 : index;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                pressedIndex = getDayOfMonthIndexAt(event.getX(), event.getY());
+                return pressedIndex != -1;
+            case MotionEvent.ACTION_UP:
+                int index = getDayOfMonthIndexAt(event.getX(), event.getY());
+                if (index != -1 && index == pressedIndex) {
+                    performClick();
+                    if (onDayOfMonthClickListener != null) {
+                        onDayOfMonthClickListener.onDayOfMonthClick(index);
+                    }
+                }
+                pressedIndex = -1;
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                pressedIndex = -1;
+                return true;
+            default:
+                return pressedIndex != -1;
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Public interface
+    // ************************************************************************************************************************************************************************
+
+    public interface OnDayOfMonthClickListener {
+
+        void onDayOfMonthClick(int index);
+    }
+
+    public void setOnDayOfMonthClickListener(OnDayOfMonthClickListener onDayOfMonthClickListener) {
+        this.onDayOfMonthClickListener = onDayOfMonthClickListener;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Vertically scrolling list of months drawn with {@link MonthGridView}.
+ * <p/>
+ * Only the rows on screen exist, the list recycles them and every recycled row is bound to the month scrolled in, so the memory and the inflation
+ * cost do not depend on the length of the range.
+ */
+public class MonthListView extends ListView {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    // Months are counted as year * 12 + month
+    private int firstMonth;
+    private int lastMonth;
+    private int firstDayOfWeek;
+
+    private Locale locale;
+    private TimeZone timeZone;
+    private CalendarSymbols calendarSymbols;
+    private DecorationStore decorationStore;
+    private int currentYear;
+    private final CalendarStyle calendarStyle;
+    private final int dayOfMonthColor;
+
+    private final MonthListAdapter adapter = new MonthListAdapter();
+    private OnDateSelectedListener onDateSelectedListener;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    public MonthListView(Context context) {
+        this(context, null);
+    }
+
+    public MonthListView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+
+        calendarStyle = CalendarStyle.get(context);
+        dayOfMonthColor = calendarStyle.getColor(R.color.day_of_month);
+        locale = getResources().getConfiguration().locale;
+        timeZone = TimeZone.getDefault();
+
+        // A year from the current month
+        Calendar calendar = Calendar.getInstance(locale);
+        currentYear = calendar.get(Calendar.YEAR);
+        firstDayOfWeek = calendar.getFirstDayOfWeek();
+        firstMonth = currentYear * 12 + calendar.get(Calendar.MONTH);
+        lastMonth = firstMonth + 11;
+        calendarSymbols = CalendarSymbols.get(locale, firstDayOfWeek);
+
+        setDivider(null);
+        setSelector(android.R.color.transparent);
+        setAdapter(adapter);
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Public methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Shows the months from the first to the last one, both included
+     *
+     * @param firstMonth 0 based, as {@link Calendar#MONTH}
+     * @param lastMonth  0 based, as {@link Calendar#MONTH}
+     */
+    public void setMonthRange(int firstYear, int firstMonth, int lastYear, int lastMonth) {
+        int first = firstYear * 12 + firstMonth;
+        int last = lastYear * 12 + lastMonth;
+        if (last < first) {
+            throw new IllegalArgumentException("The last month is before the first one");
+        }
+        this.firstMonth = first;
+        this.lastMonth = last;
+        adapter.notifyDataSetChanged();
+    }
+
+    /**
+     * @param firstDayOfWeek the day shown in the first column, as {@link Calendar#getFirstDayOfWeek()}
+     */
+    public void setFirstDayOfWeek(int firstDayOfWeek) {
+        this.firstDayOfWeek = firstDayOfWeek;
+        calendarSymbols = CalendarSymbols.get(locale, firstDayOfWeek);
+        adapter.notifyDataSetChanged();
+    }
+
+    /**
+     * @param decorationStore the markers to show, call {@link #notifyDecorationsChanged()} after changing it
+     */
+    public void setDecorationStore(DecorationStore decorationStore) {
+        this.decorationStore = decorationStore;
+        adapter.notifyDataSetChanged();
+    }
+
+    /**
+     * Binds the visible months again with the current markers
+     */
+    public void notifyDecorationsChanged() {
+        adapter.notifyDataSetChanged();
+    }
+
+    /**
+     * @param month 0 based, as {@link Calendar#MONTH}
+     */
+    public void scrollToMonth(int year, int month) {
+        int position = year * 12 + month - firstMonth;
+        setSelection(Math.max(0, Math.min(position, adapter.getCount() - 1)));
+    }
+
+    public interface OnDateSelectedListener {
+
+        void onDateSelected(Date date);
+    }
+
+    public void setOnDateSelectedListener(OnDateSelectedListener onDateSelectedListener) {
+        this.onDateSelectedListener = onDateSelectedListener;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Adapter
+    // ************************************************************************************************************************************************************************
+
+    // Views of a recycled row and the month bound to them
+    private static final class MonthRow {
+
+        TextView title;
+        MonthGridView grid;
+        MonthGrid monthGrid;
+    }
+
+    private class MonthListAdapter extends BaseAdapter {
+
+        @Override
+        public int getCount() {
+            return lastMonth - firstMonth + 1;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            int months = firstMonth + position;
+            return MonthGridCache.get(months / 12, months % 12, firstDayOfWeek);
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return firstMonth + position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            final MonthRow row;
+            if (convertView == null) {
+                convertView = LayoutInflater.from(getContext()).inflate(R.layout.roboto_calendar_month_list_item, parent, false);
+                row = new MonthRow();
+                row.title = (TextView) convertView.findViewById(R.id.monthListTitle);
+                row.grid = (MonthGridView) convertView.findViewById(R.id.monthListGrid);
+                row.grid.setOnDayOfMonthClickListener(new MonthGridView.OnDayOfMonthClickListener() {
+                    @Override
+                    public void onDayOfMonthClick(int index) {
+                        if (onDateSelectedListener != null) {
+                            onDateSelectedListener.onDateSelected(new Date(MonthGrid.toMillis(row.monthGrid.getEpochDay(index), timeZone)));
+                        }
+                    }
+                });
+                convertView.setTag(row);
+            } else {
+                row = (MonthRow) convertView.getTag();
+            }
+
+            bindRow(row, firstMonth + position);
+            return convertView;
+        }
+
+        private void bindRow(MonthRow row, int months) {
+            int year = months / 12;
+            int month = months % 12;
+            MonthGrid monthGrid = row.monthGrid;
+            if (monthGrid == null || monthGrid.getYear() != year || monthGrid.getMonth() != month || monthGrid.getFirstDayOfWeek() != firstDayOfWeek) {
+                monthGrid = MonthGridCache.get(year, month, firstDayOfWeek);
+                row.monthGrid = monthGrid;
+            }
+
+            row.title.setText(calendarSymbols.getTitle(year, month, currentYear));
+            row.grid.bindMonth(monthGrid, dayOfMonthColor);
+
+            MonthDecorations monthDecorations = decorationStore != null ? decorationStore.getMonth(year, month) : null;
+            if (monthDecorations == null) {
+                return;
+            }
+
+            int leadingDays = monthGrid.getLeadingDays();
+            for (int slot = 0; slot < DecorationStore.SLOTS; slot++) {
+                int mask = monthDecorations.getMask(slot);
+                while (mask != 0) {
+                    int dayOfMonth = Integer.numberOfTrailingZeros(mask) + 1;
+                    mask &= mask - 1;
+                    int color = calendarStyle.getColor(monthDecorations.getStyle(slot, dayOfMonth));
+                    if (slot == DecorationStore.SLOT_FIRST_UNDERLINE) {
+                        row.grid.setFirstUnderline(leadingDays + dayOfMonth - 1, true, color);
+                    } else {
+                        row.grid.setSecondUnderline(leadingDays + dayOfMonth - 1, true, color);
+                    }
+                }
+            }
+        }
+    }
+}
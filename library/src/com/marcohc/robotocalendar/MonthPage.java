@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+/**
+ * Month model and markers of one pager page, built on a background thread so showing the page only copies them into its grid
+ */
+final class MonthPage {
+
+    final MonthGrid monthGrid;
+    final int decorationsVersion;
+
+    // Marker style of every cell, 0 when the cell has none
+    final int[] firstUnderlineStyles = new int[MonthGrid.DAYS_IN_GRID];
+    final int[] secondUnderlineStyles = new int[MonthGrid.DAYS_IN_GRID];
+
+    /**
+     * @param monthDecorations a copy of the decorations of the month, or null if it has none
+     */
+    MonthPage(MonthGrid monthGrid, MonthDecorations monthDecorations, int decorationsVersion) {
+        this.monthGrid = monthGrid;
+        this.decorationsVersion = decorationsVersion;
+
+        if (monthDecorations != null) {
+            fill(monthDecorations, DecorationStore.SLOT_FIRST_UNDERLINE, firstUnderlineStyles);
+            fill(monthDecorations, DecorationStore.SLOT_SECOND_UNDERLINE, secondUnderlineStyles);
+        }
+    }
+
+    private void fill(MonthDecorations monthDecorations, int slot, int[] styles) {
+        int mask = monthDecorations.getMask(slot);
+        while (mask != 0) {
+            int dayOfMonth = Integer.numberOfTrailingZeros(mask) + 1;
+            mask &= mask - 1;
+            styles[monthGrid.getIndexOfDayOfMonth(dayOfMonth)] = monthDecorations.getStyle(slot, dayOfMonth);
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.widget.Scroller;
+
+/**
+ * Horizontally swipeable container of three recycled {@link MonthGridView} pages: the previous, the displayed and the next month.
+ * <p/>
+ * When a swipe settles the pages are rotated, the page that went out of sight is reused for the new adjacent month, and the
+ * {@link OnPageChangeListener} is told the direction of the move.
+ */
+public class MonthPagerView extends ViewGroup {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    public static final int PAGE_PREVIOUS = 0;
+    public static final int PAGE_CURRENT = 1;
+    public static final int PAGE_NEXT = 2;
+
+    private static final int PAGES = 3;
+    private static final int SETTLE_DURATION = 250;
+    // Fraction of the width to drag for the page to change without a fling
+    private static final float PAGE_CHANGE_THRESHOLD = 0.3f;
+
+    private final MonthGridView[] pages = new MonthGridView[PAGES];
+    // Month shown by every page and the decorations version it was built with, null when the page is stale
+    private final MonthGrid[] pageMonths = new MonthGrid[PAGES];
+    private final int[] pageVersions = new int[PAGES];
+
+    // Touch
+    private final Scroller scroller;
+    private final int touchSlop;
+    private final int minimumFlingVelocity;
+    private final int maximumFlingVelocity;
+    private VelocityTracker velocityTracker;
+    private float downX;
+    private float downY;
+    private boolean dragging;
+    private int settleDirection;
+
+    private OnPageChangeListener onPageChangeListener;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    public MonthPagerView(Context context) {
+        this(context, null);
+    }
+
+    public MonthPagerView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+
+        for (int i = 0; i < PAGES; i++) {
+            pages[i] = new MonthGridView(context);
+            addView(pages[i]);
+        }
+
+        scroller = new Scroller(context);
+        ViewConfiguration viewConfiguration = ViewConfiguration.get(context);
+        touchSlop = viewConfiguration.getScaledTouchSlop();
+        minimumFlingVelocity = viewConfiguration.getScaledMinimumFlingVelocity();
+        maximumFlingVelocity = viewConfiguration.getScaledMaximumFlingVelocity();
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Page methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * @param position {@link #PAGE_PREVIOUS}, {@link #PAGE_CURRENT} or {@link #PAGE_NEXT}
+     */
+    public MonthGridView getPage(int position) {
+        return pages[position];
+    }
+
+    /**
+     * @return the month bound to the page, or null if the page has to be bound again
+     */
+    public MonthGrid getPageMonth(int position) {
+        return pageMonths[position];
+    }
+
+    public int getPageVersion(int position) {
+        return pageVersions[position];
+    }
+
+    /**
+     * Records the month and the decorations version bound to the page
+     */
+    public void setPageMonth(int position, MonthGrid monthGrid, int version) {
+        pageMonths[position] = monthGrid;
+        pageVersions[position] = version;
+    }
+
+    /**
+     * Makes the previous or next page the current one without animation, the page that goes out is left stale for the new adjacent month
+     *
+     * @param direction 1 to move to the next month, -1 to the previous one
+     */
+    public void showAdjacentPage(int direction) {
+        if (direction > 0) {
+            rotate(PAGE_PREVIOUS, PAGE_CURRENT, PAGE_NEXT);
+        } else if (direction < 0) {
+            rotate(PAGE_NEXT, PAGE_CURRENT, PAGE_PREVIOUS);
+        } else {
+            return;
+        }
+        layoutPages();
+    }
+
+    // The page at from goes to the far side, the other two move one position towards it
+    private void rotate(int from, int middle, int to) {
+        MonthGridView page = pages[from];
+        pages[from] = pages[middle];
+        pages[middle] = pages[to];
+        pages[to] = page;
+
+        pageMonths[from] = pageMonths[middle];
+        pageMonths[middle] = pageMonths[to];
+        pageMonths[to] = null;
+
+        pageVersions[from] = pageVersions[middle];
+        pageVersions[middle] = pageVersions[to];
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Measure and layout methods
+    // ************************************************************************************************************************************************************************
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int pageWidthMeasureSpec = MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY);
+        for (MonthGridView page : pages) {
+            page.measure(pageWidthMeasureSpec, heightMeasureSpec);
+        }
+        setMeasuredDimension(width, resolveSize(pages[PAGE_CURRENT].getMeasuredHeight(), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        layoutPages();
+    }
+
+    // Previous page on the left and next page on the right of the visible area
+    private void layoutPages() {
+        int width = getWidth();
+        for (int i = 0; i < PAGES; i++) {
+            MonthGridView page = pages[i];
+            int left = (i - PAGE_CURRENT) * width;
+            page.layout(left, 0, left + width, page.getMeasuredHeight());
+        }
+        scrollTo(0, 0);
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Touch methods
+    // ************************************************************************************************************************************************************************
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent event) {
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                downX = event.getX();
+                downY = event.getY();
+                // Catch a page that is still settling
+                dragging = !scroller.isFinished();
+                if (dragging) {
+                    scroller.abortAnimation();
+                }
+                trackMovement(event);
+                return dragging;
+            case MotionEvent.ACTION_MOVE:
+                float dx = Math.abs(event.getX() - downX);
+                float dy = Math.abs(event.getY() - downY);
+                if (dx > touchSlop && dx > dy) {
+                    dragging = true;
+                    getParent().requestDisallowInterceptTouchEvent(true);
+                }
+                trackMovement(event);
+                return dragging;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                recycleVelocityTracker();
+                return dragging;
+            default:
+                return dragging;
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        trackMovement(event);
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                downX = event.getX();
+                downY = event.getY();
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                if (!dragging && Math.abs(event.getX() - downX) > touchSlop) {
+                    dragging = true;
+                    getParent().requestDisallowInterceptTouchEvent(true);
+                }
+                if (dragging) {
+                    int width = getWidth();
+                    int scrollX = (int) (getScrollX() + downX - event.getX());
+                    scrollTo(Math.max(-width, Math.min(width, scrollX)), 0);
+                    downX = event.getX();
+                }
+                return true;
+            case MotionEvent.ACTION_UP:
+                if (dragging) {
+                    velocityTracker.computeCurrentVelocity(1000, maximumFlingVelocity);
+                    settle(getSettleDirection(velocityTracker.getXVelocity()));
+                }
+                dragging = false;
+                recycleVelocityTracker();
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                if (dragging) {
+                    settle(0);
+                }
+                dragging = false;
+                recycleVelocityTracker();
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    private int getSettleDirection(float velocityX) {
+        int scrollX = getScrollX();
+        float threshold = getWidth() * PAGE_CHANGE_THRESHOLD;
+        if (velocityX < -minimumFlingVelocity && scrollX > 0 || scrollX > threshold) {
+            return 1;
+        }
+        if (velocityX > minimumFlingVelocity && scrollX < 0 || scrollX < -threshold) {
+            return -1;
+        }
+        return 0;
+    }
+
+    private void settle(int direction) {
+        settleDirection = direction;
+        int scrollX = getScrollX();
+        scroller.startScroll(scrollX, 0, direction * getWidth() - scrollX, 0, SETTLE_DURATION);
+        invalidate();
+    }
+
+    @Override
+    public void computeScroll() {
+        if (scroller.computeScrollOffset()) {
+            scrollTo(scroller.getCurrX(), 0);
+            if (scroller.isFinished()) {
+                onSettled();
+            } else {
+                invalidate();
+            }
+        }
+    }
+
+    private void onSettled() {
+        int direction = settleDirection;
+        settleDirection = 0;
+        if (direction == 0) {
+            return;
+        }
+
+        showAdjacentPage(direction);
+        if (onPageChangeListener != null) {
+            onPageChangeListener.onPageChanged(direction);
+        }
+    }
+
+    private void trackMovement(MotionEvent event) {
+        if (velocityTracker == null) {
+            velocityTracker = VelocityTracker.obtain();
+        }
+        velocityTracker.addMovement(event);
+    }
+
+    private void recycleVelocityTracker() {
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Public interface
+    // ************************************************************************************************************************************************************************
+
+    public interface OnPageChangeListener {
+
+        /**
+         * @param direction 1 when the next month became the current one, -1 for the previous month
+         */
+        void onPageChanged(int direction);
+    }
+
+    public void setOnPageChangeListener(OnPageChangeListener onPageChangeListener) {
+        this.onPageChangeListener = onPageChangeListener;
+    }
+}
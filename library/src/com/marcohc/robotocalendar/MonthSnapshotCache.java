@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.graphics.Bitmap;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bitmaps of the last months shown by a {@link RobotoCalendarView}, drawn by its animated month transitions.
+ * <p/>
+ * The cache is a LRU bounded by the bytes of its bitmaps. A snapshot is only valid for the decorations version it was drawn with. Evicted bitmaps are
+ * not recycled, an animation may still be drawing them, they are left to the garbage collector. Used from the UI thread.
+ */
+public final class MonthSnapshotCache {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    // Share of the maximum heap used by default
+    private static final int DEFAULT_HEAP_DIVISOR = 16;
+
+    private final LinkedHashMap<Integer, Snapshot> snapshots = new LinkedHashMap<Integer, Snapshot>(16, 0.75f, true);
+    private long maxBytes;
+    private long bytes;
+
+    // Statistics
+    private int hitCount;
+    private int missCount;
+    private int evictionCount;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Creates a cache of a sixteenth of the maximum heap
+     */
+    public MonthSnapshotCache() {
+        this(Runtime.getRuntime().maxMemory() / DEFAULT_HEAP_DIVISOR);
+    }
+
+    public MonthSnapshotCache(long maxBytes) {
+        setMaxBytes(maxBytes);
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Cache methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * @param key     the month or the day shown by the snapshot, as chosen by the calendar
+     * @param version the decorations version the snapshot has to be drawn with
+     * @return the snapshot or null, counted as a hit or a miss
+     */
+    Bitmap get(int key, int version) {
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot != null && snapshot.version == version) {
+            hitCount++;
+            return snapshot.bitmap;
+        }
+        missCount++;
+        return null;
+    }
+
+    /**
+     * Removes the snapshot of the key and returns its bitmap to draw again if it has the given size, so a month left again and again reuses it
+     */
+    Bitmap obtain(int key, int width, int height) {
+        Snapshot snapshot = snapshots.remove(key);
+        if (snapshot == null) {
+            return null;
+        }
+        bytes -= snapshot.bytes;
+        Bitmap bitmap = snapshot.bitmap;
+        return bitmap.getWidth() == width && bitmap.getHeight() == height ? bitmap : null;
+    }
+
+    void put(int key, int version, Bitmap bitmap) {
+        Snapshot snapshot = new Snapshot(version, bitmap);
+        Snapshot previous = snapshots.put(key, snapshot);
+        if (previous != null) {
+            bytes -= previous.bytes;
+        }
+        bytes += snapshot.bytes;
+        trimToSize(maxBytes);
+    }
+
+    // Evicts the least recently used snapshots
+    private void trimToSize(long size) {
+        Iterator<Map.Entry<Integer, Snapshot>> iterator = snapshots.entrySet().iterator();
+        while (bytes > size && iterator.hasNext()) {
+            bytes -= iterator.next().getValue().bytes;
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Drops every snapshot, the statistics are kept
+     */
+    public void clear() {
+        snapshots.clear();
+        bytes = 0;
+    }
+
+    /**
+     * @param maxBytes the bytes of bitmaps kept, a snapshot larger than that is not kept
+     */
+    public void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Invalid size: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        trimToSize(maxBytes);
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Getter methods
+    // ************************************************************************************************************************************************************************
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public int getSize() {
+        return snapshots.size();
+    }
+
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    public int getMissCount() {
+        return missCount;
+    }
+
+    public int getEvictionCount() {
+        return evictionCount;
+    }
+
+    // Bitmap of a month and the decorations version it was drawn with
+    private static final class Snapshot {
+
+        final int version;
+        final Bitmap bitmap;
+        final long bytes;
+
+        Snapshot(int version, Bitmap bitmap) {
+            this.version = version;
+            this.bitmap = bitmap;
+            // getByteCount needs API 12
+            this.bytes = (long) bitmap.getRowBytes() * bitmap.getHeight();
+        }
+    }
+}
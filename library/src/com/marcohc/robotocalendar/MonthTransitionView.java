@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+
+/**
+ * Strip of the snapshots of the outgoing and incoming months, laid over the content of the calendar and slid across it during a month transition.
+ * <p/>
+ * The strip is two contents wide, the incoming month on the side it comes from, so the whole animation only moves one view and its layer.
+ */
+final class MonthTransitionView extends View {
+
+    private Bitmap outgoing;
+    private Bitmap incoming;
+    // 1 when the incoming month comes from the right, -1 from the left
+    private int direction;
+
+    MonthTransitionView(Context context) {
+        super(context);
+    }
+
+    /**
+     * @param incoming the snapshot of the incoming month, null while it is not drawn yet
+     */
+    void setSnapshots(Bitmap outgoing, Bitmap incoming, int direction) {
+        this.outgoing = outgoing;
+        this.incoming = incoming;
+        this.direction = direction;
+        invalidate();
+    }
+
+    boolean hasSnapshots() {
+        return outgoing != null;
+    }
+
+    /**
+     * Lays the strip out so its outgoing half covers the content
+     */
+    void layoutOver(View content) {
+        int width = content.getWidth();
+        int left = direction < 0 ? content.getLeft() - width : content.getLeft();
+        layout(left, content.getTop(), left + 2 * width, content.getBottom());
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (outgoing == null) {
+            return;
+        }
+        int width = getWidth() / 2;
+        canvas.drawBitmap(outgoing, direction < 0 ? width : 0, 0, null);
+        if (incoming != null) {
+            canvas.drawBitmap(incoming, direction < 0 ? 0 : width, 0, null);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+/**
+ * Timings and counters of one month rebind, reported to {@link CalendarMetricsListener#onRebind(RebindMetrics)}
+ */
+public final class RebindMetrics {
+
+    MonthGrid monthGrid;
+    long titleNanos;
+    long weekDaysNanos;
+    long resetNanos;
+    long bindNanos;
+    long decorationsNanos;
+    long commitNanos;
+    int viewMutations;
+    int layoutRequests;
+    int markersApplied;
+
+    RebindMetrics() {
+    }
+
+    /**
+     * @return the rebound month
+     */
+    public MonthGrid getMonthGrid() {
+        return monthGrid;
+    }
+
+    public long getTitleNanos() {
+        return titleNanos;
+    }
+
+    public long getWeekDaysNanos() {
+        return weekDaysNanos;
+    }
+
+    /**
+     * @return the time spent resetting the 42 cells
+     */
+    public long getResetNanos() {
+        return resetNanos;
+    }
+
+    /**
+     * @return the time spent binding the days of the month and the last week row
+     */
+    public long getBindNanos() {
+        return bindNanos;
+    }
+
+    /**
+     * @return the time spent applying the markers of the {@link DecorationStore}
+     */
+    public long getDecorationsNanos() {
+        return decorationsNanos;
+    }
+
+    /**
+     * @return the time spent writing the changed cell properties to the views, 0 when the days are drawn on a canvas
+     */
+    public long getCommitNanos() {
+        return commitNanos;
+    }
+
+    public long getTotalNanos() {
+        return titleNanos + weekDaysNanos + resetNanos + bindNanos + decorationsNanos + commitNanos;
+    }
+
+    /**
+     * @return the number of view property writes, as {@link RobotoCalendarView#getLastRebindMutationCount()}
+     */
+    public int getViewMutations() {
+        return viewMutations;
+    }
+
+    /**
+     * @return the number of layout requests that reached the calendar view during the rebind
+     */
+    public int getLayoutRequests() {
+        return layoutRequests;
+    }
+
+    /**
+     * @return the number of underline markers shown from the {@link DecorationStore}
+     */
+    public int getMarkersApplied() {
+        return markersApplied;
+    }
+}
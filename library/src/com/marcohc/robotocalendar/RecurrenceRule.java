@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import java.util.Arrays;
+import java.util.Calendar;
+
+/**
+ * Repeating event, as the RRULE of RFC 5545: a frequency with an interval, optional days of the week, an end given by a day or a count of
+ * occurrences and excluded days.
+ * <p/>
+ * Occurrences are never listed, {@link #getMonthMask(int, int)} expands only the asked month into a bitmap. Days are epoch days as in {@link MonthGrid}.
+ * Rules are immutable, build them with a {@link Builder}.
+ */
+public final class RecurrenceRule {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    public static final int FREQUENCY_DAILY = 0;
+    public static final int FREQUENCY_WEEKLY = 1;
+    public static final int FREQUENCY_MONTHLY = 2;
+    public static final int FREQUENCY_YEARLY = 3;
+
+    public static final int NO_END = Integer.MAX_VALUE;
+
+    private static final int DAYS_IN_WEEK = MonthGrid.DAYS_IN_WEEK;
+
+    // Weeks of weekly rules start on Monday, the default week start of RFC 5545
+    private static final int WEEK_START = Calendar.MONDAY;
+
+    // A count is resolved to its last day looking this far at most, a thousand years
+    private static final int MAX_COUNT_MONTHS = 12 * 1000;
+
+    private final int frequency;
+    private final int interval;
+    private final int startEpochDay;
+    private final int weekDays;
+    private final int count;
+    private final int untilEpochDay;
+    private final int[] exclusions;
+
+    // Start of the rule split as the expansion uses it
+    private final int startYear;
+    private final int startMonth;
+    private final int startDayOfMonth;
+    private final int startWeekEpochDay;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    private RecurrenceRule(Builder builder) {
+        frequency = builder.frequency;
+        interval = builder.interval;
+        startEpochDay = builder.startEpochDay;
+        count = builder.count;
+        exclusions = builder.getExclusions();
+
+        int packedDate = MonthGrid.toPackedDate(startEpochDay);
+        startYear = packedDate / 10000;
+        startMonth = packedDate / 100 % 100 - 1;
+        startDayOfMonth = packedDate % 100;
+        int startDayOfWeek = MonthGrid.getDayOfWeekOfEpochDay(startEpochDay);
+        startWeekEpochDay = startEpochDay - MonthGrid.getColumn(startDayOfWeek, WEEK_START);
+
+        // Weekly rules repeat on the day of the week of the start unless the days are given
+        weekDays = builder.weekDays == 0 && frequency == FREQUENCY_WEEKLY ? getWeekDayBit(startDayOfWeek) : builder.weekDays;
+        untilEpochDay = count > 0 ? resolveCount(builder.untilEpochDay) : builder.untilEpochDay;
+    }
+
+    // The last day of the rule is the day of its count-th occurrence, the excluded days are counted as RFC 5545 does
+    private int resolveCount(int untilEpochDay) {
+        int remaining = count;
+        int months = startYear * 12 + startMonth;
+        for (int i = 0; i < MAX_COUNT_MONTHS; i++, months++) {
+            int year = floorDiv(months, 12);
+            int month = months - year * 12;
+            int firstEpochDay = MonthGrid.toEpochDay(year, month, 1);
+            if (firstEpochDay > untilEpochDay) {
+                break;
+            }
+
+            int mask = getMonthMask(year, month, firstEpochDay, untilEpochDay);
+            int occurrences = Integer.bitCount(mask);
+            if (occurrences >= remaining) {
+                for (; remaining > 1; remaining--) {
+                    mask &= mask - 1;
+                }
+                return firstEpochDay + Integer.numberOfTrailingZeros(mask);
+            }
+            remaining -= occurrences;
+        }
+        // Fewer occurrences than the count before the until day or the search limit
+        return untilEpochDay;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Getter methods
+    // ************************************************************************************************************************************************************************
+
+    public int getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public int getStartEpochDay() {
+        return startEpochDay;
+    }
+
+    /**
+     * @return the last day of the rule, resolved from the count if it has one, or {@link #NO_END}
+     */
+    public int getUntilEpochDay() {
+        return untilEpochDay;
+    }
+
+    /**
+     * @return the count of occurrences, 0 if the rule is not ended by a count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Expansion methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * @param month 0 based, as {@link Calendar#MONTH}
+     * @return the bitmap of the occurrences in the month, bit 0 being the first day of the month, as {@link MonthDecorations#getMask(int)}
+     */
+    public int getMonthMask(int year, int month) {
+        int firstEpochDay = MonthGrid.toEpochDay(year, month, 1);
+        int mask = getMonthMask(year, month, firstEpochDay, untilEpochDay);
+        if (mask == 0 || exclusions.length == 0) {
+            return mask;
+        }
+
+        int lastEpochDay = firstEpochDay + MonthGrid.getDaysInMonth(year, month) - 1;
+        int i = Arrays.binarySearch(exclusions, firstEpochDay);
+        for (i = i < 0 ? -i - 1 : i; i < exclusions.length && exclusions[i] <= lastEpochDay; i++) {
+            mask &= ~(1 << (exclusions[i] - firstEpochDay));
+        }
+        return mask;
+    }
+
+    public boolean occursOn(int epochDay) {
+        int packedDate = MonthGrid.toPackedDate(epochDay);
+        int dayOfMonth = packedDate % 100;
+        return (getMonthMask(packedDate / 10000, packedDate / 100 % 100 - 1) & (1 << (dayOfMonth - 1))) != 0;
+    }
+
+    private int getMonthMask(int year, int month, int firstEpochDay, int untilEpochDay) {
+        int daysInMonth = MonthGrid.getDaysInMonth(year, month);
+        int lastEpochDay = firstEpochDay + daysInMonth - 1;
+        if (lastEpochDay < startEpochDay || firstEpochDay > untilEpochDay) {
+            return 0;
+        }
+
+        int mask = expand(year, month, firstEpochDay, daysInMonth);
+
+        // Days before the start and after the end of the rule
+        if (startEpochDay > firstEpochDay) {
+            mask &= -1 << (startEpochDay - firstEpochDay);
+        }
+        if (untilEpochDay < lastEpochDay) {
+            mask &= (1 << (untilEpochDay - firstEpochDay + 1)) - 1;
+        }
+        return mask;
+    }
+
+    private int expand(int year, int month, int firstEpochDay, int daysInMonth) {
+        int mask;
+        switch (frequency) {
+            case FREQUENCY_DAILY:
+                // Every interval days from the start, the first one in the month being the offset
+                mask = 0;
+                for (int day = floorMod(startEpochDay - firstEpochDay, interval); day < daysInMonth; day += interval) {
+                    mask |= 1 << day;
+                }
+                return weekDays != 0 ? mask & getWeekDaysMask(firstEpochDay, daysInMonth) : mask;
+
+            case FREQUENCY_WEEKLY:
+                mask = getWeekDaysMask(firstEpochDay, daysInMonth);
+                if (interval > 1) {
+                    for (int day = 0; day < daysInMonth; day++) {
+                        if (floorMod(floorDiv(firstEpochDay + day - startWeekEpochDay, DAYS_IN_WEEK), interval) != 0) {
+                            mask &= ~(1 << day);
+                        }
+                    }
+                }
+                return mask;
+
+            case FREQUENCY_MONTHLY:
+                if (floorMod(year * 12 + month - startYear * 12 - startMonth, interval) != 0) {
+                    return 0;
+                }
+                if (weekDays != 0) {
+                    return getWeekDaysMask(firstEpochDay, daysInMonth);
+                }
+                // Months without the day of the start are skipped, as RFC 5545 does
+                return startDayOfMonth <= daysInMonth ? 1 << (startDayOfMonth - 1) : 0;
+
+            default:
+                if (floorMod(year - startYear, interval) != 0) {
+                    return 0;
+                }
+                if (weekDays != 0) {
+                    return getWeekDaysMask(firstEpochDay, daysInMonth);
+                }
+                return month == startMonth && startDayOfMonth <= daysInMonth ? 1 << (startDayOfMonth - 1) : 0;
+        }
+    }
+
+    // Bitmap of the days of the month falling on one of the days of the week of the rule
+    private int getWeekDaysMask(int firstEpochDay, int daysInMonth) {
+        int firstDayOfWeek = MonthGrid.getDayOfWeekOfEpochDay(firstEpochDay);
+        int mask = 0;
+        for (int day = 0; day < DAYS_IN_WEEK; day++) {
+            int dayOfWeek = (firstDayOfWeek - 1 + day) % DAYS_IN_WEEK + 1;
+            if ((weekDays & getWeekDayBit(dayOfWeek)) != 0) {
+                mask |= 1 << day;
+            }
+        }
+
+        // The first week repeated over the month
+        mask |= mask << DAYS_IN_WEEK;
+        mask |= mask << (2 * DAYS_IN_WEEK);
+        mask |= mask << (4 * DAYS_IN_WEEK);
+        return mask & ((1 << daysInMonth) - 1);
+    }
+
+    private static int getWeekDayBit(int dayOfWeek) {
+        return 1 << (dayOfWeek - 1);
+    }
+
+    private static int floorDiv(int x, int y) {
+        int quotient = x / y;
+        if ((x % y != 0) && ((x ^ y) < 0)) {
+            quotient--;
+        }
+        return quotient;
+    }
+
+    private static int floorMod(int x, int y) {
+        int mod = x % y;
+        return mod < 0 ? mod + y : mod;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Builder
+    // ************************************************************************************************************************************************************************
+
+    public static final class Builder {
+
+        private final int frequency;
+        private final int startEpochDay;
+        private int interval = 1;
+        private int weekDays;
+        private int count;
+        private int untilEpochDay = NO_END;
+        private int[] exclusions = new int[8];
+        private int exclusionCount;
+
+        /**
+         * @param frequency     {@link #FREQUENCY_DAILY}, {@link #FREQUENCY_WEEKLY}, {@link #FREQUENCY_MONTHLY} or {@link #FREQUENCY_YEARLY}
+         * @param startEpochDay the first day of the rule, which also gives the day of the month and the month repeated
+         */
+        public Builder(int frequency, int startEpochDay) {
+            if (frequency < FREQUENCY_DAILY || frequency > FREQUENCY_YEARLY) {
+                throw new IllegalArgumentException("Invalid frequency: " + frequency);
+            }
+            this.frequency = frequency;
+            this.startEpochDay = startEpochDay;
+        }
+
+        /**
+         * @param interval the rule repeats every interval days, weeks, months or years, 1 by default
+         */
+        public Builder setInterval(int interval) {
+            if (interval < 1) {
+                throw new IllegalArgumentException("Invalid interval: " + interval);
+            }
+            this.interval = interval;
+            return this;
+        }
+
+        /**
+         * Restricts the rule to the given days of the week. Monthly and yearly rules then repeat on every such day of the month or the year.
+         *
+         * @param daysOfWeek days of the week, as {@link Calendar#DAY_OF_WEEK}
+         */
+        public Builder setWeekDays(int... daysOfWeek) {
+            weekDays = 0;
+            for (int dayOfWeek : daysOfWeek) {
+                if (dayOfWeek < Calendar.SUNDAY || dayOfWeek > Calendar.SATURDAY) {
+                    throw new IllegalArgumentException("Invalid day of week: " + dayOfWeek);
+                }
+                weekDays |= getWeekDayBit(dayOfWeek);
+            }
+            return this;
+        }
+
+        /**
+         * @param untilEpochDay the last day the rule can occur on, included
+         */
+        public Builder setUntil(int untilEpochDay) {
+            this.untilEpochDay = untilEpochDay;
+            return this;
+        }
+
+        /**
+         * @param count the number of occurrences of the rule, including the excluded ones
+         */
+        public Builder setCount(int count) {
+            if (count < 1) {
+                throw new IllegalArgumentException("Invalid count: " + count);
+            }
+            this.count = count;
+            return this;
+        }
+
+        public Builder addExclusion(int epochDay) {
+            if (exclusionCount == exclusions.length) {
+                int[] newExclusions = new int[exclusionCount * 2];
+                System.arraycopy(exclusions, 0, newExclusions, 0, exclusionCount);
+                exclusions = newExclusions;
+            }
+            exclusions[exclusionCount++] = epochDay;
+            return this;
+        }
+
+        public RecurrenceRule build() {
+            return new RecurrenceRule(this);
+        }
+
+        // Sorted for the binary search of the month
+        private int[] getExclusions() {
+            int[] sorted = new int[exclusionCount];
+            System.arraycopy(exclusions, 0, sorted, 0, exclusionCount);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
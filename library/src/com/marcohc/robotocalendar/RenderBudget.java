@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+/**
+ * Upper bounds for a {@link RenderCost}, so a scenario driven on the calendar fails as soon as a change makes it measure, lay out, inflate, search,
+ * write or allocate more than it used to.
+ * <p/>
+ * Every bound is unlimited unless it is set in the {@link Builder}.
+ */
+public final class RenderBudget {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final int maxMeasurePasses;
+    private final int maxLayoutPasses;
+    private final int maxLayoutRequests;
+    private final int maxInflations;
+    private final int maxTagSearches;
+    private final int maxViewMutations;
+    private final int maxViewCount;
+    private final int maxAllocations;
+    private final int maxAllocatedBytes;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    private RenderBudget(Builder builder) {
+        maxMeasurePasses = builder.maxMeasurePasses;
+        maxLayoutPasses = builder.maxLayoutPasses;
+        maxLayoutRequests = builder.maxLayoutRequests;
+        maxInflations = builder.maxInflations;
+        maxTagSearches = builder.maxTagSearches;
+        maxViewMutations = builder.maxViewMutations;
+        maxViewCount = builder.maxViewCount;
+        maxAllocations = builder.maxAllocations;
+        maxAllocatedBytes = builder.maxAllocatedBytes;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Budget methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * @return the exceeded bounds, as "layoutPasses 3 > 2", separated by commas, or null if the cost is within the budget
+     */
+    public String check(RenderCost cost) {
+        StringBuilder exceeded = new StringBuilder();
+        append(exceeded, "measurePasses", cost.measurePasses, maxMeasurePasses);
+        append(exceeded, "layoutPasses", cost.layoutPasses, maxLayoutPasses);
+        append(exceeded, "layoutRequests", cost.layoutRequests, maxLayoutRequests);
+        append(exceeded, "inflations", cost.inflations, maxInflations);
+        append(exceeded, "tagSearches", cost.tagSearches, maxTagSearches);
+        append(exceeded, "viewMutations", cost.viewMutations, maxViewMutations);
+        append(exceeded, "viewCount", cost.viewCount, maxViewCount);
+        append(exceeded, "allocations", cost.allocations, maxAllocations);
+        append(exceeded, "allocatedBytes", cost.allocatedBytes, maxAllocatedBytes);
+        return exceeded.length() > 0 ? exceeded.toString() : null;
+    }
+
+    /**
+     * @throws IllegalStateException if the cost exceeds any bound of the budget
+     */
+    public void verify(RenderCost cost) {
+        String exceeded = check(cost);
+        if (exceeded != null) {
+            throw new IllegalStateException("Render budget exceeded: " + exceeded + " in " + cost);
+        }
+    }
+
+    private static void append(StringBuilder exceeded, String name, int value, int max) {
+        if (value <= max) {
+            return;
+        }
+        if (exceeded.length() > 0) {
+            exceeded.append(", ");
+        }
+        exceeded.append(name).append(' ').append(value).append(" > ").append(max);
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Builder
+    // ************************************************************************************************************************************************************************
+
+    public static final class Builder {
+
+        private int maxMeasurePasses = UNLIMITED;
+        private int maxLayoutPasses = UNLIMITED;
+        private int maxLayoutRequests = UNLIMITED;
+        private int maxInflations = UNLIMITED;
+        private int maxTagSearches = UNLIMITED;
+        private int maxViewMutations = UNLIMITED;
+        private int maxViewCount = UNLIMITED;
+        private int maxAllocations = UNLIMITED;
+        private int maxAllocatedBytes = UNLIMITED;
+
+        public Builder setMaxMeasurePasses(int maxMeasurePasses) {
+            this.maxMeasurePasses = checkBound(maxMeasurePasses);
+            return this;
+        }
+
+        public Builder setMaxLayoutPasses(int maxLayoutPasses) {
+            this.maxLayoutPasses = checkBound(maxLayoutPasses);
+            return this;
+        }
+
+        public Builder setMaxLayoutRequests(int maxLayoutRequests) {
+            this.maxLayoutRequests = checkBound(maxLayoutRequests);
+            return this;
+        }
+
+        public Builder setMaxInflations(int maxInflations) {
+            this.maxInflations = checkBound(maxInflations);
+            return this;
+        }
+
+        public Builder setMaxTagSearches(int maxTagSearches) {
+            this.maxTagSearches = checkBound(maxTagSearches);
+            return this;
+        }
+
+        public Builder setMaxViewMutations(int maxViewMutations) {
+            this.maxViewMutations = checkBound(maxViewMutations);
+            return this;
+        }
+
+        public Builder setMaxViewCount(int maxViewCount) {
+            this.maxViewCount = checkBound(maxViewCount);
+            return this;
+        }
+
+        public Builder setMaxAllocations(int maxAllocations) {
+            this.maxAllocations = checkBound(maxAllocations);
+            return this;
+        }
+
+        public Builder setMaxAllocatedBytes(int maxAllocatedBytes) {
+            this.maxAllocatedBytes = checkBound(maxAllocatedBytes);
+            return this;
+        }
+
+        public RenderBudget build() {
+            return new RenderBudget(this);
+        }
+
+        private static int checkBound(int max) {
+            if (max < 0) {
+                throw new IllegalArgumentException("Invalid bound: " + max);
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+/**
+ * Work done by a {@link RobotoCalendarView} between {@link RobotoCalendarView#startRenderCostRecording()} and
+ * {@link RobotoCalendarView#stopRenderCostRecording()}, to be checked against a {@link RenderBudget}
+ */
+public final class RenderCost {
+
+    int measurePasses;
+    int layoutPasses;
+    int layoutRequests;
+    int inflations;
+    int tagSearches;
+    int viewMutations;
+    int viewCount;
+    int allocations;
+    int allocatedBytes;
+
+    RenderCost() {
+    }
+
+    /**
+     * @return the number of times the calendar was measured
+     */
+    public int getMeasurePasses() {
+        return measurePasses;
+    }
+
+    /**
+     * @return the number of times the calendar was laid out
+     */
+    public int getLayoutPasses() {
+        return layoutPasses;
+    }
+
+    /**
+     * @return the number of layout requests that reached the calendar
+     */
+    public int getLayoutRequests() {
+        return layoutRequests;
+    }
+
+    /**
+     * @return the number of layouts inflated plus the number of week rows built in code
+     */
+    public int getInflations() {
+        return inflations;
+    }
+
+    /**
+     * @return the number of views searched by tag
+     */
+    public int getTagSearches() {
+        return tagSearches;
+    }
+
+    /**
+     * @return the number of view property writes, as counted by {@link RobotoCalendarView#getLastRebindMutationCount()}
+     */
+    public int getViewMutations() {
+        return viewMutations;
+    }
+
+    /**
+     * @return the number of views of the calendar when the recording stopped
+     */
+    public int getViewCount() {
+        return viewCount;
+    }
+
+    /**
+     * @return the number of objects allocated by the UI thread, 0 where the runtime does not count them
+     */
+    public int getAllocations() {
+        return allocations;
+    }
+
+    /**
+     * @return the bytes allocated by the UI thread, 0 where the runtime does not count them
+     */
+    public int getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "RenderCost{measurePasses=" + measurePasses + ", layoutPasses=" + layoutPasses + ", layoutRequests=" + layoutRequests + ", inflations="
+                + inflations + ", tagSearches=" + tagSearches + ", viewMutations=" + viewMutations + ", viewCount=" + viewCount + ", allocations="
+                + allocations + ", allocatedBytes=" + allocatedBytes + "}";
+    }
+}
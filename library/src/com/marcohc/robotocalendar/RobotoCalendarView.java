@@ -15,26 +15,46 @@
  */
 package com.marcohc.robotocalendar;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SystemClock;
 import android.nfc.Tag;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewPropertyAnimator;
+import android.view.ViewTreeObserver;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import java.text.DateFormatSymbols;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
-
-import uk.co.chrisjenx.calligraphy.CalligraphyConfig;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * The roboto calendar view
@@ -54,30 +74,145 @@ public class RobotoCalendarView extends LinearLayout {
     private ImageView leftButton;
     private ImageView rightButton;
     private View view;
+    // Root of the inflated layout
+    private View contentView;
+    private MonthGridView monthGridView;
+    private MonthPagerView monthPagerView;
+    private TimelineView timelineView;
 
     // Class
     private RobotoCalendarListener robotoCalendarListener;
+    private OnEpochDaySelectedListener onEpochDaySelectedListener;
+    private OnSelectionChangedListener onSelectionChangedListener;
+    private OnTimelineEventClickListener onTimelineEventClickListener;
     private Calendar currentCalendar;
+    private MonthGrid monthGrid;
+    private volatile TimeZone timeZone;
     private Locale locale;
+    private CalendarSymbols calendarSymbols;
+    private final DecorationStore decorationStore = new DecorationStore();
+    private final CalendarUpdateQueue updateQueue = new CalendarUpdateQueue(new UpdateQueueTarget());
+    private EventSourceCache eventSourceCache;
+    private List<TimelineEvent> timelineEvents;
 
     // Style
-    private int monthTitleColor;
-    private int dayOfWeekColor;
-    private int dayOfMonthColor;
-
-    private Date lastCurrentDay;
-    private Date lastSelectedDay;
+    private CalendarStyle calendarStyle;
+    // Color resources, the defaults are used by calendars created in code
+    private int monthTitleColor = R.color.month_title;
+    private int dayOfWeekColor = R.color.day_of_week_color;
+    private int dayOfMonthColor = R.color.day_of_month;
+
+    // Epoch days of the marked days
+    private static final int NO_DAY = Integer.MIN_VALUE;
+    private int lastCurrentDay = NO_DAY;
+    private int lastSelectedDay = NO_DAY;
+
+    // Today in the time zone of the calendar, computed once per day
+    private CalendarToday today = new CalendarToday(CalendarToday.SYSTEM_CLOCK, TimeZone.getDefault());
+    // When tracked, today is marked by the calendar and its mark is moved when the day changes
+    private boolean todayTracked;
+    // Set when the calendar is in the default time zone, so it follows the time zone of the device
+    private boolean followsDefaultTimeZone = true;
+    private boolean attachedToWindow;
+
+    // Selection modes, one day marked with markDayAsSelectedDay, days toggled by click or a range selected with two clicks
+    public static final int SELECTION_MODE_SINGLE = 0;
+    public static final int SELECTION_MODE_MULTIPLE = 1;
+    public static final int SELECTION_MODE_RANGE = 2;
+
+    private int selectionMode = SELECTION_MODE_SINGLE;
+    private final DaySelection daySelection = new DaySelection();
+    // First day of a range waiting for its last day
+    private int rangeAnchor = NO_DAY;
+
+    // Shades of the heatmap, from the lowest to the highest count
+    private static final int[] HEAT_COLORS = {R.color.heat_1, R.color.heat_2, R.color.heat_3, R.color.heat_4};
+
+    private DayHistogram heatmap;
+
+    // Set by a state restore, the current and selected days are marked in the same rebind as the month
+    private boolean markLastDaysOnRebind;
 
     public static final int RED_COLOR = R.color.red;
     public static final int GREEN_COLOR = R.color.green;
     public static final int BLUE_COLOR = R.color.blue;
     public static final int WHITE_COLOR = R.color.white;
 
+    // Render modes, the inflated view hierarchy, a single canvas drawn grid, swipeable canvas drawn pages or the timeline of a week or a day
+    public static final int RENDER_MODE_VIEWS = 0;
+    public static final int RENDER_MODE_CANVAS = 1;
+    public static final int RENDER_MODE_PAGER = 2;
+    public static final int RENDER_MODE_WEEK = 3;
+    public static final int RENDER_MODE_DAY = 4;
+
+    // Builds the pages of the adjacent months in the pager mode
+    private static ExecutorService prefetchExecutor;
+
+    private int renderMode = RENDER_MODE_VIEWS;
+
+    // In the views mode, the week rows can be built in code instead of inflated, the last one only when a month needs it
+    private boolean dayGridInCode;
+    private DayGridBuilder dayGridBuilder;
+    private ViewGroup daysContainer;
+    private long inflationTimeNanos;
+
+    // Animated month transitions, snapshots of the outgoing and incoming months slid over the content
+    private static final int TRANSITION_DURATION = 250;
+    private boolean monthTransition;
+    private final MonthSnapshotCache snapshotCache = new MonthSnapshotCache();
+    private MonthTransitionView monthTransitionView;
+    // Increased by every mark made outside a rebind, a snapshot is only shown for the versions of the content and the store it was drawn with
+    private int contentVersion;
+    // The displayed month has marks the next rebind of the month does not draw again
+    private boolean transientMarks;
+    private boolean markingOnBind;
+    private ViewTreeObserver.OnPreDrawListener pendingTransition;
+
     private static final String DAY_OF_MONTH_TEXT = "dayOfMonthText";
     private static final String DAY_OF_MONTH_BACKGROUND = "dayOfMonthBackground";
     private static final String DAY_OF_MONTH_CONTAINER = "dayOfMonthContainer";
     private static final String FIRST_UNDERLINE = "firstUnderlineView";
     private static final String SECOND_UNDERLINE = "secondUnderlineView";
+    private static final String WEEK_ROW = "weekRow";
+
+    private static final int DAYS_IN_WEEK = MonthGrid.DAYS_IN_WEEK;
+    private static final int WEEK_ROWS = MonthGrid.WEEK_ROWS;
+    private static final int DAYS_IN_GRID = MonthGrid.DAYS_IN_GRID;
+
+    // Cell registry, resolved once from the tags of the inflated layout
+    private final DayOfMonthCell[] dayOfMonthCells = new DayOfMonthCell[DAYS_IN_GRID];
+    private final TextView[] dayOfWeekViews = new TextView[DAYS_IN_WEEK];
+    private final ViewGroup[] weekRows = new ViewGroup[WEEK_ROWS];
+
+    // Last bound state of the views outside of the cells, so a rebind only writes what changed
+    private String boundTitle;
+    private Locale boundWeekDaysLocale;
+    private int boundFirstDayOfWeek;
+    private int boundWeekRows;
+
+    // While rebinding, cell changes are only recorded and written together at the end
+    private boolean rebinding;
+    private int viewMutationCount;
+    private int lastRebindMutationCount;
+
+    // Metrics, only measured while a listener is installed
+    private CalendarMetricsListener metricsListener;
+    private final RebindMetrics rebindMetrics = new RebindMetrics();
+    private int layoutRequestCount;
+    // Release of the last touch on the calendar, as SystemClock.uptimeMillis(), where the latency of a click starts
+    private static final long NO_TOUCH = -1;
+    private long touchUpTime = NO_TOUCH;
+
+    // Render cost counters, always counted, and their values when the recording started
+    private int measurePassCount;
+    private int layoutPassCount;
+    private int inflationCount;
+    private int tagSearchCount;
+    private RenderCost renderCostStart;
+
+    // Construction time, to measure the time to the first draw
+    private final long createTime = System.nanoTime();
+    private long timeToFirstDrawNanos = -1;
 
     // ************************************************************************************************************************************************************************
     // * Initialization methods
@@ -105,29 +240,111 @@ public class RobotoCalendarView extends LinearLayout {
         monthTitleColor = typedArray.getColor(R.styleable.RobotoCalendarView_monthTitleColor, R.color.month_title);
         dayOfWeekColor = typedArray.getColor(R.styleable.RobotoCalendarView_dayOfWeekColor, R.color.day_of_week_color);
         dayOfMonthColor = typedArray.getColor(R.styleable.RobotoCalendarView_dayOfMonthColor, R.color.day_of_month);
+        renderMode = typedArray.getInt(R.styleable.RobotoCalendarView_renderMode, RENDER_MODE_VIEWS);
+        selectionMode = typedArray.getInt(R.styleable.RobotoCalendarView_selectionMode, SELECTION_MODE_SINGLE);
+        dayGridInCode = typedArray.getBoolean(R.styleable.RobotoCalendarView_dayGridInCode, false);
+        monthTransition = typedArray.getBoolean(R.styleable.RobotoCalendarView_monthTransition, false);
         typedArray.recycle();
     }
 
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+
+        // Colors may depend on the configuration, the style of the theme is built again for the new one
+        calendarStyle = CalendarStyle.get(context);
+        finishMonthTransition();
+        snapshotCache.clear();
+
+        rebindLocale(newConfig.locale);
+    }
+
+    // Rebinds the title, the week day headers and the cells of the displayed month if the locale changed
+    private void rebindLocale(Locale newLocale) {
+        if (locale == null || locale.equals(newLocale)) {
+            return;
+        }
+        finishMonthTransition();
+        snapshotCache.clear();
+        CalendarSymbols.clear();
+        calendarSymbols = null;
+        if (currentCalendar != null) {
+            initializeCalendar(currentCalendar);
+        }
+        if (lastCurrentDay != NO_DAY) {
+            markDayAsCurrentDay(lastCurrentDay);
+        }
+        if (lastSelectedDay != NO_DAY) {
+            markDayAsSelectedDay(lastSelectedDay);
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (isInEditMode()) {
+            return;
+        }
+        attachedToWindow = true;
+        IntentFilter filter = new IntentFilter(Intent.ACTION_TIME_CHANGED);
+        filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+        filter.addAction(Intent.ACTION_DATE_CHANGED);
+        filter.addAction(Intent.ACTION_LOCALE_CHANGED);
+        context.registerReceiver(clockReceiver, filter);
+
+        // The day may have changed while detached
+        refreshToday();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (!attachedToWindow) {
+            return;
+        }
+        attachedToWindow = false;
+        context.unregisterReceiver(clockReceiver);
+        removeCallbacks(dayChangeRunnable);
+    }
+
     public View onCreateView() {
 
+        // Typefaces and colors are shared by every calendar of the theme
+        CalendarStyle.initializeCalligraphy();
+        calendarStyle = CalendarStyle.get(context);
+
         LayoutInflater inflate = (LayoutInflater) context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
-        view = inflate.inflate(R.layout.roboto_calendar_picker_layout, this, true);
+        int layout;
+        switch (renderMode) {
+            case RENDER_MODE_CANVAS:
+                layout = R.layout.roboto_calendar_picker_canvas_layout;
+                break;
+            case RENDER_MODE_PAGER:
+                layout = R.layout.roboto_calendar_picker_pager_layout;
+                break;
+            case RENDER_MODE_WEEK:
+            case RENDER_MODE_DAY:
+                layout = R.layout.roboto_calendar_picker_timeline_layout;
+                break;
+            default:
+                layout = dayGridInCode ? R.layout.roboto_calendar_picker_code_layout : R.layout.roboto_calendar_picker_layout;
+                break;
+        }
+        long inflationStart = System.nanoTime();
+        view = inflate.inflate(layout, this, true);
+        inflationCount++;
         //true 是指日曆是否顯示
+        contentView = getChildAt(0);
 
         findViewsById(view);
         //左右邊的按鈕
+        inflationTimeNanos = System.nanoTime() - inflationStart;
 
         initializeEventListeners();
         //左右邊日曆按鈕監聽器
 
         initializeComponentBehavior();
 
-        CalligraphyConfig.initDefault(new CalligraphyConfig.Builder()
-                        .setDefaultFontPath("fonts/Roboto-Regular.ttf")
-                        .setFontAttrId(R.attr.fontPath)
-                        .build()
-        );
-
         return view;
     }
 
@@ -135,6 +352,60 @@ public class RobotoCalendarView extends LinearLayout {
         leftButton = (ImageView) view.findViewById(R.id.leftButton);
         rightButton = (ImageView) view.findViewById(R.id.rightButton);
         dateTitle = (TextView) view.findViewById(R.id.dateTitle);
+        buildCellRegistry(view);
+    }
+
+    // The only place where the tags of the layout are searched, every other method looks up cells by index
+    private void buildCellRegistry(View view) {
+        if (renderMode == RENDER_MODE_WEEK || renderMode == RENDER_MODE_DAY) {
+            timelineView = (TimelineView) view.findViewById(R.id.timelineView);
+            timelineView.setEvents(timelineEvents);
+            return;
+        }
+
+        for (int i = 0; i < DAYS_IN_WEEK; i++) {
+            dayOfWeekViews[i] = (TextView) findViewWithTag(view, DAY_OF_WEEK + (i + 1));
+        }
+
+        if (renderMode == RENDER_MODE_PAGER) {
+            monthPagerView = (MonthPagerView) view.findViewById(R.id.monthPagerView);
+            monthGridView = monthPagerView.getPage(MonthPagerView.PAGE_CURRENT);
+            return;
+        }
+
+        if (renderMode == RENDER_MODE_CANVAS) {
+            monthGridView = (MonthGridView) view.findViewById(R.id.monthGridView);
+            return;
+        }
+
+        if (dayGridInCode) {
+            daysContainer = (ViewGroup) view.findViewById(R.id.daysContainer);
+            dayGridBuilder = new DayGridBuilder(context, calendarStyle);
+            for (int i = 0; i < WEEK_ROWS - 1; i++) {
+                weekRows[i] = dayGridBuilder.buildWeekRow(daysContainer, i, dayOfMonthCells);
+            }
+            inflationCount += WEEK_ROWS - 1;
+            return;
+        }
+
+        for (int i = 0; i < WEEK_ROWS; i++) {
+            weekRows[i] = (ViewGroup) findViewWithTag(view, WEEK_ROW + (i + 1));
+        }
+
+        for (int i = 0; i < DAYS_IN_GRID; i++) {
+            int tagIndex = i + 1;
+            dayOfMonthCells[i] = new DayOfMonthCell(i,
+                    findViewWithTag(view, DAY_OF_MONTH_CONTAINER + tagIndex),
+                    findViewWithTag(view, DAY_OF_MONTH_BACKGROUND + tagIndex),
+                    (TextView) findViewWithTag(view, DAY_OF_MONTH_TEXT + tagIndex),
+                    findViewWithTag(view, FIRST_UNDERLINE + tagIndex),
+                    findViewWithTag(view, SECOND_UNDERLINE + tagIndex));
+        }
+    }
+
+    private View findViewWithTag(View view, String tag) {
+        tagSearchCount++;
+        return view.findViewWithTag(tag);
     }
 
     private void initializeEventListeners() {
@@ -160,6 +431,48 @@ public class RobotoCalendarView extends LinearLayout {
                 robotoCalendarListener.onRightButtonClick();
             }
         });
+
+        if (monthGridView != null) {
+            MonthGridView.OnDayOfMonthClickListener onDayOfMonthClickListener = new MonthGridView.OnDayOfMonthClickListener() {
+                @Override
+                public void onDayOfMonthClick(int index) {
+                    onDayOfMonthSelected(index);
+                }
+            };
+
+            if (monthPagerView != null) {
+                monthPagerView.getPage(MonthPagerView.PAGE_PREVIOUS).setOnDayOfMonthClickListener(onDayOfMonthClickListener);
+                monthPagerView.getPage(MonthPagerView.PAGE_CURRENT).setOnDayOfMonthClickListener(onDayOfMonthClickListener);
+                monthPagerView.getPage(MonthPagerView.PAGE_NEXT).setOnDayOfMonthClickListener(onDayOfMonthClickListener);
+            } else {
+                monthGridView.setOnDayOfMonthClickListener(onDayOfMonthClickListener);
+            }
+        }
+
+        if (timelineView != null) {
+            timelineView.setOnTimelineClickListener(new TimelineView.OnTimelineClickListener() {
+                @Override
+                public void onDayClick(int epochDay) {
+                    onEpochDaySelected(epochDay);
+                }
+
+                @Override
+                public void onEventClick(TimelineEvent event) {
+                    if (onTimelineEventClickListener != null) {
+                        onTimelineEventClickListener.onTimelineEventClick(event);
+                    }
+                }
+            });
+        }
+
+        if (monthPagerView != null) {
+            monthPagerView.setOnPageChangeListener(new MonthPagerView.OnPageChangeListener() {
+                @Override
+                public void onPageChanged(int direction) {
+                    onMonthPageChanged(direction);
+                }
+            });
+        }
     }
 
     private void initializeComponentBehavior() {
@@ -175,315 +488,1518 @@ public class RobotoCalendarView extends LinearLayout {
     // * Initialization UI methods
     // ************************************************************************************************************************************************************************
 
-    @SuppressLint("DefaultLocale")
     private void initializeTitleLayout() {
 
-        // Apply styles
-        int color = getResources().getColor(R.color.red);
-        dateTitle.setTextColor(color);
-        //title的顏色內容
-
-        String dateText = new DateFormatSymbols(locale).getMonths()[currentCalendar.get(Calendar.MONTH)].toString();
-        dateText = dateText.substring(0, 1).toUpperCase() + dateText.subSequence(1, dateText.length());
-        //dateText = 幾月 "8月"
-        Calendar calendar = Calendar.getInstance();
-        if (currentCalendar.get(Calendar.YEAR) == calendar.get(Calendar.YEAR)) {//判別是否過今年
-            //今年內都顯示 幾月
-            dateTitle.setText(dateText);
-        } else {
-            //前年或是後年都顯示 月+年
-            dateTitle.setText(dateText + " " + currentCalendar.get(Calendar.YEAR));
+        //今年內都顯示 幾月，前年或是後年都顯示 月+年
+        int currentYear = MonthGrid.getYearOfEpochDay(today.getEpochDay());
+        String dateText = calendarSymbols.getTitle(monthGrid.getYear(), monthGrid.getMonth(), currentYear);
+
+        if (boundTitle == null) {
+            // Apply styles
+            int color = calendarStyle.getColor(R.color.red);
+            dateTitle.setTextColor(color);
+            //title的顏色內容
+            viewMutationCount++;
         }
+
         //日期的顯示
+        if (!dateText.equals(boundTitle)) {
+            dateTitle.setText(dateText);
+            boundTitle = dateText;
+            viewMutationCount++;
+        }
     }
 
-    @SuppressLint("DefaultLocale")
     private void initializeWeekDaysLayout() {
 
+        // The headers only depend on the locale and the first day of the week
+        if (locale.equals(boundWeekDaysLocale) && monthGrid.getFirstDayOfWeek() == boundFirstDayOfWeek) {
+            return;
+        }
+        boundWeekDaysLocale = locale;
+        boundFirstDayOfWeek = monthGrid.getFirstDayOfWeek();
+
         // Apply styles
-        int color = getResources().getColor(dayOfWeekColor);
+        int color = calendarStyle.getColor(dayOfWeekColor);
 
         TextView dayOfWeek;
-        String dayOfTheWeekString;
-        String[] weekDaysArray = new DateFormatSymbols(locale).getShortWeekdays();
-        for (int i = 1; i < weekDaysArray.length; i++) {
-
-            dayOfWeek = (TextView) view.findViewWithTag(DAY_OF_WEEK + getWeekIndex(i, currentCalendar));
-            dayOfTheWeekString = weekDaysArray[i];
+        for (int column = 0; column < DAYS_IN_WEEK; column++) {
 
-            dayOfTheWeekString = checkSpecificLocales(dayOfTheWeekString, i);
-            //Log.d("", "title 日期顯示 = " + weekDaysArray[i]);
-            dayOfWeek.setText(dayOfTheWeekString);
+            dayOfWeek = dayOfWeekViews[column];
+            dayOfWeek.setText(calendarSymbols.getWeekDayLabel(column));
             //把title的所有質放入dayOfWeek，依照1-7顯示
             dayOfWeek.setTextColor(color);
             //顯示月下面那一行，星期幾
+            viewMutationCount += 2;
         }
     }
 
-    @SuppressLint("DefaultLocale")
-    private String checkSpecificLocales(String dayOfTheWeekString, int i) {
-        // Set Wednesday as "X" in Spanish locale
-        if (i == 4 && locale.getCountry().equals("ES")) { //西班牙國家時，星期三等於X
-            dayOfTheWeekString = "X";
-        } else {
-            //dayOfTheWeekString = dayOfTheWeekString.substring(0, 3).toUpperCase();//取多少字串，並且大寫
-        }
-        return dayOfTheWeekString;
-    }
-
     private void initializeDaysOfMonthLayout() {
 
         // Apply styles
-        int color = getResources().getColor(dayOfMonthColor);
-        TextView dayOfMonthText;
-        View firstUnderline;
-        View secondUnderline;
-        ViewGroup dayOfMonthContainer;
-        ViewGroup dayOfMonthBackground;
+        int color = calendarStyle.getColor(dayOfMonthColor);
+        if (renderMode != RENDER_MODE_VIEWS) {
+            // The whole grid is one view, it counts as a single mutation
+            monthGridView.clear(color);
+            viewMutationCount++;
+            return;
+        }
+
+        // The last week row is built the first time a month needs it, before its cells are reset
+        if (weekRows[WEEK_ROWS - 1] == null && monthGrid.getWeekRows() == WEEK_ROWS) {
+            long buildStart = System.nanoTime();
+            weekRows[WEEK_ROWS - 1] = dayGridBuilder.buildWeekRow(daysContainer, WEEK_ROWS - 1, dayOfMonthCells);
+            inflationCount++;
+            inflationTimeNanos += System.nanoTime() - buildStart;
+        }
 
-        for (int i = 1; i < 43; i++) { //一頁顯示天數
+        DayOfMonthCell cell;
 
-            //月曆基本的設定
-            dayOfMonthContainer = (ViewGroup) view.findViewWithTag(DAY_OF_MONTH_CONTAINER + i);
-            dayOfMonthBackground = (ViewGroup) view.findViewWithTag(DAY_OF_MONTH_BACKGROUND + i);
-            dayOfMonthText = (TextView) view.findViewWithTag(DAY_OF_MONTH_TEXT + i);
+        // Only the wanted state is reset here, the views are written when the rebind is committed
+        for (int i = 0; i < DAYS_IN_GRID; i++) { //一頁顯示天數
 
-            //顯示圖示
-            firstUnderline = (View) view.findViewWithTag(FIRST_UNDERLINE + i);
-            secondUnderline = (View) view.findViewWithTag(SECOND_UNDERLINE + i);
+            //月曆基本的設定
+            cell = dayOfMonthCells[i];
+            if (cell == null) {
+                continue;
+            }
 
             //跨次日的不可見
-            dayOfMonthText.setVisibility(View.INVISIBLE);
+            cell.textVisible = false;
+            cell.clickable = false;
 
             //日期下有條底線，基本預設值全部不顯示
-            firstUnderline.setVisibility(View.INVISIBLE);
-            secondUnderline.setVisibility(View.INVISIBLE);
+            cell.firstUnderlineStyle = DayOfMonthCell.NO_STYLE;
+            cell.secondUnderlineStyle = DayOfMonthCell.NO_STYLE;
 
             // Apply styles
-            dayOfMonthText.setTextColor(color);
-            dayOfMonthText.setBackgroundResource(android.R.color.transparent);
-            dayOfMonthContainer.setBackgroundResource(android.R.color.transparent);
-            dayOfMonthContainer.setOnClickListener(null);
-            dayOfMonthBackground.setBackgroundResource(android.R.color.transparent);
+            cell.textColor = color;
+            cell.backgroundResource = android.R.color.transparent;
+            cell.containerBackgroundResource = android.R.color.transparent;
+            cell.shadeResource = android.R.color.transparent;
         }
     }
 
-    private void setDaysInCalendar() {
-        Calendar auxCalendar = Calendar.getInstance(locale); //使用指定語系建立Calendar實體
-        auxCalendar.setTime(currentCalendar.getTime());//寫入現在時間
-        auxCalendar.set(Calendar.DAY_OF_MONTH, 1); //設置當前日期為本月的第一天
-
-        Log.d("", "取的時間 " + String.valueOf(auxCalendar.getTime()));
-        int firstDayOfMonth = auxCalendar.get(Calendar.DAY_OF_WEEK);//從日曆中找尋第一天星期幾(get)
-        Log.d("", "aaaaaa = " + String.valueOf(firstDayOfMonth));
-        Log.d("", "aaaaaa = " + String.valueOf(auxCalendar.getFirstDayOfWeek()));
-        // Calculate dayOfMonthIndex 讓Calendar 日曆對應索引值
-        int dayOfMonthIndex = getWeekIndex(firstDayOfMonth, auxCalendar);
+    // The week of the day of the calendar, or the day alone
+    private void initializeTimeline() {
+        timelineView.setDays(getTimelineFirstEpochDay(currentCalendar), renderMode == RENDER_MODE_WEEK ? DAYS_IN_WEEK : 1, timeZone, calendarSymbols);
+        timelineView.setCurrentDay(lastCurrentDay);
+        viewMutationCount++;
+    }
+
+    private int getTimelineFirstEpochDay(Calendar calendar) {
+        int epochDay = MonthGrid.toEpochDay(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH));
+        if (renderMode == RENDER_MODE_WEEK) {
+            epochDay -= MonthGrid.getColumn(MonthGrid.getDayOfWeekOfEpochDay(epochDay), calendar.getFirstDayOfWeek());
+        }
+        return epochDay;
+    }
 
+    private void setDaysInCalendar() {
+        if (metricsListener != null) {
+            metricsListener.onDebugMessage("取的時間 " + monthGrid);
+        }
 
-        TextView dayOfMonthText;
-        ViewGroup dayOfMonthContainer;
+        // Calculate dayOfMonthIndex 讓Calendar 日曆對應索引值
+        int dayOfMonthIndex = monthGrid.getLeadingDays();
 
         //自動抓取最大天數，超過當月時則自動換月
-        for (int i = 1; i <= auxCalendar.getActualMaximum(Calendar.DAY_OF_MONTH); i++, dayOfMonthIndex++) {
-            Log.d("", "月 = " + String.valueOf(dayOfMonthIndex));
-            dayOfMonthContainer = (ViewGroup) view.findViewWithTag(DAY_OF_MONTH_CONTAINER + dayOfMonthIndex); //用tag來指定哪一個view + 數字
-            //dayOfMonthIndexn 是方便讓直指定所指定的位置
-            dayOfMonthText = (TextView) view.findViewWithTag(DAY_OF_MONTH_TEXT + dayOfMonthIndex);//用tag來指定哪一個view + 數字
-            if (dayOfMonthText == null) {
-                break;
-            }
-            //日曆內的點擊事件
-            dayOfMonthContainer.setOnClickListener(onDayOfMonthClickListener);
-            dayOfMonthText.setVisibility(View.VISIBLE);
-            dayOfMonthText.setText(String.valueOf(i));
+        for (int i = 1; i <= monthGrid.getDaysInMonth(); i++, dayOfMonthIndex++) {
+            bindDayOfMonth(dayOfMonthIndex, i);
         }
 
         // If the last week row has no visible days, hide it or show it in case
-        ViewGroup weekRow = (ViewGroup) view.findViewWithTag("weekRow6");
-        dayOfMonthText = (TextView) view.findViewWithTag("dayOfMonthText36");
         //最後一排 roboto_calendar_week_6.xml
         //如果第一個直視顯示，則整排顯示，如果沒有則隱藏
-        if (dayOfMonthText.getVisibility() == INVISIBLE) {
-            weekRow.setVisibility(GONE);
-        } else {
-            weekRow.setVisibility(VISIBLE);
+        boolean lastWeekRowVisible = monthGrid.getWeekRows() == WEEK_ROWS;
+        int visibleWeekRows = lastWeekRowVisible ? WEEK_ROWS : WEEK_ROWS - 1;
+        if (visibleWeekRows != boundWeekRows) {
+            if (renderMode != RENDER_MODE_VIEWS) {
+                monthGridView.setWeekRows(visibleWeekRows);
+                viewMutationCount++;
+            } else if (weekRows[WEEK_ROWS - 1] != null) { // Not built yet when the grid is built in code
+                weekRows[WEEK_ROWS - 1].setVisibility(lastWeekRowVisible ? VISIBLE : GONE);
+                viewMutationCount++;
+            }
+            boundWeekRows = visibleWeekRows;
         }
 
     }
 
-    private void clearDayOfTheMonthStyle(Date currentDate) {
+    private void clearDayOfTheMonthStyle(int epochDay) {
 
-        if (currentDate != null) {
-            Calendar calendar = getCurrentCalendar();
-            calendar.setTime(currentDate);
-            ViewGroup dayOfMonthBackground = getDayOfMonthBackground(calendar);
-            dayOfMonthBackground.setBackgroundResource(android.R.color.transparent);
+        if (epochDay != NO_DAY) {
+            int index = getCellIndex(epochDay);
+            if (index != -1) {
+                setDayOfMonthBackground(index, MonthGridView.BACKGROUND_NONE);
+            }
         }
     }
 
     // ************************************************************************************************************************************************************************
-    // * Getter methods
+    // * Cell methods
     // ************************************************************************************************************************************************************************
 
-    private ViewGroup getDayOfMonthBackground(Calendar currentCalendar) {
-        return (ViewGroup) getView(DAY_OF_MONTH_BACKGROUND, currentCalendar);
+    private void bindDayOfMonth(int index, int dayOfMonth) {
+        if (renderMode != RENDER_MODE_VIEWS) {
+            monthGridView.setDayOfMonth(index, dayOfMonth);
+        } else {
+            DayOfMonthCell cell = dayOfMonthCells[index];
+            //日曆內的點擊事件
+            cell.clickable = true;
+            cell.textVisible = true;
+            cell.dayOfMonth = dayOfMonth;
+            commitDayOfMonthCell(cell);
+        }
     }
 
-    private TextView getDayOfMonthText(Calendar currentCalendar) {
-        return (TextView) getView(DAY_OF_MONTH_TEXT, currentCalendar);
+    private void setDayOfMonthBackground(int index, int type) {
+        if (renderMode != RENDER_MODE_VIEWS) {
+            monthGridView.setDayOfMonthBackground(index, type);
+        } else {
+            int resource;
+            switch (type) {
+                case MonthGridView.BACKGROUND_CIRCLE:
+                    resource = R.drawable.circle;
+                    break;
+                case MonthGridView.BACKGROUND_RING:
+                    resource = R.drawable.ring;
+                    break;
+                default:
+                    resource = android.R.color.transparent;
+                    break;
+            }
+            DayOfMonthCell cell = dayOfMonthCells[index];
+            cell.backgroundResource = resource;
+            commitDayOfMonthCell(cell);
+        }
     }
 
-    private View getFirstUnderline(Calendar currentCalendar) {
-        return getView(FIRST_UNDERLINE, currentCalendar);
+    private void setDayOfMonthTextColor(int index, int color) {
+        if (renderMode != RENDER_MODE_VIEWS) {
+            monthGridView.setDayOfMonthTextColor(index, color);
+        } else {
+            DayOfMonthCell cell = dayOfMonthCells[index];
+            cell.textColor = color;
+            commitDayOfMonthCell(cell);
+        }
     }
 
-    private View getSecondUnderline(Calendar currentCalendar) {
-        return getView(SECOND_UNDERLINE, currentCalendar);
+    // The style is a color resource such as RED_COLOR, in canvas mode it is resolved to its color value
+    private void showFirstUnderline(int index, int style) {
+        if (renderMode != RENDER_MODE_VIEWS) {
+            monthGridView.setFirstUnderline(index, true, calendarStyle.getColor(style));
+        } else {
+            DayOfMonthCell cell = dayOfMonthCells[index];
+            cell.firstUnderlineStyle = style;
+            commitDayOfMonthCell(cell);
+        }
     }
 
-    private int getDayIndexByDate(Calendar currentCalendar) {
-        int monthOffset = getMonthOffset(currentCalendar);
-        int currentDay = currentCalendar.get(Calendar.DAY_OF_MONTH);
-        int index = currentDay + monthOffset;
-        return index;
+    private void showSecondUnderline(int index, int style) {
+        if (renderMode != RENDER_MODE_VIEWS) {
+            monthGridView.setSecondUnderline(index, true, calendarStyle.getColor(style));
+        } else {
+            DayOfMonthCell cell = dayOfMonthCells[index];
+            cell.secondUnderlineStyle = style;
+            commitDayOfMonthCell(cell);
+        }
     }
 
-    private int getMonthOffset(Calendar currentCalendar) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(currentCalendar.getTime());
-        calendar.set(Calendar.DAY_OF_MONTH, 1);
-        int firstDayWeekPosition = calendar.getFirstDayOfWeek();
-        int dayPosition = calendar.get(Calendar.DAY_OF_WEEK);
-
-        //今天日期的判斷
-        if (firstDayWeekPosition == 1) {
-            return dayPosition - 1;
+    // The selection is drawn over the background of the current day
+    private void setDayOfMonthSelection(int index, int state, boolean currentDay) {
+        if (renderMode != RENDER_MODE_VIEWS) {
+            monthGridView.setDayOfMonthSelection(index, state);
         } else {
-
-            if (dayPosition == 1) {
-                return 6;
-            } else {
-                return dayPosition - 2;
-            }
+            DayOfMonthCell cell = dayOfMonthCells[index];
+            boolean circle = currentDay || state == MonthGridView.SELECTION_SINGLE || state == MonthGridView.SELECTION_RANGE_START
+                    || state == MonthGridView.SELECTION_RANGE_END;
+            cell.backgroundResource = circle ? R.drawable.circle : android.R.color.transparent;
+            cell.containerBackgroundResource = state == MonthGridView.SELECTION_RANGE_MIDDLE ? R.color.range_band : android.R.color.transparent;
+            commitDayOfMonthCell(cell);
         }
+    }
 
+    // The level is 0 for no shade or an index in HEAT_COLORS plus one
+    private void setDayOfMonthShade(int index, int level) {
+        if (renderMode != RENDER_MODE_VIEWS) {
+            monthGridView.setDayOfMonthShade(index, level == 0 ? 0 : calendarStyle.getColor(HEAT_COLORS[level - 1]));
+        } else {
+            DayOfMonthCell cell = dayOfMonthCells[index];
+            cell.shadeResource = level == 0 ? android.R.color.transparent : HEAT_COLORS[level - 1];
+            commitDayOfMonthCell(cell);
+        }
     }
 
-    private int getWeekIndex(int weekIndex, Calendar currentCalendar) {
-        //第一天開始值，這一定會是 1 ，weekIndex = 7 因為一個禮拜為七天
-        int firstDayWeekPosition = currentCalendar.getFirstDayOfWeek();
+    // Outside of a rebind the changes of a cell are written at once
+    private void commitDayOfMonthCell(DayOfMonthCell cell) {
+        if (!rebinding) {
+            viewMutationCount += cell.commit(onDayOfMonthClickListener);
+        }
+    }
 
-        if (firstDayWeekPosition == 1) {
-            return weekIndex;
-        } else {
+    private void beginRebind() {
+        rebinding = renderMode == RENDER_MODE_VIEWS;
+    }
 
-            if (weekIndex == 1) {
-                return 7;
-            } else {
-                return weekIndex - 1;
+    private void commitRebind() {
+        if (rebinding) {
+            rebinding = false;
+            for (DayOfMonthCell cell : dayOfMonthCells) {
+                if (cell != null) {
+                    viewMutationCount += cell.commit(onDayOfMonthClickListener);
+                }
             }
         }
     }
 
-    private View getView(String key, Calendar currentCalendar) {
-        int index = getDayIndexByDate(currentCalendar);
-        View childView = (View) view.findViewWithTag(key + index);
-        return childView;
+    // ************************************************************************************************************************************************************************
+    // * Getter methods
+    // ************************************************************************************************************************************************************************
+
+    // Day of the date in the time zone of the displayed calendar
+    private int toEpochDay(Date date) {
+        return MonthGrid.toEpochDay(date.getTime(), timeZone);
+    }
+
+    // Cell of the day in the displayed month, -1 if the day is not in the month or there are no cells as in the week and day modes
+    private int getCellIndex(int epochDay) {
+        return timelineView != null ? -1 : monthGrid.getIndex(epochDay);
     }
 
-    private Calendar getCurrentCalendar() {
-        Calendar currentCalendar = Calendar.getInstance(context.getResources().getConfiguration().locale);
-        return currentCalendar;
+    private DayOfMonthCell getDayOfMonthCell(View dayOfMonthContainer) {
+        for (DayOfMonthCell cell : dayOfMonthCells) {
+            if (cell != null && cell.container == dayOfMonthContainer) {
+                return cell;
+            }
+        }
+        return null;
     }
 
     // ************************************************************************************************************************************************************************
     // * Public calendar methods
     // ************************************************************************************************************************************************************************
 
-    @SuppressLint("DefaultLocale")
+    /**
+     * Shows the month of the calendar, or its week or day in {@link #RENDER_MODE_WEEK} and {@link #RENDER_MODE_DAY}. With
+     * {@link #setMonthTransitionEnabled(boolean)} a change of month slides the new month in.
+     */
     public void initializeCalendar(Calendar currentCalendar) {
+        if (!isMonthTransitionReady()) {
+            bindCalendar(currentCalendar);
+            return;
+        }
+
+        int outgoingKey = getDisplayedSnapshotKey();
+        int incomingKey = getSnapshotKey(currentCalendar);
+        if (outgoingKey == incomingKey) {
+            finishMonthTransition();
+            bindCalendar(currentCalendar);
+            return;
+        }
+
+        finishMonthTransition();
+        Bitmap outgoing = captureSnapshot(outgoingKey);
+        if (transientMarks) {
+            // The snapshot shows marks the month will not have when it comes back
+            contentVersion++;
+        }
+        bindCalendar(currentCalendar);
+        if (outgoing != null) {
+            startMonthTransition(outgoing, incomingKey, incomingKey > outgoingKey ? 1 : -1);
+        }
+    }
+
+    @SuppressLint("DefaultLocale")
+    private void bindCalendar(Calendar currentCalendar) {
 
         this.currentCalendar = currentCalendar;
+        transientMarks = false;
         locale = context.getResources().getConfiguration().locale;
+        timeZone = currentCalendar.getTimeZone();
+        followsDefaultTimeZone = timeZone.getID().equals(TimeZone.getDefault().getID());
+        today.setTimeZone(timeZone);
+        if (todayTracked) {
+            lastCurrentDay = today.getEpochDay();
+        }
+        monthGrid = MonthGridCache.get(currentCalendar.get(Calendar.YEAR), currentCalendar.get(Calendar.MONTH), currentCalendar.getFirstDayOfWeek());
+        if (calendarSymbols == null || !calendarSymbols.getLocale().equals(locale) || calendarSymbols.getFirstDayOfWeek() != monthGrid.getFirstDayOfWeek()) {
+            calendarSymbols = CalendarSymbols.get(locale, monthGrid.getFirstDayOfWeek());
+        }
+
+        CalendarMetricsListener metricsListener = this.metricsListener;
+        int mutationCountBefore = viewMutationCount;
+        int layoutRequestCountBefore = layoutRequestCount;
+        long start = metricsListener != null ? System.nanoTime() : 0;
+        long end;
+        beginRebind();
 
         //主title
         initializeTitleLayout();
+        if (metricsListener != null) {
+            end = System.nanoTime();
+            rebindMetrics.titleNanos = end - start;
+            start = end;
+        }
+
+        // The week and day modes show the timeline instead of the days of the month, without markers nor selection
+        if (timelineView != null) {
+            initializeTimeline();
+            commitRebind();
+            lastRebindMutationCount = viewMutationCount - mutationCountBefore;
+            return;
+        }
 
         //一到星期天
         initializeWeekDaysLayout();
+        if (metricsListener != null) {
+            end = System.nanoTime();
+            rebindMetrics.weekDaysNanos = end - start;
+            start = end;
+        }
+
+        // In the pager mode the month may already be bound to an adjacent page
+        boolean pageReady = renderMode == RENDER_MODE_PAGER && showPreparedPage();
 
         //日曆版面的相關設定
-        initializeDaysOfMonthLayout();
+        if (!pageReady) {
+            initializeDaysOfMonthLayout();
+        }
+        if (metricsListener != null) {
+            end = System.nanoTime();
+            rebindMetrics.resetNanos = end - start;
+            start = end;
+        }
 
         //天設定到日曆內
-        setDaysInCalendar();
+        if (!pageReady) {
+            setDaysInCalendar();
+        }
+        if (metricsListener != null) {
+            end = System.nanoTime();
+            rebindMetrics.bindNanos = end - start;
+            start = end;
+        }
+
+        //儲存的標記
+        int markersApplied = pageReady ? 0 : showDecorations();
+        markersApplied += showEventSourceMonth();
+        if (heatmap != null) {
+            showHeatmap();
+        }
+        // The marks of the rebind are drawn again by every rebind of the month, they do not change the content version
+        markingOnBind = true;
+        if (todayTracked) {
+            markDayAsCurrentDay(lastCurrentDay);
+        }
+        showSelection();
+        if (markLastDaysOnRebind) {
+            markLastDaysOnRebind = false;
+            if (lastCurrentDay != NO_DAY) {
+                markDayAsCurrentDay(lastCurrentDay);
+            }
+            if (selectionMode == SELECTION_MODE_SINGLE && lastSelectedDay != NO_DAY) {
+                markDayAsSelectedDay(lastSelectedDay);
+            }
+        }
+        markingOnBind = false;
+        if (metricsListener != null) {
+            end = System.nanoTime();
+            rebindMetrics.decorationsNanos = end - start;
+            start = end;
+        }
+
+        commitRebind();
+        lastRebindMutationCount = viewMutationCount - mutationCountBefore;
+
+        if (renderMode == RENDER_MODE_PAGER) {
+            prefetchAdjacentPages();
+        }
+
+        if (metricsListener != null) {
+            rebindMetrics.commitNanos = System.nanoTime() - start;
+            rebindMetrics.monthGrid = monthGrid;
+            rebindMetrics.viewMutations = lastRebindMutationCount;
+            rebindMetrics.layoutRequests = layoutRequestCount - layoutRequestCountBefore;
+            rebindMetrics.markersApplied = markersApplied;
+            metricsListener.onRebind(rebindMetrics);
+        }
+    }
+
+    /**
+     * @return the number of view property writes done by the last {@link #initializeCalendar(Calendar)}, the properties already showing the
+     * wanted value are not written again. In {@link #RENDER_MODE_CANVAS} the day grid counts as a single view.
+     */
+    public int getLastRebindMutationCount() {
+        return lastRebindMutationCount;
+    }
+
+    /**
+     * @return the time from the construction of the calendar to its first draw, or -1 if it was not drawn yet
+     */
+    public long getTimeToFirstDrawNanos() {
+        return timeToFirstDrawNanos;
+    }
+
+    /**
+     * @return the time spent building the view hierarchy, the inflation of the layout plus the week rows built later in code
+     */
+    public long getInflationTimeNanos() {
+        return inflationTimeNanos;
+    }
+
+    /**
+     * @return the number of views in the hierarchy of the calendar, counted on each call
+     */
+    public int getViewCount() {
+        return countViews(this) - 1;
+    }
+
+    private static int countViews(View view) {
+        int count = 1;
+        if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            for (int i = 0; i < viewGroup.getChildCount(); i++) {
+                count += countViews(viewGroup.getChildAt(i));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the decorations of the calendar, markers added to it are shown again every time their month is displayed
+     */
+    public DecorationStore getDecorationStore() {
+        return decorationStore;
+    }
+
+    /**
+     * Shows the markers of the {@link DecorationStore} for the displayed month in one pass. It is done by {@link #initializeCalendar(Calendar)},
+     * call it after adding markers to the store for the displayed month. Removed markers disappear the next time the month is initialized.
+     */
+    public void applyDecorations() {
+        showDecorations();
+    }
+
+    // Returns the number of markers shown
+    private int showDecorations() {
+        return showMonthDecorations(decorationStore.getMonth(monthGrid.getYear(), monthGrid.getMonth()));
+    }
+
+    private int showMonthDecorations(MonthDecorations monthDecorations) {
+        if (monthDecorations == null || timelineView != null) {
+            return 0;
+        }
+
+        int markersApplied = 0;
+        int leadingDays = monthGrid.getLeadingDays();
+        for (int slot = 0; slot < DecorationStore.SLOTS; slot++) {
+            int mask = monthDecorations.getMask(slot);
+            while (mask != 0) {
+                int dayOfMonth = Integer.numberOfTrailingZeros(mask) + 1;
+                mask &= mask - 1;
+                int style = monthDecorations.getStyle(slot, dayOfMonth);
+                if (slot == DecorationStore.SLOT_FIRST_UNDERLINE) {
+                    showFirstUnderline(leadingDays + dayOfMonth - 1, style);
+                } else {
+                    showSecondUnderline(leadingDays + dayOfMonth - 1, style);
+                }
+                markersApplied++;
+            }
+        }
+        return markersApplied;
+    }
+
+    /**
+     * Shows the markers of the source for every displayed month. The months are loaded in the background and the last ones are kept in a
+     * {@link EventSourceCache} of {@link EventSourceCache#DEFAULT_CAPACITY} months, null removes the source.
+     */
+    public void setEventSource(EventSource eventSource) {
+        setEventSource(eventSource, EventSourceCache.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param cacheCapacity the number of months kept in the cache
+     */
+    public void setEventSource(EventSource eventSource, int cacheCapacity) {
+        if (eventSourceCache != null) {
+            // The load of the previous source must not show its markers
+            eventSourceCache.release();
+        }
+        eventSourceCache = eventSource != null ? new EventSourceCache(eventSource, cacheCapacity) : null;
+        if (monthGrid != null) {
+            showEventSourceMonth();
+        }
+    }
+
+    /**
+     * @return the cache of the event source with its load latency and hit and miss counts, or null if there is no source
+     */
+    public EventSourceCache getEventSourceCache() {
+        return eventSourceCache;
+    }
+
+    // Shows the cached markers of the source or loads them, returns the number of markers shown
+    private int showEventSourceMonth() {
+        if (eventSourceCache == null) {
+            return 0;
+        }
+
+        MonthDecorations monthDecorations = eventSourceCache.get(monthGrid.getYear(), monthGrid.getMonth());
+        if (monthDecorations != null) {
+            return showMonthDecorations(monthDecorations);
+        }
+
+        eventSourceCache.load(monthGrid.getYear(), monthGrid.getMonth(), onMonthLoadedListener);
+        return 0;
+    }
+
+    private final EventSourceCache.OnMonthLoadedListener onMonthLoadedListener = new EventSourceCache.OnMonthLoadedListener() {
+        @Override
+        public void onMonthLoaded(int year, int month, MonthDecorations monthDecorations) {
+            // The markers of the source are not in the version of the store, a snapshot of the month taken before the load lacks them
+            snapshotCache.clear();
+            // The user may have moved to another month while it was loading
+            if (monthGrid != null && monthGrid.getYear() == year && monthGrid.getMonth() == month) {
+                showMonthDecorations(monthDecorations);
+            }
+        }
+
+        @Override
+        public void onMonthLoadFailed(int year, int month, Exception exception) {
+            if (metricsListener != null) {
+                metricsListener.onDebugMessage("Error loading the events of " + year + "-" + (month + 1) + ": " + exception);
+            }
+        }
+    };
+
+    /**
+     * @return the layout of the displayed month
+     */
+    public MonthGrid getMonthGrid() {
+        return monthGrid;
     }
 
     public void markDayAsCurrentDay(Date currentDate) {
         if (currentDate != null) {
-            lastCurrentDay = currentDate;
-            Calendar currentCalendar = getCurrentCalendar();
-            currentCalendar.setTime(currentDate);
-            TextView dayOfMonth = getDayOfMonthText(currentCalendar);
-            //讓那一天有圓圈圈框住
-            ViewGroup dayOfMonthBackground = getDayOfMonthBackground(currentCalendar);
-            dayOfMonthBackground.setBackgroundResource(R.drawable.circle);
-            dayOfMonth.setTextColor(context.getResources().getColor(R.color.current_day_of_month)); //設定當天顏色
+            markDayAsCurrentDay(toEpochDay(currentDate));
+        }
+    }
+
+    /**
+     * Same as {@link #markDayAsCurrentDay(Date)} for an epoch day, see {@link MonthGrid}
+     */
+    public void markDayAsCurrentDay(int epochDay) {
+        onMark();
+        lastCurrentDay = epochDay;
+        if (timelineView != null) {
+            timelineView.setCurrentDay(epochDay);
+            return;
+        }
+        int index = monthGrid.getIndex(epochDay);
+        if (index == -1) {
+            return;
         }
+        //讓那一天有圓圈圈框住
+        setDayOfMonthBackground(index, MonthGridView.BACKGROUND_CIRCLE);
+        setDayOfMonthTextColor(index, calendarStyle.getColor(R.color.current_day_of_month)); //設定當天顏色
     }
 
     public void markDayAsSelectedDay(Date currentDate) {
+        markDayAsSelectedDay(toEpochDay(currentDate));
+    }
 
-        // Initialize attributes
-        Calendar currentCalendar = getCurrentCalendar();
-        currentCalendar.setTime(currentDate);
+    /**
+     * Same as {@link #markDayAsSelectedDay(Date)} for an epoch day, see {@link MonthGrid}
+     */
+    public void markDayAsSelectedDay(int epochDay) {
+        onMark();
 
         // Clear previous marks
         clearDayOfTheMonthStyle(lastSelectedDay);
 
-        markDayAsCurrentDay(lastCurrentDay);
+        if (lastCurrentDay != NO_DAY) {
+            markDayAsCurrentDay(lastCurrentDay);
+        }
 
         // Store current values as last values
-        storeLastValues(currentDate);
+        storeLastValues(epochDay);
 
         // Mark current day as selected
-        ViewGroup dayOfMonthBackground = getDayOfMonthBackground(currentCalendar);
-        dayOfMonthBackground.setBackgroundResource(R.drawable.circle);
+        int index = getCellIndex(epochDay);
+        if (index != -1) {
+            setDayOfMonthBackground(index, MonthGridView.BACKGROUND_CIRCLE);
+        }
+    }
+
+    // A mark made outside a rebind changes what the snapshots show, and is not drawn again when the month is bound again
+    private void onMark() {
+        if (!markingOnBind) {
+            contentVersion++;
+            transientMarks = true;
+        }
     }
 
-    private void storeLastValues(Date currentDate) {
-        lastSelectedDay = currentDate;
+    private void storeLastValues(int epochDay) {
+        lastSelectedDay = epochDay;
     }
 
     public void markFirstUnderlineWithStyle(int style, Date currentDate) {
-        Locale locale = context.getResources().getConfiguration().locale;
-        Calendar currentCalendar = Calendar.getInstance(locale);
-        currentCalendar.setTime(currentDate);
-        View underline = getFirstUnderline(currentCalendar);
+        markFirstUnderlineWithStyle(style, toEpochDay(currentDate));
+    }
+
+    /**
+     * Same as {@link #markFirstUnderlineWithStyle(int, Date)} for an epoch day, see {@link MonthGrid}
+     */
+    public void markFirstUnderlineWithStyle(int style, int epochDay) {
+        onMark();
+        int index = getCellIndex(epochDay);
+        if (index == -1) {
+            return;
+        }
 
         // Draw day with style
-        underline.setVisibility(View.VISIBLE);
-        underline.setBackgroundResource(style);
+        showFirstUnderline(index, style);
     }
 
     public void markSecondUnderlineWithStyle(int style, Date currentDate) {
-        Locale locale = context.getResources().getConfiguration().locale;
-        Calendar currentCalendar = Calendar.getInstance(locale);
-        currentCalendar.setTime(currentDate);
-        View underline = getSecondUnderline(currentCalendar);
+        markSecondUnderlineWithStyle(style, toEpochDay(currentDate));
+    }
+
+    /**
+     * Same as {@link #markSecondUnderlineWithStyle(int, Date)} for an epoch day, see {@link MonthGrid}
+     */
+    public void markSecondUnderlineWithStyle(int style, int epochDay) {
+        onMark();
+        int index = getCellIndex(epochDay);
+        if (index == -1) {
+            return;
+        }
 
         // Draw day with style
-        underline.setVisibility(View.VISIBLE);
-        underline.setBackgroundResource(style);
+        showSecondUnderline(index, style);
     }
 
     // ************************************************************************************************************************************************************************
-    // * Public interface
+    // * Selection methods
     // ************************************************************************************************************************************************************************
 
-    public interface RobotoCalendarListener {
-
+    /**
+     * @param selectionMode {@link #SELECTION_MODE_SINGLE}, {@link #SELECTION_MODE_MULTIPLE} or {@link #SELECTION_MODE_RANGE}, the selection is cleared
+     */
+    public void setSelectionMode(int selectionMode) {
+        if (selectionMode < SELECTION_MODE_SINGLE || selectionMode > SELECTION_MODE_RANGE) {
+            throw new IllegalArgumentException("Invalid selection mode: " + selectionMode);
+        }
+        clearSelection();
+        this.selectionMode = selectionMode;
+    }
+
+    public int getSelectionMode() {
+        return selectionMode;
+    }
+
+    /**
+     * @return the selected days of the multiple and range modes, call {@link #showSelection()} after changing them
+     */
+    public DaySelection getDaySelection() {
+        return daySelection;
+    }
+
+    /**
+     * Selects the days from the first to the last one as a range, no {@link OnSelectionChangedListener} is called
+     */
+    public void selectRange(int firstEpochDay, int lastEpochDay) {
+        daySelection.clear();
+        daySelection.addRange(firstEpochDay, lastEpochDay);
+        rangeAnchor = NO_DAY;
+        snapshotCache.clear();
+        showSelection();
+    }
+
+    public void clearSelection() {
+        daySelection.clear();
+        rangeAnchor = NO_DAY;
+        snapshotCache.clear();
+        showSelection();
+    }
+
+    /**
+     * Draws the selection on the days of the displayed month, only the days of the month are read from the selection whatever its size
+     */
+    public void showSelection() {
+        if (selectionMode == SELECTION_MODE_SINGLE || monthGrid == null || timelineView != null) {
+            return;
+        }
+
+        int firstEpochDay = monthGrid.getFirstEpochDay();
+        int daysInMonth = monthGrid.getDaysInMonth();
+        int leadingDays = monthGrid.getLeadingDays();
+        int mask = daySelection.getMask(firstEpochDay, daysInMonth);
+        boolean previousSelected = daySelection.contains(firstEpochDay - 1);
+
+        for (int day = 0; day < daysInMonth; day++) {
+            boolean selected = (mask & (1 << day)) != 0;
+            boolean nextSelected = day + 1 < daysInMonth ? (mask & (1 << (day + 1))) != 0 : daySelection.contains(firstEpochDay + daysInMonth);
+
+            int state;
+            if (!selected) {
+                state = MonthGridView.SELECTION_NONE;
+            } else if (selectionMode != SELECTION_MODE_RANGE || !previousSelected && !nextSelected) {
+                state = MonthGridView.SELECTION_SINGLE;
+            } else if (previousSelected && nextSelected) {
+                state = MonthGridView.SELECTION_RANGE_MIDDLE;
+            } else {
+                state = previousSelected ? MonthGridView.SELECTION_RANGE_END : MonthGridView.SELECTION_RANGE_START;
+            }
+
+            setDayOfMonthSelection(leadingDays + day, state, firstEpochDay + day == lastCurrentDay);
+            previousSelected = selected;
+        }
+    }
+
+    // A click toggles the day in the multiple mode, in the range mode it starts a range or ends the started one
+    private void updateSelection(int epochDay) {
+        int firstEpochDay = epochDay;
+        int lastEpochDay = epochDay;
+
+        if (selectionMode == SELECTION_MODE_MULTIPLE) {
+            daySelection.toggle(epochDay);
+        } else if (rangeAnchor == NO_DAY) {
+            daySelection.clear();
+            daySelection.add(epochDay);
+            rangeAnchor = epochDay;
+        } else {
+            firstEpochDay = Math.min(rangeAnchor, epochDay);
+            lastEpochDay = Math.max(rangeAnchor, epochDay);
+            daySelection.clear();
+            daySelection.addRange(firstEpochDay, lastEpochDay);
+            rangeAnchor = NO_DAY;
+        }
+
+        // The snapshots of the other months may show days of the selection
+        snapshotCache.clear();
+        showSelection();
+        if (onSelectionChangedListener != null) {
+            onSelectionChangedListener.onSelectionChanged(daySelection, firstEpochDay, lastEpochDay);
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Heatmap methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Shades every day of the displayed months by its count in the histogram, on a scale up to the highest count of the month. The shade is drawn
+     * behind the selection and the markers.
+     *
+     * @param heatmap counts in the time zone of the calendar, null removes the shades
+     */
+    public void setHeatmap(DayHistogram heatmap) {
+        this.heatmap = heatmap;
+        snapshotCache.clear();
+        if (monthGrid != null && timelineView == null) {
+            showHeatmap();
+        }
+    }
+
+    public DayHistogram getHeatmap() {
+        return heatmap;
+    }
+
+    private void showHeatmap() {
+        int firstEpochDay = monthGrid.getFirstEpochDay();
+        int maxCount = heatmap != null ? heatmap.getMaxCount(firstEpochDay, monthGrid.getLastEpochDay()) : 0;
+        for (int dayOfMonth = 1; dayOfMonth <= monthGrid.getDaysInMonth(); dayOfMonth++) {
+            int level = heatmap != null ? DayHistogram.getShadeLevel(heatmap.getCount(firstEpochDay + dayOfMonth - 1), maxCount, HEAT_COLORS.length) : 0;
+            setDayOfMonthShade(monthGrid.getIndexOfDayOfMonth(dayOfMonth), level);
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Queued calendar methods, they can be called from any thread
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Queues {@link #markDayAsCurrentDay(Date)}. Queued changes are merged and applied together on the next frame.
+     */
+    public void postDayAsCurrentDay(Date currentDate) {
+        updateQueue.post(CalendarUpdateQueue.KIND_CURRENT_DAY, toEpochDay(currentDate), 0);
+    }
+
+    public void postDayAsCurrentDay(int epochDay) {
+        updateQueue.post(CalendarUpdateQueue.KIND_CURRENT_DAY, epochDay, 0);
+    }
+
+    /**
+     * Queues {@link #markDayAsSelectedDay(Date)}, only the last selected day posted before the next frame is applied
+     */
+    public void postDayAsSelectedDay(Date currentDate) {
+        updateQueue.post(CalendarUpdateQueue.KIND_SELECTED_DAY, toEpochDay(currentDate), 0);
+    }
+
+    public void postDayAsSelectedDay(int epochDay) {
+        updateQueue.post(CalendarUpdateQueue.KIND_SELECTED_DAY, epochDay, 0);
+    }
+
+    /**
+     * Queues {@link #markFirstUnderlineWithStyle(int, Date)}, only the last style posted for the same day before the next frame is applied
+     */
+    public void postFirstUnderlineWithStyle(int style, Date currentDate) {
+        updateQueue.post(CalendarUpdateQueue.KIND_FIRST_UNDERLINE, toEpochDay(currentDate), style);
+    }
+
+    public void postFirstUnderlineWithStyle(int style, int epochDay) {
+        updateQueue.post(CalendarUpdateQueue.KIND_FIRST_UNDERLINE, epochDay, style);
+    }
+
+    /**
+     * Queues {@link #markSecondUnderlineWithStyle(int, Date)}, only the last style posted for the same day before the next frame is applied
+     */
+    public void postSecondUnderlineWithStyle(int style, Date currentDate) {
+        updateQueue.post(CalendarUpdateQueue.KIND_SECOND_UNDERLINE, toEpochDay(currentDate), style);
+    }
+
+    public void postSecondUnderlineWithStyle(int style, int epochDay) {
+        updateQueue.post(CalendarUpdateQueue.KIND_SECOND_UNDERLINE, epochDay, style);
+    }
+
+    /**
+     * Switches between the inflated day views, the canvas drawn {@link MonthGridView} and the {@link TimelineView} of a week or a day. The displayed
+     * month, current day and selected day are kept, underline marks have to be applied again as after {@link #initializeCalendar(Calendar)}. The
+     * week and day modes show the week or the day of the calendar given to {@link #initializeCalendar(Calendar)}, the arrows still call the
+     * {@link RobotoCalendarListener}, see {@link #getNavigationField()}.
+     *
+     * @param renderMode {@link #RENDER_MODE_VIEWS}, {@link #RENDER_MODE_CANVAS}, {@link #RENDER_MODE_PAGER}, {@link #RENDER_MODE_WEEK} or
+     *                   {@link #RENDER_MODE_DAY}
+     */
+    public void setRenderMode(int renderMode) {
+        if (this.renderMode == renderMode) {
+            return;
+        }
+
+        this.renderMode = renderMode;
+        Calendar displayedCalendar = currentCalendar;
+
+        finishMonthTransition();
+        removeAllViews();
+        Arrays.fill(dayOfMonthCells, null);
+        Arrays.fill(weekRows, null);
+        dayGridBuilder = null;
+        daysContainer = null;
+        monthGridView = null;
+        monthPagerView = null;
+        timelineView = null;
+        monthTransitionView = null;
+        pendingTransition = null;
+        snapshotCache.clear();
+        boundTitle = null;
+        boundWeekDaysLocale = null;
+        boundWeekRows = 0;
+        onCreateView();
+
+        if (displayedCalendar != null) {
+            initializeCalendar(displayedCalendar);
+        }
+        if (lastCurrentDay != NO_DAY) {
+            markDayAsCurrentDay(lastCurrentDay);
+        }
+        if (lastSelectedDay != NO_DAY) {
+            markDayAsSelectedDay(lastSelectedDay);
+        }
+    }
+
+    public int getRenderMode() {
+        return renderMode;
+    }
+
+    /**
+     * @return the {@link Calendar} field the host moves by one on an arrow click: {@link Calendar#MONTH}, {@link Calendar#WEEK_OF_YEAR} in the week
+     * mode or {@link Calendar#DAY_OF_MONTH} in the day mode
+     */
+    public int getNavigationField() {
+        switch (renderMode) {
+            case RENDER_MODE_WEEK:
+                return Calendar.WEEK_OF_YEAR;
+            case RENDER_MODE_DAY:
+                return Calendar.DAY_OF_MONTH;
+            default:
+                return Calendar.MONTH;
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Today methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Sets the clock today is read from, by default the system clock
+     */
+    public void setClock(CalendarToday.Clock clock) {
+        today = new CalendarToday(clock, today.getTimeZone());
+        refreshToday();
+    }
+
+    public CalendarToday.Clock getClock() {
+        return today.getClock();
+    }
+
+    /**
+     * @return today in the time zone of the calendar, as an epoch day, see {@link MonthGrid}
+     */
+    public int getTodayEpochDay() {
+        return today.getEpochDay();
+    }
+
+    /**
+     * When tracked, today is marked by the calendar instead of with {@link #markDayAsCurrentDay(Date)}, and its mark is moved at midnight and
+     * when the clock, the time zone or the locale of the device change
+     */
+    public void setTodayTracked(boolean todayTracked) {
+        this.todayTracked = todayTracked;
+        if (todayTracked && monthGrid != null && lastCurrentDay != today.getEpochDay()) {
+            moveCurrentDay(today.getEpochDay());
+        }
+    }
+
+    public boolean isTodayTracked() {
+        return todayTracked;
+    }
+
+    /**
+     * Reads today again and, if it changed, updates the title and the cells of the previous and the new day only
+     */
+    public void refreshToday() {
+        if (monthGrid == null) {
+            return;
+        }
+        int epochDay = today.getEpochDay();
+        initializeTitleLayout();
+        if (todayTracked && epochDay != lastCurrentDay) {
+            moveCurrentDay(epochDay);
+        }
+
+        removeCallbacks(dayChangeRunnable);
+        if (attachedToWindow) {
+            postDelayed(dayChangeRunnable, today.getMillisToNextDay());
+        }
+    }
+
+    private void moveCurrentDay(int epochDay) {
+        int previousDay = lastCurrentDay;
+        finishMonthTransition();
+        snapshotCache.clear();
+
+        if (previousDay != NO_DAY) {
+            int index = getCellIndex(previousDay);
+            if (index != -1) {
+                setDayOfMonthBackground(index, MonthGridView.BACKGROUND_NONE);
+                setDayOfMonthTextColor(index, calendarStyle.getColor(dayOfMonthColor));
+            }
+        }
+        markDayAsCurrentDay(epochDay);
+
+        // The selection may have been drawn on the previous day
+        if (selectionMode != SELECTION_MODE_SINGLE) {
+            showSelection();
+        } else if (lastSelectedDay != NO_DAY && lastSelectedDay == previousDay) {
+            markDayAsSelectedDay(lastSelectedDay);
+        }
+    }
+
+    private final Runnable dayChangeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            refreshToday();
+        }
+    };
+
+    private final BroadcastReceiver clockReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (Intent.ACTION_TIMEZONE_CHANGED.equals(intent.getAction()) && followsDefaultTimeZone && currentCalendar != null) {
+                // The displayed calendar is in the zone of the device, it moves with it so rebinds keep the new zone
+                timeZone = TimeZone.getDefault();
+                currentCalendar.setTimeZone(timeZone);
+                today.setTimeZone(timeZone);
+            }
+            if (Intent.ACTION_LOCALE_CHANGED.equals(intent.getAction())) {
+                // Not every locale change reaches onConfigurationChanged, the title and the headers would keep the symbols of the old locale
+                rebindLocale(getResources().getConfiguration().locale);
+            }
+            refreshToday();
+        }
+    };
+
+    // ************************************************************************************************************************************************************************
+    // * Timeline methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Sets the timed events drawn by the week and day modes, the list is kept. Set it again after changing it.
+     */
+    public void setTimelineEvents(List<TimelineEvent> timelineEvents) {
+        this.timelineEvents = timelineEvents;
+        if (timelineView != null) {
+            timelineView.setEvents(timelineEvents);
+        }
+    }
+
+    public List<TimelineEvent> getTimelineEvents() {
+        return timelineEvents;
+    }
+
+    /**
+     * @return the timeline of the week and day modes, to scroll it to an hour, or null in the other modes
+     */
+    public TimelineView getTimelineView() {
+        return timelineView;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Render cost methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Starts recording the measure and layout passes, inflations, tag searches, view mutations and allocations of the calendar, for a scenario
+     * whose {@link RenderCost} is then checked against a {@link RenderBudget}. Allocations are counted for the calling thread, call it on the UI
+     * thread.
+     */
+    @SuppressWarnings("deprecation")
+    public void startRenderCostRecording() {
+        RenderCost start = new RenderCost();
+        start.measurePasses = measurePassCount;
+        start.layoutPasses = layoutPassCount;
+        start.layoutRequests = layoutRequestCount;
+        start.inflations = inflationCount;
+        start.tagSearches = tagSearchCount;
+        start.viewMutations = viewMutationCount;
+        renderCostStart = start;
+
+        Debug.resetThreadAllocCount();
+        Debug.resetThreadAllocSize();
+        Debug.startAllocCounting();
+    }
+
+    /**
+     * @return the cost since {@link #startRenderCostRecording()}, with the number of views of the calendar at this point
+     */
+    @SuppressWarnings("deprecation")
+    public RenderCost stopRenderCostRecording() {
+        RenderCost start = renderCostStart;
+        if (start == null) {
+            throw new IllegalStateException("The render cost is not being recorded");
+        }
+        renderCostStart = null;
+
+        Debug.stopAllocCounting();
+        RenderCost cost = new RenderCost();
+        cost.allocations = Debug.getThreadAllocCount();
+        cost.allocatedBytes = Debug.getThreadAllocSize();
+        cost.measurePasses = measurePassCount - start.measurePasses;
+        cost.layoutPasses = layoutPassCount - start.layoutPasses;
+        cost.layoutRequests = layoutRequestCount - start.layoutRequests;
+        cost.inflations = inflationCount - start.inflations;
+        cost.tagSearches = tagSearchCount - start.tagSearches;
+        cost.viewMutations = viewMutationCount - start.viewMutations;
+        cost.viewCount = getViewCount();
+        return cost;
+    }
+
+    /**
+     * @return the cost since the calendar was created, without allocations, for the scenarios that start with its construction
+     */
+    RenderCost getRenderCostSinceCreation() {
+        RenderCost cost = new RenderCost();
+        cost.measurePasses = measurePassCount;
+        cost.layoutPasses = layoutPassCount;
+        cost.layoutRequests = layoutRequestCount;
+        cost.inflations = inflationCount;
+        cost.tagSearches = tagSearchCount;
+        cost.viewMutations = viewMutationCount;
+        cost.viewCount = getViewCount();
+        return cost;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Month transition methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Slides the new month in when {@link #initializeCalendar(Calendar)} changes the month, or the week or day in the week and day modes. The
+     * outgoing and incoming months are drawn once into bitmaps, kept in the {@link MonthSnapshotCache}, and the bitmaps are moved in a hardware
+     * layer, so no day is laid out nor drawn again while they move. Needs API 12, it is ignored in {@link #RENDER_MODE_PAGER}.
+     */
+    public void setMonthTransitionEnabled(boolean monthTransition) {
+        this.monthTransition = monthTransition;
+        if (!monthTransition) {
+            finishMonthTransition();
+            snapshotCache.clear();
+        }
+    }
+
+    public boolean isMonthTransitionEnabled() {
+        return monthTransition;
+    }
+
+    /**
+     * @return the snapshots of the last months shown, to read its statistics or change its size
+     */
+    public MonthSnapshotCache getSnapshotCache() {
+        return snapshotCache;
+    }
+
+    private boolean isMonthTransitionReady() {
+        return monthTransition && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1 && renderMode != RENDER_MODE_PAGER && monthGrid != null
+                && contentView != null && contentView.getWidth() > 0 && contentView.getHeight() > 0 && isShown();
+    }
+
+    // The month of the month modes, the first shown day of the week and day modes
+    private int getSnapshotKey(Calendar calendar) {
+        return timelineView != null ? getTimelineFirstEpochDay(calendar) : calendar.get(Calendar.YEAR) * 12 + calendar.get(Calendar.MONTH);
+    }
+
+    private int getDisplayedSnapshotKey() {
+        return timelineView != null ? timelineView.getFirstEpochDay() : monthGrid.getYear() * 12 + monthGrid.getMonth();
+    }
+
+    // Both versions only increase, so their sum changes with any of them
+    private int getSnapshotVersion() {
+        return decorationStore.getVersion() + contentVersion;
+    }
+
+    // Draws the content as it is into a bitmap and caches it, returns null if there is no memory for it
+    private Bitmap captureSnapshot(int key) {
+        int width = contentView.getWidth();
+        int height = contentView.getHeight();
+        Bitmap bitmap = snapshotCache.obtain(key, width, height);
+        try {
+            if (bitmap == null) {
+                bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            } else {
+                bitmap.eraseColor(Color.TRANSPARENT);
+            }
+        } catch (OutOfMemoryError e) {
+            snapshotCache.clear();
+            return null;
+        }
+
+        contentView.draw(new Canvas(bitmap));
+        snapshotCache.put(key, getSnapshotVersion(), bitmap);
+        return bitmap;
+    }
+
+    // The content is hidden under the strip from now on, the strip starts moving once the incoming month is drawn
+    private void startMonthTransition(Bitmap outgoing, final int incomingKey, final int direction) {
+        if (monthTransitionView == null) {
+            monthTransitionView = new MonthTransitionView(context);
+            addView(monthTransitionView, new LinearLayout.LayoutParams(LayoutParams.MATCH_PARENT, 0));
+        }
+
+        Bitmap incoming = snapshotCache.get(incomingKey, getSnapshotVersion());
+        monthTransitionView.setSnapshots(outgoing, incoming, direction);
+        monthTransitionView.layoutOver(contentView);
+        contentView.setVisibility(INVISIBLE);
+
+        if (incoming != null) {
+            animateMonthTransition(direction);
+            return;
+        }
+
+        // The incoming month is drawn after the layout of its rows, before the first frame shows it
+        final Bitmap outgoingSnapshot = outgoing;
+        pendingTransition = new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                getViewTreeObserver().removeOnPreDrawListener(this);
+                pendingTransition = null;
+                Bitmap incoming = captureSnapshot(incomingKey);
+                if (incoming == null) {
+                    finishMonthTransition();
+                    return true;
+                }
+                monthTransitionView.setSnapshots(outgoingSnapshot, incoming, direction);
+                monthTransitionView.layoutOver(contentView);
+                animateMonthTransition(direction);
+                return true;
+            }
+        };
+        getViewTreeObserver().addOnPreDrawListener(pendingTransition);
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB_MR1)
+    private void animateMonthTransition(int direction) {
+        ViewPropertyAnimator animator = monthTransitionView.animate()
+                .translationX(-direction * contentView.getWidth())
+                .setDuration(TRANSITION_DURATION)
+                .setListener(monthTransitionListener);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            withLayer(animator);
+        } else {
+            monthTransitionView.setLayerType(LAYER_TYPE_HARDWARE, null);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static void withLayer(ViewPropertyAnimator animator) {
+        animator.withLayer();
+    }
+
+    private final AnimatorListenerAdapter monthTransitionListener = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            endMonthTransition();
+        }
+    };
+
+    // Jumps to the end of a running transition
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB_MR1)
+    private void finishMonthTransition() {
+        if (pendingTransition != null) {
+            getViewTreeObserver().removeOnPreDrawListener(pendingTransition);
+            pendingTransition = null;
+        }
+        if (monthTransitionView != null && monthTransitionView.hasSnapshots()) {
+            // The listener ends the transition
+            monthTransitionView.animate().cancel();
+            endMonthTransition();
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB_MR1)
+    private void endMonthTransition() {
+        if (monthTransitionView == null || !monthTransitionView.hasSnapshots()) {
+            return;
+        }
+        monthTransitionView.setSnapshots(null, null, 0);
+        monthTransitionView.setTranslationX(0);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            monthTransitionView.setLayerType(LAYER_TYPE_NONE, null);
+        }
+        contentView.setVisibility(VISIBLE);
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Pager methods
+    // ************************************************************************************************************************************************************************
+
+    // Makes the page that already shows the month the current one, returns true if its days and markers can be shown as they are
+    private boolean showPreparedPage() {
+        // The pages may show a different number of week rows, the current one is written again if it is bound
+        boundWeekRows = 0;
+
+        int direction;
+        if (monthGrid.equals(monthPagerView.getPageMonth(MonthPagerView.PAGE_CURRENT))) {
+            direction = 0;
+        } else if (monthGrid.equals(monthPagerView.getPageMonth(MonthPagerView.PAGE_NEXT))) {
+            direction = 1;
+        } else if (monthGrid.equals(monthPagerView.getPageMonth(MonthPagerView.PAGE_PREVIOUS))) {
+            direction = -1;
+        } else {
+            // From now on the page gets the marks of the host, it can not be reused as it is
+            monthPagerView.setPageMonth(MonthPagerView.PAGE_CURRENT, null, 0);
+            return false;
+        }
+
+        boolean ready = monthPagerView.getPageVersion(MonthPagerView.PAGE_CURRENT + direction) == decorationStore.getVersion();
+        monthPagerView.showAdjacentPage(direction);
+        monthGridView = monthPagerView.getPage(MonthPagerView.PAGE_CURRENT);
+        monthPagerView.setPageMonth(MonthPagerView.PAGE_CURRENT, null, 0);
+        return ready;
+    }
+
+    // Builds the models of the previous and next months and expands their markers on the prefetch thread, they are bound to their pages when ready
+    private void prefetchAdjacentPages() {
+        final int version = decorationStore.getVersion();
+        final int firstDayOfWeek = monthGrid.getFirstDayOfWeek();
+
+        for (int direction = -1; direction <= 1; direction += 2) {
+            final int position = MonthPagerView.PAGE_CURRENT + direction;
+            MonthGrid pageMonth = monthPagerView.getPageMonth(position);
+            if (isAdjacentMonth(pageMonth, direction) && monthPagerView.getPageVersion(position) == version) {
+                continue;
+            }
+
+            int months = monthGrid.getYear() * 12 + monthGrid.getMonth() + direction;
+            final int year = months / 12;
+            final int month = months % 12;
+
+            // The store is only read on the UI thread, the prefetch thread gets a copy of the marked days and the rules and expands them
+            final DecorationStore.MonthExpansion monthExpansion = decorationStore.getMonthExpansion(year, month);
+
+            getPrefetchExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    final MonthPage monthPage = new MonthPage(MonthGridCache.get(year, month, firstDayOfWeek), monthExpansion.expand(), version);
+                    post(new Runnable() {
+                        @Override
+                        public void run() {
+                            bindPage(position, monthPage);
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    private void bindPage(int position, MonthPage monthPage) {
+        // Skip pages of a month that is no longer adjacent
+        if (monthPagerView == null || !isAdjacentMonth(monthPage.monthGrid, position - MonthPagerView.PAGE_CURRENT)) {
+            return;
+        }
+
+        MonthGrid pageMonth = monthPage.monthGrid;
+        MonthGridView page = monthPagerView.getPage(position);
+        page.bindMonth(pageMonth, calendarStyle.getColor(dayOfMonthColor));
+        for (int i = pageMonth.getLeadingDays(), day = 1; day <= pageMonth.getDaysInMonth(); i++, day++) {
+            if (monthPage.firstUnderlineStyles[i] != 0) {
+                page.setFirstUnderline(i, true, calendarStyle.getColor(monthPage.firstUnderlineStyles[i]));
+            }
+            if (monthPage.secondUnderlineStyles[i] != 0) {
+                page.setSecondUnderline(i, true, calendarStyle.getColor(monthPage.secondUnderlineStyles[i]));
+            }
+        }
+        monthPagerView.setPageMonth(position, pageMonth, monthPage.decorationsVersion);
+    }
+
+    private boolean isAdjacentMonth(MonthGrid pageMonth, int direction) {
+        return pageMonth != null
+                && pageMonth.getYear() * 12 + pageMonth.getMonth() == monthGrid.getYear() * 12 + monthGrid.getMonth() + direction
+                && pageMonth.getFirstDayOfWeek() == monthGrid.getFirstDayOfWeek();
+    }
+
+    private static synchronized ExecutorService getPrefetchExecutor() {
+        if (prefetchExecutor == null) {
+            prefetchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "RobotoCalendarPrefetch");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        }
+        return prefetchExecutor;
+    }
+
+    // A swipe moved the pager, the host moves the calendar as for the arrow buttons
+    private void onMonthPageChanged(int direction) {
+        monthGridView = monthPagerView.getPage(MonthPagerView.PAGE_CURRENT);
+
+        if (robotoCalendarListener == null) {
+            throw new IllegalStateException("You must assing a valid RobotoCalendarListener first!");
+        }
+
+        if (direction > 0) {
+            robotoCalendarListener.onRightButtonClick();
+        } else {
+            robotoCalendarListener.onLeftButtonClick();
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * State methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Saves the displayed month, the current and selected days, the selection and the {@link DecorationStore}. Markers shown with the mark and
+     * post methods are not saved, they are applied again by the host as after {@link #initializeCalendar(Calendar)}. The view needs an id.
+     */
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        Parcelable superState = super.onSaveInstanceState();
+        if (monthGrid == null) {
+            return superState;
+        }
+
+        CalendarStateCodec.CalendarState state = new CalendarStateCodec.CalendarState();
+        state.year = monthGrid.getYear();
+        state.month = monthGrid.getMonth();
+        state.firstDayOfWeek = monthGrid.getFirstDayOfWeek();
+        state.currentDay = lastCurrentDay;
+        state.selectedDay = lastSelectedDay;
+        state.selectionMode = selectionMode;
+        state.rangeAnchor = rangeAnchor;
+        state.daySelection = daySelection;
+        state.decorationStore = decorationStore;
+        return new SavedState(superState, CalendarStateCodec.encode(state));
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+
+        long start = metricsListener != null ? System.nanoTime() : 0;
+        CalendarStateCodec.CalendarState calendarState = new CalendarStateCodec.CalendarState();
+        calendarState.daySelection = daySelection;
+        calendarState.decorationStore = decorationStore;
+        CalendarStateCodec.decode(savedState.data, calendarState);
+
+        lastCurrentDay = calendarState.currentDay;
+        lastSelectedDay = calendarState.selectedDay;
+        selectionMode = calendarState.selectionMode;
+        rangeAnchor = calendarState.rangeAnchor;
+
+        Calendar calendar = Calendar.getInstance(timeZone, locale);
+        calendar.setFirstDayOfWeek(calendarState.firstDayOfWeek);
+        calendar.set(calendarState.year, calendarState.month, 1);
+
+        // One rebind shows the month, the markers, the selection and the marked days
+        markLastDaysOnRebind = true;
+        initializeCalendar(calendar);
+
+        if (metricsListener != null) {
+            metricsListener.onDebugMessage("Restored " + savedState.data.length + " bytes in " + (System.nanoTime() - start) + " ns");
+        }
+    }
+
+    // Saved state of the calendar, the binary form written by CalendarStateCodec
+    static class SavedState extends BaseSavedState {
+
+        final byte[] data;
+
+        SavedState(Parcelable superState, byte[] data) {
+            super(superState);
+            this.data = data;
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            data = in.createByteArray();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeByteArray(data);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Public interface
+    // ************************************************************************************************************************************************************************
+
+    public interface RobotoCalendarListener {
+
         void onDateSelected(Date date);
 
         void onRightButtonClick();
@@ -495,6 +2011,100 @@ public class RobotoCalendarView extends LinearLayout {
         this.robotoCalendarListener = robotoCalendarListener;
     }
 
+    /**
+     * Day selection reported as an epoch day, without creating a {@link Date} nor a {@link Calendar}
+     */
+    public interface OnEpochDaySelectedListener {
+
+        /**
+         * @param epochDay the selected day, see {@link MonthGrid#toPackedDate(int)} for its yyyymmdd form
+         */
+        void onEpochDaySelected(int epochDay);
+    }
+
+    /**
+     * It is called before {@link RobotoCalendarListener#onDateSelected(Date)}, a Date is only created if a {@link RobotoCalendarListener} is set
+     */
+    public void setOnEpochDaySelectedListener(OnEpochDaySelectedListener onEpochDaySelectedListener) {
+        this.onEpochDaySelectedListener = onEpochDaySelectedListener;
+    }
+
+    public interface OnSelectionChangedListener {
+
+        /**
+         * Called once per click in the multiple and range modes
+         *
+         * @param firstEpochDay first day of the toggled day or of the selected range
+         * @param lastEpochDay  last day of the toggled day or of the selected range, the same day when a range was just started
+         */
+        void onSelectionChanged(DaySelection daySelection, int firstEpochDay, int lastEpochDay);
+    }
+
+    public void setOnSelectionChangedListener(OnSelectionChangedListener onSelectionChangedListener) {
+        this.onSelectionChangedListener = onSelectionChangedListener;
+    }
+
+    public interface OnTimelineEventClickListener {
+
+        /**
+         * Called for a tap on an event of the week and day modes, a tap on the free time of a day selects the day as a tap on the month does
+         */
+        void onTimelineEventClick(TimelineEvent event);
+    }
+
+    public void setOnTimelineEventClickListener(OnTimelineEventClickListener onTimelineEventClickListener) {
+        this.onTimelineEventClickListener = onTimelineEventClickListener;
+    }
+
+    /**
+     * Installs a listener for the cost of rebinds and clicks and for the debug messages, null removes it
+     */
+    public void setCalendarMetricsListener(CalendarMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    @Override
+    public void requestLayout() {
+        super.requestLayout();
+        layoutRequestCount++;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        measurePassCount++;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+        layoutPassCount++;
+        // The strip covers the content instead of following it as the linear layout places it
+        if (monthTransitionView != null && monthTransitionView.hasSnapshots()) {
+            monthTransitionView.layoutOver(contentView);
+        }
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        // The click of a day is performed after the touch is released, its latency starts with the event
+        if (metricsListener != null && event.getAction() == MotionEvent.ACTION_UP) {
+            touchUpTime = event.getEventTime();
+        }
+        return super.dispatchTouchEvent(event);
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        if (timeToFirstDrawNanos < 0) {
+            timeToFirstDrawNanos = System.nanoTime() - createTime;
+            if (metricsListener != null) {
+                metricsListener.onFirstDraw(timeToFirstDrawNanos);
+            }
+        }
+    }
+
     // ************************************************************************************************************************************************************************
     // * Event handler methods
     // ************************************************************************************************************************************************************************
@@ -502,29 +2112,79 @@ public class RobotoCalendarView extends LinearLayout {
     private OnClickListener onDayOfMonthClickListener = new OnClickListener() {
         @Override
         public void onClick(View view) {
-            // Extract day selected
-            ViewGroup dayOfMonthContainer = (ViewGroup) view;
-            String tagId = (String) dayOfMonthContainer.getTag();
-            tagId = tagId.substring(DAY_OF_MONTH_CONTAINER.length(), tagId.length());
-            TextView dayOfMonthText = (TextView) view.findViewWithTag(DAY_OF_MONTH_TEXT + tagId);
+            // Extract day selected, 你所點選的日期
+            onDayOfMonthSelected(getDayOfMonthCell(view).index);
+        }
+    };
 
+    // The day comes from the epoch day table of the month grid, nothing is parsed back from the views
+    private void onDayOfMonthSelected(int index) {
+        onEpochDaySelected(monthGrid.getEpochDay(index));
+    }
+
+    private void onEpochDaySelected(int epochDay) {
+        CalendarMetricsListener metricsListener = this.metricsListener;
+        if (metricsListener != null) {
+            metricsListener.onDebugMessage("選取日期時間 = " + MonthGrid.toPackedDate(epochDay));
+        }
+
+        if (selectionMode != SELECTION_MODE_SINGLE) {
+            updateSelection(epochDay);
+        }
+
+        if (robotoCalendarListener == null && onEpochDaySelectedListener == null && onSelectionChangedListener == null) {
+            throw new IllegalStateException("You must assing a valid RobotoCalendarListener first!");
+        }
+
+        // Clicks without a touch, from a key or an accessibility service, are not measured
+        if (metricsListener != null && touchUpTime != NO_TOUCH) {
+            metricsListener.onDayOfMonthClick((SystemClock.uptimeMillis() - touchUpTime) * 1000000L);
+        }
+        touchUpTime = NO_TOUCH;
+
+        if (onEpochDaySelectedListener != null) {
+            onEpochDaySelectedListener.onEpochDaySelected(epochDay);
+        }
+
+        if (robotoCalendarListener != null) {
             // Fire event
             Calendar calendar = Calendar.getInstance();
             calendar.setTime(currentCalendar.getTime());
             //currentCalendar.getTime() 抓取現在時間
+            // The day of a week may be in another month
+            int packedDate = MonthGrid.toPackedDate(epochDay);
+            calendar.set(packedDate / 10000, packedDate / 100 % 100 - 1, packedDate % 100);
+
+            //傳直給主畫面
+            Date date = calendar.getTime();
+            robotoCalendarListener.onDateSelected(date);
+            if (metricsListener != null) {
+                metricsListener.onDebugMessage("點選事件觸發" + String.valueOf(date));
+            }
+        }
+    }
 
-            calendar.set(Calendar.DAY_OF_MONTH, Integer.valueOf(dayOfMonthText.getText().toString()));
-            //dayOfMonthText.getText().toString() 你所點選的日期
-            Log.i("", "選取日期時間 = " + dayOfMonthText.getText().toString());
-
-            if (robotoCalendarListener == null) {
-                throw new IllegalStateException("You must assing a valid RobotoCalendarListener first!");
-            } else {
-                //傳直給主畫面
-                robotoCalendarListener.onDateSelected(calendar.getTime());
-                Log.i("", "點選事件觸發" + String.valueOf(calendar.getTime()));
+    // Applies the changes of the update queue on the UI thread
+    private class UpdateQueueTarget implements CalendarUpdateQueue.Target {
 
+        @Override
+        public void apply(int kind, int epochDay, int style) {
+            switch (kind) {
+                case CalendarUpdateQueue.KIND_CURRENT_DAY:
+                    markDayAsCurrentDay(epochDay);
+                    break;
+                case CalendarUpdateQueue.KIND_SELECTED_DAY:
+                    markDayAsSelectedDay(epochDay);
+                    break;
+                case CalendarUpdateQueue.KIND_FIRST_UNDERLINE:
+                    markFirstUnderlineWithStyle(style, epochDay);
+                    break;
+                case CalendarUpdateQueue.KIND_SECOND_UNDERLINE:
+                    markSecondUnderlineWithStyle(style, epochDay);
+                    break;
+                default:
+                    break;
             }
         }
-    };
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+/**
+ * Timed event shown by the week and day modes of {@link RobotoCalendarView}
+ */
+public final class TimelineEvent {
+
+    private final long startMillis;
+    private final long endMillis;
+    private final String title;
+    private final int style;
+
+    /**
+     * @param startMillis the instant the event starts
+     * @param endMillis   the instant the event ends, excluded
+     * @param title       the text drawn in the event, or null
+     * @param style       a color resource such as {@link RobotoCalendarView#BLUE_COLOR}
+     */
+    public TimelineEvent(long startMillis, long endMillis, String title, int style) {
+        if (endMillis < startMillis) {
+            throw new IllegalArgumentException("The event ends before it starts: " + startMillis + " > " + endMillis);
+        }
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.title = title;
+        this.style = style;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getEndMillis() {
+        return endMillis;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getStyle() {
+        return style;
+    }
+}
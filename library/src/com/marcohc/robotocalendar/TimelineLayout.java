@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+/**
+ * Layout of overlapping timed events side by side in columns, the engine of {@link TimelineView}.
+ * <p/>
+ * The events are swept in order of start. A heap of the open columns ordered by the end of their last event frees the columns whose event ended,
+ * and a heap of the free column numbers gives each event the lowest free column, so n events are laid out in O(n log n). Events that overlap
+ * directly or through others form a cluster, every event of a cluster gets the width of one of its columns.
+ * <p/>
+ * Times can be in any unit, an event ending when another starts does not overlap it. An instance reuses its arrays from one layout to the next,
+ * it is not thread safe.
+ */
+public final class TimelineLayout {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int count;
+    private int[] order = new int[INITIAL_CAPACITY];
+    private int[] sortBuffer = new int[INITIAL_CAPACITY];
+    private int[] columns = new int[INITIAL_CAPACITY];
+    private int[] columnCounts = new int[INITIAL_CAPACITY];
+    private int maxColumnCount;
+
+    // Open columns by the end of their last event, and free column numbers
+    private final Heap openColumns = new Heap();
+    private final Heap freeColumns = new Heap();
+
+    // ************************************************************************************************************************************************************************
+    // * Layout methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Lays out the first count events, an event with no duration is laid out as lasting one unit
+     *
+     * @param starts start of each event
+     * @param ends   end of each event, excluded
+     */
+    public void layout(long[] starts, long[] ends, int count) {
+        if (count < 0 || count > starts.length || count > ends.length) {
+            throw new IllegalArgumentException("Invalid count: " + count);
+        }
+
+        this.count = count;
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        sort(starts, ends, 0, count);
+
+        openColumns.clear();
+        freeColumns.clear();
+        maxColumnCount = 0;
+        int clusterStart = 0;
+        int clusterColumns = 0;
+
+        for (int k = 0; k < count; k++) {
+            int event = order[k];
+            long start = starts[event];
+
+            // Columns whose last event ended are free again
+            while (openColumns.size > 0 && openColumns.peekKey() <= start) {
+                int column = openColumns.pop();
+                freeColumns.push(column, column);
+            }
+
+            // Nothing is open, the events before this one form a closed cluster
+            if (openColumns.size == 0) {
+                closeCluster(clusterStart, k, clusterColumns);
+                clusterStart = k;
+                clusterColumns = 0;
+                freeColumns.clear();
+            }
+
+            int column = freeColumns.size > 0 ? freeColumns.pop() : clusterColumns++;
+            columns[event] = column;
+            openColumns.push(getEnd(starts, ends, event), column);
+        }
+        closeCluster(clusterStart, count, clusterColumns);
+    }
+
+    private void closeCluster(int from, int to, int clusterColumns) {
+        for (int k = from; k < to; k++) {
+            columnCounts[order[k]] = clusterColumns;
+        }
+        maxColumnCount = Math.max(maxColumnCount, clusterColumns);
+    }
+
+    private static long getEnd(long[] starts, long[] ends, int event) {
+        return Math.max(ends[event], starts[event] + 1);
+    }
+
+    // Merge sort of the event indexes by start, the longest event first on equal starts so it gets the leftmost column
+    private void sort(long[] starts, long[] ends, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sort(starts, ends, from, middle);
+        sort(starts, ends, middle, to);
+        if (compare(starts, ends, order[middle - 1], order[middle]) <= 0) {
+            return;
+        }
+
+        System.arraycopy(order, from, sortBuffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int k = from; k < to; k++) {
+            if (right >= to || left < middle && compare(starts, ends, sortBuffer[left], sortBuffer[right]) <= 0) {
+                order[k] = sortBuffer[left++];
+            } else {
+                order[k] = sortBuffer[right++];
+            }
+        }
+    }
+
+    private static int compare(long[] starts, long[] ends, int first, int second) {
+        if (starts[first] != starts[second]) {
+            return starts[first] < starts[second] ? -1 : 1;
+        }
+        long firstEnd = getEnd(starts, ends, first);
+        long secondEnd = getEnd(starts, ends, second);
+        if (firstEnd != secondEnd) {
+            return firstEnd > secondEnd ? -1 : 1;
+        }
+        return first - second;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (order.length >= capacity) {
+            return;
+        }
+        int length = Math.max(capacity, order.length * 2);
+        order = new int[length];
+        sortBuffer = new int[length];
+        columns = new int[length];
+        columnCounts = new int[length];
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Getter methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * @return the number of events of the last layout
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the index of the k-th event in order of start
+     */
+    public int getOrder(int k) {
+        return order[k];
+    }
+
+    /**
+     * @return the 0 based column of the event
+     */
+    public int getColumn(int event) {
+        return columns[event];
+    }
+
+    /**
+     * @return the number of columns of the cluster of the event, the event takes one of them
+     */
+    public int getColumnCount(int event) {
+        return columnCounts[event];
+    }
+
+    /**
+     * @return the highest number of columns of a cluster, 0 with no events
+     */
+    public int getMaxColumnCount() {
+        return maxColumnCount;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Heap
+    // ************************************************************************************************************************************************************************
+
+    // Binary min heap of int values by long keys, growing as needed
+    private static final class Heap {
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        long peekKey() {
+            return keys[0];
+        }
+
+        void push(long key, int value) {
+            if (size == keys.length) {
+                long[] newKeys = new long[size * 2];
+                int[] newValues = new int[size * 2];
+                System.arraycopy(keys, 0, newKeys, 0, size);
+                System.arraycopy(values, 0, newValues, 0, size);
+                keys = newKeys;
+                values = newValues;
+            }
+
+            int child = size++;
+            while (child > 0) {
+                int parent = (child - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[child] = keys[parent];
+                values[child] = values[parent];
+                child = parent;
+            }
+            keys[child] = key;
+            values[child] = value;
+        }
+
+        int pop() {
+            int value = values[0];
+            long key = keys[--size];
+            int lastValue = values[size];
+
+            int parent = 0;
+            int half = size >>> 1;
+            while (parent < half) {
+                int child = 2 * parent + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (key <= keys[child]) {
+                    break;
+                }
+                keys[parent] = keys[child];
+                values[parent] = values[child];
+                parent = child;
+            }
+            keys[parent] = key;
+            values[parent] = lastValue;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,558 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.widget.Scroller;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Vertically scrolling timeline of one or more days, drawn on a canvas with a header of the days and a gutter of the hours.
+ * <p/>
+ * The timed events of every day are laid out side by side with a {@link TimelineLayout} when the days or the events change, so a scroll only
+ * draws. A draw only visits the hours and the events in sight.
+ */
+public class TimelineView extends View {
+
+    // ************************************************************************************************************************************************************************
+    // * Attributes
+    // ************************************************************************************************************************************************************************
+
+    private static final int HOURS_IN_DAY = 24;
+    private static final long MILLIS_PER_MINUTE = 60 * 1000;
+    // Shorter events are laid out and drawn with this length so they can be read and touched
+    private static final long MINIMUM_EVENT_MILLIS = 15 * MILLIS_PER_MINUTE;
+    private static final int NO_DAY = Integer.MIN_VALUE;
+
+    private static final float HEADER_TEXT_SIZE = 14;
+    private static final float HOUR_TEXT_SIZE = 12;
+    private static final float EVENT_TEXT_SIZE = 12;
+    private static final float EVENT_MARGIN = 1;
+    private static final float EVENT_PADDING = 4;
+
+    // Labels of the hour gutter, built once
+    private static final String[] HOUR_LABELS = new String[HOURS_IN_DAY];
+
+    static {
+        for (int hour = 0; hour < HOURS_IN_DAY; hour++) {
+            HOUR_LABELS[hour] = (hour < 10 ? "0" : "") + hour + ":00";
+        }
+    }
+
+    // Days
+    private int firstEpochDay;
+    private int days = 1;
+    private TimeZone timeZone = TimeZone.getDefault();
+    private String[] dayLabels = new String[0];
+    private int currentDay = NO_DAY;
+
+    // Events, and the laid out ones grouped by day in order of start
+    private List<TimelineEvent> events = Collections.emptyList();
+    private final TimelineLayout timelineLayout = new TimelineLayout();
+    private long[] starts = new long[0];
+    private long[] ends = new long[0];
+    private int[] dayEventOffsets = new int[2];
+    private TimelineEvent[] laidOutEvents = new TimelineEvent[0];
+    // Fractions of the day for the top and bottom, fractions of the column for the sides
+    private float[] eventTops = new float[0];
+    private float[] eventBottoms = new float[0];
+    private float[] eventLefts = new float[0];
+    private float[] eventRights = new float[0];
+
+    // Drawing
+    private final CalendarStyle calendarStyle;
+    private final float hourHeight;
+    private final float gutterWidth;
+    private final float headerHeight;
+    private final float eventMargin;
+    private final float eventPadding;
+    private final Paint hourLinePaint = new Paint();
+    private final Paint hourTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint headerTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint eventPaint = new Paint();
+    private final Paint eventTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final int dayLabelColor;
+    private final int currentDayLabelColor;
+
+    // Scroll, in pixels from midnight to the top of the visible hours
+    private float scrollOffset;
+    private final Scroller scroller;
+    private final int touchSlop;
+    private final int minimumFlingVelocity;
+    private final int maximumFlingVelocity;
+    private VelocityTracker velocityTracker;
+    private float downY;
+    private float lastY;
+    private boolean dragging;
+
+    private OnTimelineClickListener onTimelineClickListener;
+
+    // ************************************************************************************************************************************************************************
+    // * Initialization methods
+    // ************************************************************************************************************************************************************************
+
+    public TimelineView(Context context) {
+        this(context, null);
+    }
+
+    public TimelineView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+
+        calendarStyle = CalendarStyle.get(context);
+        Resources resources = context.getResources();
+        hourHeight = resources.getDimension(R.dimen.timeline_hour_height);
+        gutterWidth = resources.getDimension(R.dimen.timeline_gutter_width);
+        headerHeight = resources.getDimension(R.dimen.timeline_header_height);
+        eventMargin = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, EVENT_MARGIN, resources.getDisplayMetrics());
+        eventPadding = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, EVENT_PADDING, resources.getDisplayMetrics());
+
+        hourLinePaint.setStyle(Paint.Style.FILL);
+        hourLinePaint.setColor(calendarStyle.getColor(R.color.timeline_hour_line));
+
+        hourTextPaint.setTextAlign(Paint.Align.RIGHT);
+        hourTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, HOUR_TEXT_SIZE, resources.getDisplayMetrics()));
+        hourTextPaint.setColor(calendarStyle.getColor(R.color.day_of_month));
+
+        headerTextPaint.setTextAlign(Paint.Align.CENTER);
+        headerTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, HEADER_TEXT_SIZE, resources.getDisplayMetrics()));
+        dayLabelColor = calendarStyle.getColor(R.color.day_of_week_color);
+        currentDayLabelColor = calendarStyle.getColor(R.color.current_day_of_month);
+
+        eventPaint.setStyle(Paint.Style.FILL);
+
+        eventTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, EVENT_TEXT_SIZE, resources.getDisplayMetrics()));
+        eventTextPaint.setColor(calendarStyle.getColor(R.color.white));
+
+        // The layout editor does not load the fonts of the assets
+        if (!isInEditMode()) {
+            headerTextPaint.setTypeface(CalendarStyle.getTypeface(context, CalendarStyle.REGULAR_FONT));
+            hourTextPaint.setTypeface(CalendarStyle.getTypeface(context, CalendarStyle.LIGHT_FONT));
+            eventTextPaint.setTypeface(CalendarStyle.getTypeface(context, CalendarStyle.REGULAR_FONT));
+        }
+
+        scroller = new Scroller(context);
+        ViewConfiguration viewConfiguration = ViewConfiguration.get(context);
+        touchSlop = viewConfiguration.getScaledTouchSlop();
+        minimumFlingVelocity = viewConfiguration.getScaledMinimumFlingVelocity();
+        maximumFlingVelocity = viewConfiguration.getScaledMaximumFlingVelocity();
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Day and event methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Shows the days from the first epoch day, one column per day
+     *
+     * @param calendarSymbols the labels of the header, by day of the week
+     */
+    public void setDays(int firstEpochDay, int days, TimeZone timeZone, CalendarSymbols calendarSymbols) {
+        if (days < 1) {
+            throw new IllegalArgumentException("Invalid number of days: " + days);
+        }
+
+        this.firstEpochDay = firstEpochDay;
+        this.days = days;
+        this.timeZone = timeZone;
+
+        dayLabels = new String[days];
+        for (int day = 0; day < days; day++) {
+            int epochDay = firstEpochDay + day;
+            int column = MonthGrid.getColumn(MonthGrid.getDayOfWeekOfEpochDay(epochDay), calendarSymbols.getFirstDayOfWeek());
+            dayLabels[day] = calendarSymbols.getWeekDayLabel(column) + " " + MonthGrid.getDayOfMonthOfEpochDay(epochDay);
+        }
+
+        layoutEvents();
+        invalidate();
+    }
+
+    public int getFirstEpochDay() {
+        return firstEpochDay;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * Highlights the header of the day, if it is shown
+     */
+    public void setCurrentDay(int epochDay) {
+        if (currentDay != epochDay) {
+            currentDay = epochDay;
+            invalidate();
+        }
+    }
+
+    /**
+     * @param events the events to show, the ones outside of the shown days are skipped. The list is kept, set it again after changing it.
+     */
+    public void setEvents(List<TimelineEvent> events) {
+        this.events = events != null ? events : Collections.<TimelineEvent>emptyList();
+        layoutEvents();
+        invalidate();
+    }
+
+    // Lays out the events of every shown day, clipped to the day, in columns
+    private void layoutEvents() {
+        int eventCount = events.size();
+        if (starts.length < eventCount) {
+            starts = new long[eventCount];
+            ends = new long[eventCount];
+        }
+        if (dayEventOffsets.length < days + 1) {
+            dayEventOffsets = new int[days + 1];
+        }
+
+        TimelineEvent[] dayEvents = new TimelineEvent[eventCount];
+        int laidOutCount = 0;
+        long dayStart = MonthGrid.toMillis(firstEpochDay, timeZone);
+
+        for (int day = 0; day < days; day++) {
+            dayEventOffsets[day] = laidOutCount;
+            long dayEnd = MonthGrid.toMillis(firstEpochDay + day + 1, timeZone);
+            long dayLength = dayEnd - dayStart;
+
+            int count = 0;
+            for (int i = 0; i < eventCount; i++) {
+                TimelineEvent event = events.get(i);
+                long start = event.getStartMillis();
+                long end = Math.max(event.getEndMillis(), start + 1);
+                if (start >= dayEnd || end <= dayStart) {
+                    continue;
+                }
+                dayEvents[count] = event;
+                starts[count] = Math.max(start, dayStart) - dayStart;
+                ends[count] = Math.max(Math.min(end, dayEnd) - dayStart, starts[count] + MINIMUM_EVENT_MILLIS);
+                count++;
+            }
+
+            timelineLayout.layout(starts, ends, count);
+            ensureLaidOutCapacity(laidOutCount + count);
+            for (int k = 0; k < count; k++) {
+                int event = timelineLayout.getOrder(k);
+                int columns = timelineLayout.getColumnCount(event);
+                int column = timelineLayout.getColumn(event);
+                laidOutEvents[laidOutCount] = dayEvents[event];
+                eventTops[laidOutCount] = starts[event] / (float) dayLength;
+                eventBottoms[laidOutCount] = Math.min(1, ends[event] / (float) dayLength);
+                eventLefts[laidOutCount] = column / (float) columns;
+                eventRights[laidOutCount] = (column + 1) / (float) columns;
+                laidOutCount++;
+            }
+            dayStart = dayEnd;
+        }
+        dayEventOffsets[days] = laidOutCount;
+    }
+
+    private void ensureLaidOutCapacity(int capacity) {
+        if (laidOutEvents.length >= capacity) {
+            return;
+        }
+        int length = Math.max(capacity, laidOutEvents.length * 2);
+        TimelineEvent[] newEvents = new TimelineEvent[length];
+        float[] newTops = new float[length];
+        float[] newBottoms = new float[length];
+        float[] newLefts = new float[length];
+        float[] newRights = new float[length];
+        int count = laidOutEvents.length;
+        System.arraycopy(laidOutEvents, 0, newEvents, 0, count);
+        System.arraycopy(eventTops, 0, newTops, 0, count);
+        System.arraycopy(eventBottoms, 0, newBottoms, 0, count);
+        System.arraycopy(eventLefts, 0, newLefts, 0, count);
+        System.arraycopy(eventRights, 0, newRights, 0, count);
+        laidOutEvents = newEvents;
+        eventTops = newTops;
+        eventBottoms = newBottoms;
+        eventLefts = newLefts;
+        eventRights = newRights;
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Scroll methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * Scrolls so the given hour is at the top of the visible hours
+     */
+    public void setFirstVisibleHour(int hour) {
+        scroller.forceFinished(true);
+        scrollToOffset(hour * hourHeight);
+    }
+
+    public int getFirstVisibleHour() {
+        return (int) (scrollOffset / hourHeight);
+    }
+
+    private float getBodyHeight() {
+        return getHeight() - headerHeight;
+    }
+
+    private float getMaximumScrollOffset() {
+        return Math.max(0, HOURS_IN_DAY * hourHeight - getBodyHeight());
+    }
+
+    private void scrollToOffset(float offset) {
+        float clampedOffset = Math.max(0, Math.min(getMaximumScrollOffset(), offset));
+        if (clampedOffset != scrollOffset) {
+            scrollOffset = clampedOffset;
+            invalidate();
+        }
+    }
+
+    @Override
+    public void computeScroll() {
+        if (scroller.computeScrollOffset()) {
+            scrollToOffset(scroller.getCurrY());
+            if (!scroller.isFinished()) {
+                invalidate();
+            }
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        scrollToOffset(scrollOffset);
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Measure and draw methods
+    // ************************************************************************************************************************************************************************
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int height = (int) Math.ceil(headerHeight + HOURS_IN_DAY * hourHeight);
+        setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+    }
+
+    private float getDayWidth() {
+        return (getWidth() - gutterWidth) / days;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        float width = getWidth();
+        float dayWidth = getDayWidth();
+        float bodyHeight = getBodyHeight();
+        float dayHeight = HOURS_IN_DAY * hourHeight;
+
+        // Header
+        float headerBaseline = headerHeight / 2 - (headerTextPaint.descent() + headerTextPaint.ascent()) / 2;
+        for (int day = 0; day < days; day++) {
+            headerTextPaint.setColor(firstEpochDay + day == currentDay ? currentDayLabelColor : dayLabelColor);
+            canvas.drawText(dayLabels[day], gutterWidth + day * dayWidth + dayWidth / 2, headerBaseline, headerTextPaint);
+        }
+        canvas.drawRect(0, headerHeight - 1, width, headerHeight, hourLinePaint);
+
+        canvas.save();
+        canvas.clipRect(0, headerHeight, width, headerHeight + bodyHeight);
+        canvas.translate(0, headerHeight - scrollOffset);
+
+        // Hours in sight, a line and a label each
+        int firstHour = (int) (scrollOffset / hourHeight);
+        int lastHour = Math.min(HOURS_IN_DAY - 1, (int) ((scrollOffset + bodyHeight) / hourHeight));
+        float hourTextOffset = -hourTextPaint.ascent();
+        for (int hour = firstHour; hour <= lastHour; hour++) {
+            float y = hour * hourHeight;
+            canvas.drawRect(gutterWidth, y, width, y + 1, hourLinePaint);
+            canvas.drawText(HOUR_LABELS[hour], gutterWidth - eventPadding, y + hourTextOffset, hourTextPaint);
+        }
+        for (int day = 0; day < days; day++) {
+            float x = gutterWidth + day * dayWidth;
+            canvas.drawRect(x, scrollOffset, x + 1, scrollOffset + bodyHeight, hourLinePaint);
+        }
+
+        // Events in sight, they are in order of start so the first one starting below the visible hours ends the day
+        float visibleTop = scrollOffset;
+        float visibleBottom = scrollOffset + bodyHeight;
+        float textOffset = -eventTextPaint.ascent();
+        for (int day = 0; day < days; day++) {
+            float dayLeft = gutterWidth + day * dayWidth;
+            for (int i = dayEventOffsets[day]; i < dayEventOffsets[day + 1]; i++) {
+                float top = eventTops[i] * dayHeight;
+                if (top > visibleBottom) {
+                    break;
+                }
+                float bottom = eventBottoms[i] * dayHeight;
+                if (bottom < visibleTop) {
+                    continue;
+                }
+
+                TimelineEvent event = laidOutEvents[i];
+                float left = dayLeft + eventLefts[i] * dayWidth + eventMargin;
+                float right = dayLeft + eventRights[i] * dayWidth - eventMargin;
+                eventPaint.setColor(calendarStyle.getColor(event.getStyle()));
+                canvas.drawRect(left, top + eventMargin, right, bottom - eventMargin, eventPaint);
+
+                String title = event.getTitle();
+                if (title != null) {
+                    canvas.save();
+                    canvas.clipRect(left, top, right, bottom);
+                    canvas.drawText(title, left + eventPadding, top + eventPadding + textOffset, eventTextPaint);
+                    canvas.restore();
+                }
+            }
+        }
+
+        canvas.restore();
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Touch methods
+    // ************************************************************************************************************************************************************************
+
+    /**
+     * @return the day index under the given point, or -1 outside of the days
+     */
+    public int getDayAt(float x) {
+        if (x < gutterWidth) {
+            return -1;
+        }
+        int day = (int) ((x - gutterWidth) / getDayWidth());
+        return day < days ? day : -1;
+    }
+
+    /**
+     * @return the event drawn under the given point, or null
+     */
+    public TimelineEvent getEventAt(float x, float y) {
+        int day = getDayAt(x);
+        if (day == -1 || y < headerHeight) {
+            return null;
+        }
+
+        float dayWidth = getDayWidth();
+        float dayHeight = HOURS_IN_DAY * hourHeight;
+        float dayX = (x - gutterWidth - day * dayWidth) / dayWidth;
+        float dayY = (y - headerHeight + scrollOffset) / dayHeight;
+
+        // The last drawn event is on top
+        for (int i = dayEventOffsets[day + 1] - 1; i >= dayEventOffsets[day]; i--) {
+            if (dayY >= eventTops[i] && dayY < eventBottoms[i] && dayX >= eventLefts[i] && dayX < eventRights[i]) {
+                return laidOutEvents[i];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        trackMovement(event);
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                // Catch a fling that is still running
+                dragging = !scroller.isFinished();
+                scroller.forceFinished(true);
+                downY = event.getY();
+                lastY = downY;
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                if (!dragging && Math.abs(event.getY() - downY) > touchSlop) {
+                    dragging = true;
+                    getParent().requestDisallowInterceptTouchEvent(true);
+                }
+                if (dragging) {
+                    scrollToOffset(scrollOffset + lastY - event.getY());
+                }
+                lastY = event.getY();
+                return true;
+            case MotionEvent.ACTION_UP:
+                if (dragging) {
+                    velocityTracker.computeCurrentVelocity(1000, maximumFlingVelocity);
+                    fling((int) -velocityTracker.getYVelocity());
+                } else {
+                    performClick();
+                    onTap(event.getX(), event.getY());
+                }
+                dragging = false;
+                recycleVelocityTracker();
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                dragging = false;
+                recycleVelocityTracker();
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    private void fling(int velocityY) {
+        if (Math.abs(velocityY) > minimumFlingVelocity) {
+            scroller.fling(0, (int) scrollOffset, 0, velocityY, 0, 0, 0, (int) getMaximumScrollOffset());
+            invalidate();
+        }
+    }
+
+    private void onTap(float x, float y) {
+        int day = getDayAt(x);
+        if (day == -1 || onTimelineClickListener == null) {
+            return;
+        }
+
+        TimelineEvent event = getEventAt(x, y);
+        if (event != null) {
+            onTimelineClickListener.onEventClick(event);
+        } else {
+            onTimelineClickListener.onDayClick(firstEpochDay + day);
+        }
+    }
+
+    private void trackMovement(MotionEvent event) {
+        if (velocityTracker == null) {
+            velocityTracker = VelocityTracker.obtain();
+        }
+        velocityTracker.addMovement(event);
+    }
+
+    private void recycleVelocityTracker() {
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Public interface
+    // ************************************************************************************************************************************************************************
+
+    public interface OnTimelineClickListener {
+
+        /**
+         * Called for a tap on the header or on the free time of a day
+         */
+        void onDayClick(int epochDay);
+
+        void onEventClick(TimelineEvent event);
+    }
+
+    public void setOnTimelineClickListener(OnTimelineClickListener onTimelineClickListener) {
+        this.onTimelineClickListener = onTimelineClickListener;
+    }
+}
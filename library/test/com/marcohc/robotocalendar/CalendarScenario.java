@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.content.Context;
+import android.view.View;
+
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * Helpers to drive a {@link RobotoCalendarView} on Robolectric as the frames of a device would
+ */
+final class CalendarScenario {
+
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+
+    private CalendarScenario() {
+    }
+
+    /**
+     * @return a calendar in the views mode, measured and laid out
+     */
+    static RobotoCalendarView createCalendarView(Context context) {
+        RobotoCalendarView calendarView = new RobotoCalendarView(context);
+        runTraversal(calendarView);
+        return calendarView;
+    }
+
+    /**
+     * @return January 2015, so the months flipped and the cells written do not depend on the day the tests run
+     */
+    static Calendar getFirstMonth() {
+        Calendar calendar = Calendar.getInstance(Locale.US);
+        calendar.clear();
+        calendar.set(2015, Calendar.JANUARY, 15);
+        return calendar;
+    }
+
+    /**
+     * Measures and lays out the view as the next frame would, only if a layout was requested
+     */
+    static void runTraversal(View view) {
+        if (!view.isLayoutRequested()) {
+            return;
+        }
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY), View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.AT_MOST));
+        view.layout(0, 0, WIDTH, view.getMeasuredHeight());
+    }
+}
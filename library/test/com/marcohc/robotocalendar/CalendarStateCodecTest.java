@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the state written by {@link CalendarStateCodec} is read back as it was
+ */
+public class CalendarStateCodecTest {
+
+    private static final int JULY_1 = MonthGrid.toEpochDay(2015, Calendar.JULY, 1);
+
+    // Every Monday of July 2015, the 6th, 13th, 20th and 27th
+    private static final RecurrenceRule MONDAYS = new RecurrenceRule.Builder(RecurrenceRule.FREQUENCY_WEEKLY, JULY_1 + 5)
+            .setUntil(JULY_1 + 30)
+            .build();
+
+    @Test
+    public void restoresTheMonthAndTheSelection() {
+        CalendarStateCodec.CalendarState state = newState(new DecorationStore());
+        state.year = 2015;
+        state.month = Calendar.JULY;
+        state.firstDayOfWeek = Calendar.MONDAY;
+        state.currentDay = JULY_1 + 20;
+        state.daySelection.addRange(JULY_1 + 2, JULY_1 + 4);
+        state.daySelection.add(JULY_1 + 10);
+
+        CalendarStateCodec.CalendarState restored = newState(new DecorationStore());
+        CalendarStateCodec.decode(CalendarStateCodec.encode(state), restored);
+
+        assertEquals(2015, restored.year);
+        assertEquals(Calendar.JULY, restored.month);
+        assertEquals(Calendar.MONDAY, restored.firstDayOfWeek);
+        assertEquals(JULY_1 + 20, restored.currentDay);
+        assertEquals(CalendarStateCodec.NO_DAY, restored.selectedDay);
+        assertEquals(4, restored.daySelection.size());
+        assertEquals(JULY_1 + 2, restored.daySelection.getFirst());
+        assertEquals(JULY_1 + 10, restored.daySelection.getLast());
+    }
+
+    @Test
+    public void ruleSurvivesDecodingIntoTheSameStore() {
+        DecorationStore decorationStore = new DecorationStore();
+        decorationStore.addRule(MONDAYS, DecorationStore.SLOT_FIRST_UNDERLINE, RobotoCalendarView.RED_COLOR);
+        decorationStore.add(JULY_1, DecorationStore.SLOT_SECOND_UNDERLINE, RobotoCalendarView.BLUE_COLOR);
+        CalendarStateCodec.CalendarState state = newState(decorationStore);
+
+        CalendarStateCodec.decode(CalendarStateCodec.encode(state), state);
+
+        assertEquals(1, decorationStore.getRuleCount());
+        assertJuly(decorationStore);
+    }
+
+    @Test
+    public void ruleAddedBeforeRestoringIsKept() {
+        DecorationStore decorationStore = new DecorationStore();
+        decorationStore.addRule(MONDAYS, DecorationStore.SLOT_FIRST_UNDERLINE, RobotoCalendarView.RED_COLOR);
+        decorationStore.add(JULY_1, DecorationStore.SLOT_SECOND_UNDERLINE, RobotoCalendarView.BLUE_COLOR);
+        byte[] data = CalendarStateCodec.encode(newState(decorationStore));
+
+        // A recreated calendar gets its rules from the code that creates it, before the state is restored
+        DecorationStore recreatedStore = new DecorationStore();
+        recreatedStore.addRule(MONDAYS, DecorationStore.SLOT_FIRST_UNDERLINE, RobotoCalendarView.RED_COLOR);
+        CalendarStateCodec.decode(data, newState(recreatedStore));
+
+        assertEquals(1, recreatedStore.getRuleCount());
+        assertJuly(recreatedStore);
+    }
+
+    private static void assertJuly(DecorationStore decorationStore) {
+        MonthDecorations july = decorationStore.getMonth(2015, Calendar.JULY);
+        int mondays = 1 << 5 | 1 << 12 | 1 << 19 | 1 << 26;
+        assertEquals(mondays, july.getMask(DecorationStore.SLOT_FIRST_UNDERLINE));
+        assertEquals(RobotoCalendarView.RED_COLOR, july.getStyle(DecorationStore.SLOT_FIRST_UNDERLINE, 6));
+        assertEquals(1, july.getMask(DecorationStore.SLOT_SECOND_UNDERLINE));
+        assertEquals(RobotoCalendarView.BLUE_COLOR, july.getStyle(DecorationStore.SLOT_SECOND_UNDERLINE, 1));
+        assertEquals(1, decorationStore.size());
+    }
+
+    private static CalendarStateCodec.CalendarState newState(DecorationStore decorationStore) {
+        CalendarStateCodec.CalendarState state = new CalendarStateCodec.CalendarState();
+        state.firstDayOfWeek = Calendar.SUNDAY;
+        state.daySelection = new DaySelection();
+        state.decorationStore = decorationStore;
+        return state;
+    }
+}
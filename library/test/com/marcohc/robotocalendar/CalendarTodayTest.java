@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks {@link CalendarToday} with a clock set by the test
+ */
+public class CalendarTodayTest {
+
+    private static final long MILLIS_PER_HOUR = 60L * 60 * 1000;
+    private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final TimeZone NEW_YORK = TimeZone.getTimeZone("America/New_York");
+
+    private static final int JULY_21 = MonthGrid.toEpochDay(2015, Calendar.JULY, 21);
+
+    private final FakeClock clock = new FakeClock();
+
+    @Test
+    public void computesOncePerDay() {
+        clock.now = getUtcMillis(JULY_21, 0);
+        CalendarToday today = new CalendarToday(clock, UTC);
+
+        for (int minute = 0; minute < 24 * 60; minute++) {
+            clock.now = getUtcMillis(JULY_21, 0) + minute * 60 * 1000L;
+            assertEquals(JULY_21, today.getEpochDay());
+        }
+        assertEquals(1, today.getComputeCount());
+    }
+
+    @Test
+    public void crossesMidnight() {
+        clock.now = getUtcMillis(JULY_21 + 1, 0) - 1;
+        CalendarToday today = new CalendarToday(clock, UTC);
+        assertEquals(JULY_21, today.getEpochDay());
+        assertEquals(1, today.getMillisToNextDay());
+
+        clock.now++;
+        assertEquals(JULY_21 + 1, today.getEpochDay());
+        assertEquals(2, today.getComputeCount());
+        assertEquals(MILLIS_PER_DAY, today.getMillisToNextDay());
+        assertEquals(getUtcMillis(JULY_21 + 2, 0), today.getNextDayStartMillis());
+    }
+
+    @Test
+    public void daylightSavingDaysHaveTheirLength() {
+        // The clocks went forward on March 8 2015 and back on November 1 in New York, midnight is 5:00 UTC in winter and 4:00 UTC in summer
+        int march8 = MonthGrid.toEpochDay(2015, Calendar.MARCH, 8);
+        clock.now = getUtcMillis(march8, 5);
+        CalendarToday today = new CalendarToday(clock, NEW_YORK);
+        assertEquals(march8, today.getEpochDay());
+        assertEquals(23 * MILLIS_PER_HOUR, today.getMillisToNextDay());
+
+        clock.now = getUtcMillis(march8 + 1, 4) - 1;
+        assertEquals(march8, today.getEpochDay());
+        clock.now++;
+        assertEquals(march8 + 1, today.getEpochDay());
+
+        int november1 = MonthGrid.toEpochDay(2015, Calendar.NOVEMBER, 1);
+        clock.now = getUtcMillis(november1, 4);
+        assertEquals(november1, today.getEpochDay());
+        assertEquals(25 * MILLIS_PER_HOUR, today.getMillisToNextDay());
+
+        clock.now = getUtcMillis(november1 + 1, 5) - 1;
+        assertEquals(november1, today.getEpochDay());
+        clock.now++;
+        assertEquals(november1 + 1, today.getEpochDay());
+    }
+
+    @Test
+    public void clockSetBackwards() {
+        clock.now = getUtcMillis(JULY_21, 12);
+        CalendarToday today = new CalendarToday(clock, UTC);
+
+        // Within the same day nothing is computed
+        clock.now = getUtcMillis(JULY_21, 0);
+        assertEquals(JULY_21, today.getEpochDay());
+        assertEquals(1, today.getComputeCount());
+
+        clock.now--;
+        assertEquals(JULY_21 - 1, today.getEpochDay());
+        assertEquals(2, today.getComputeCount());
+
+        clock.now = getUtcMillis(JULY_21 - 30, 12);
+        assertEquals(JULY_21 - 30, today.getEpochDay());
+        assertEquals(3, today.getComputeCount());
+        assertEquals(getUtcMillis(JULY_21 - 29, 0), today.getNextDayStartMillis());
+    }
+
+    @Test
+    public void setTimeZone() {
+        // 2:00 UTC is still 22:00 of the previous day in New York
+        clock.now = getUtcMillis(JULY_21, 2);
+        CalendarToday today = new CalendarToday(clock, UTC);
+        assertEquals(JULY_21, today.getEpochDay());
+
+        today.setTimeZone(NEW_YORK);
+        assertEquals(JULY_21 - 1, today.getEpochDay());
+        assertEquals(2, today.getComputeCount());
+        assertEquals(2 * MILLIS_PER_HOUR, today.getMillisToNextDay());
+
+        // A new instance of the same zone keeps today
+        today.setTimeZone(TimeZone.getTimeZone("America/New_York"));
+        assertEquals(JULY_21 - 1, today.getEpochDay());
+        assertEquals(2, today.getComputeCount());
+    }
+
+    @Test
+    public void skippedDay() {
+        // Samoa moved across the date line skipping December 30 2011, midnight of the 29th in UTC-10 was followed by the 31st in UTC+14
+        TimeZone apia = TimeZone.getTimeZone("Pacific/Apia");
+        int december29 = MonthGrid.toEpochDay(2011, Calendar.DECEMBER, 29);
+        clock.now = getUtcMillis(december29 + 1, 10) - 1;
+        CalendarToday today = new CalendarToday(clock, apia);
+        assertEquals(december29, today.getEpochDay());
+
+        clock.now++;
+        assertEquals(december29 + 2, today.getEpochDay());
+        assertEquals(getUtcMillis(december29 + 2, 10), today.getNextDayStartMillis());
+    }
+
+    private static long getUtcMillis(int epochDay, int hour) {
+        return epochDay * MILLIS_PER_DAY + hour * MILLIS_PER_HOUR;
+    }
+
+    private static final class FakeClock implements CalendarToday.Clock {
+
+        long now;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The cells of the inflated layout are searched by tag only when the calendar is created, every later path looks them up by index
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class CellRegistryTest {
+
+    @Test
+    public void tagsAreSearchedOnceWhenCreated() {
+        RobotoCalendarView calendarView = CalendarScenario.createCalendarView(RuntimeEnvironment.application);
+
+        // The 7 week days, the 6 week rows and the 5 views of each of the 42 cells
+        assertEquals(7 + 6 + 42 * 5, calendarView.getRenderCostSinceCreation().getTagSearches());
+    }
+
+    @Test
+    public void noTagIsSearchedAfterCreation() {
+        final RobotoCalendarView calendarView = CalendarScenario.createCalendarView(RuntimeEnvironment.application);
+        calendarView.setRobotoCalendarListener(new RobotoCalendarView.RobotoCalendarListener() {
+            @Override
+            public void onDateSelected(Date date) {
+                calendarView.markDayAsSelectedDay(date);
+            }
+
+            @Override
+            public void onRightButtonClick() {
+            }
+
+            @Override
+            public void onLeftButtonClick() {
+            }
+        });
+        int tagSearches = calendarView.getRenderCostSinceCreation().getTagSearches();
+
+        View[] containers = new View[MonthGrid.DAYS_IN_GRID];
+        for (int i = 0; i < containers.length; i++) {
+            containers[i] = calendarView.findViewWithTag("dayOfMonthContainer" + (i + 1));
+        }
+        // Without tags, a lookup left in any path would find nothing and fail
+        removeTags(calendarView);
+
+        Calendar calendar = CalendarScenario.getFirstMonth();
+        for (int i = 0; i < 12; i++) {
+            calendar.add(Calendar.MONTH, 1);
+            calendarView.initializeCalendar((Calendar) calendar.clone());
+            MonthGrid monthGrid = calendarView.getMonthGrid();
+            calendarView.markDayAsCurrentDay(monthGrid.getFirstEpochDay());
+            calendarView.markFirstUnderlineWithStyle(RobotoCalendarView.RED_COLOR, monthGrid.getFirstEpochDay() + 1);
+            calendarView.markSecondUnderlineWithStyle(RobotoCalendarView.BLUE_COLOR, monthGrid.getLastEpochDay());
+            calendarView.markDayAsSelectedDay(monthGrid.getLastEpochDay());
+            containers[monthGrid.getIndexOfDayOfMonth(2)].performClick();
+            CalendarScenario.runTraversal(calendarView);
+        }
+
+        assertEquals(tagSearches, calendarView.getRenderCostSinceCreation().getTagSearches());
+    }
+
+    private static void removeTags(View view) {
+        view.setTag(null);
+        if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            for (int i = 0; i < viewGroup.getChildCount(); i++) {
+                removeTags(viewGroup.getChildAt(i));
+            }
+        }
+    }
+}
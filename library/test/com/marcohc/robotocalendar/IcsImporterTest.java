@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the properties read by {@link IcsImporter}, that a mapped file is read across its windows and that its memory does not grow with the
+ * size of the file
+ */
+public class IcsImporterTest {
+
+    private static final int STYLE = RobotoCalendarView.RED_COLOR;
+    private static final int SLOT = DecorationStore.SLOT_FIRST_UNDERLINE;
+
+    private DecorationStore decorationStore;
+    private IcsImporter importer;
+    private IcsEvent lastEvent;
+
+    @Before
+    public void setUp() {
+        decorationStore = new DecorationStore();
+        importer = new IcsImporter(decorationStore, new IcsImporter.StyleMapping() {
+            @Override
+            public int getStyle(IcsEvent event) {
+                lastEvent = event;
+                return STYLE;
+            }
+
+            @Override
+            public int getSlot(IcsEvent event) {
+                return SLOT;
+            }
+        }, TimeZone.getTimeZone("UTC"));
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Property tests
+    // ************************************************************************************************************************************************************************
+
+    @Test
+    public void foldedLinesAreJoined() throws IOException {
+        importEvents("SUMMARY:Team meet\r\n ing with a long\r\n\t summary\r\n",
+                "DTSTART;VALUE=DATE:2015\r\n 0721\r\n");
+
+        assertEquals("Team meeting with a long summary", lastEvent.getSummary());
+        assertEquals(days(21), getJulyMask());
+    }
+
+    @Test
+    public void quotedTimeZoneIsRead() throws IOException {
+        // 23:00 in New York is 03:00 of the next day in UTC, the colon of the quoted parameter does not end the name
+        importEvents("DTSTART;X-SOURCE=\"http://example.com\";TZID=\"America/New_York\":20150721T230000\r\n",
+                "DTEND;TZID=\"America/New_York\":20150721T233000\r\n");
+
+        assertEquals(days(22), getJulyMask());
+    }
+
+    @Test
+    public void allDayEndIsExclusive() throws IOException {
+        importEvents("DTSTART;VALUE=DATE:20150721\r\n", "DTEND;VALUE=DATE:20150723\r\n");
+
+        assertEquals(days(21, 22), getJulyMask());
+    }
+
+    @Test
+    public void timedEndAtMidnightIsExclusive() throws IOException {
+        importEvents("DTSTART:20150721T220000Z\r\n", "DTEND:20150723T000000Z\r\n");
+
+        assertEquals(days(21, 22), getJulyMask());
+    }
+
+    @Test
+    public void durationGivesTheEnd() throws IOException {
+        importEvents("DTSTART;VALUE=DATE:20150706\r\n", "DURATION:P3D\r\n");
+        assertEquals(days(6, 7, 8), getJulyMask());
+
+        setUp();
+        importEvents("DTSTART;VALUE=DATE:20150706\r\n", "DURATION:P1W\r\n");
+        assertEquals(days(6, 7, 8, 9, 10, 11, 12), getJulyMask());
+
+        // Hours do not make the event last another day
+        setUp();
+        importEvents("DTSTART;VALUE=DATE:20150706\r\n", "DURATION:P1DT12H\r\n");
+        assertEquals(days(6), getJulyMask());
+    }
+
+    @Test
+    public void supportedRuleIsAdded() throws IOException {
+        // Mondays and Thursdays from Monday the 6th, four times
+        importEvents("DTSTART;VALUE=DATE:20150706\r\n", "RRULE:FREQ=WEEKLY;BYDAY=MO,TH;COUNT=4;WKST=MO\r\n");
+
+        assertEquals(1, importer.getRuleCount());
+        assertEquals(0, importer.getUnsupportedRuleCount());
+        assertEquals(1, decorationStore.getRuleCount());
+        assertTrue(lastEvent.isRecurring());
+        assertEquals(days(6, 9, 13, 16), getJulyMask());
+    }
+
+    @Test
+    public void unsupportedRuleOnlyMarksTheStart() throws IOException {
+        // The first Monday of every month, an ordinal day is not modeled
+        importEvents("DTSTART;VALUE=DATE:20150706\r\n", "RRULE:FREQ=MONTHLY;BYDAY=1MO\r\n");
+        assertUnsupportedRule(days(6));
+
+        setUp();
+        importEvents("DTSTART;VALUE=DATE:20150708\r\n", "RRULE:FREQ=HOURLY;INTERVAL=4\r\n");
+        assertUnsupportedRule(days(8));
+    }
+
+    @Test
+    public void excludedDatesAreNotMarked() throws IOException {
+        // The excluded days count as occurrences, as in RFC 5545
+        importEvents("DTSTART;VALUE=DATE:20150721\r\n", "RRULE:FREQ=DAILY;COUNT=5\r\n", "EXDATE;VALUE=DATE:20150722,20150723\r\n");
+
+        assertEquals(days(21, 24, 25), getJulyMask());
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Memory tests
+    // ************************************************************************************************************************************************************************
+
+    @Test
+    public void memoryDoesNotGrowWithTheFile() throws IOException {
+        Assume.assumeTrue(ThreadAllocations.isSupported());
+
+        // 64 MB of events on the same day, after a line far longer than the ones read. The events have no summary, the only property kept as a
+        // string, so every byte allocated is a buffer of the importer or of the store
+        StringBuilder longSummary = new StringBuilder("BEGIN:VEVENT\r\nDTSTART;VALUE=DATE:20150721\r\nSUMMARY:");
+        for (int i = 0; i < 1024 * 1024; i++) {
+            longSummary.append('x');
+        }
+        longSummary.append("\r\nEND:VEVENT\r\n");
+        byte[] head = ascii("BEGIN:VCALENDAR\r\n" + longSummary);
+        byte[] event = ascii("BEGIN:VEVENT\r\nDTSTART:20150721T093000Z\r\nDTEND:20150721T103000Z\r\nDESCRIPTION:Repeated event with a description folded\r\n "
+                + "at seventy five octets as the exports do\r\nBEGIN:VALARM\r\nTRIGGER:-PT15M\r\nEND:VALARM\r\nEND:VEVENT\r\n");
+        int events = 64 * 1024 * 1024 / event.length;
+        RepeatingInputStream inputStream = new RepeatingInputStream(head, event, events);
+
+        long startBytes = ThreadAllocations.getAllocatedBytes();
+        importer.importStream(inputStream);
+        long allocatedBytes = ThreadAllocations.getAllocatedBytes() - startBytes;
+
+        assertEquals(head.length + (long) events * event.length, importer.getByteCount());
+        assertEquals(events + 1, importer.getEventCount());
+        assertEquals(days(21), getJulyMask());
+        // The line cut at 64 KB and its summary, far from the size of the file or of its longest line
+        assertTrue("Allocated " + allocatedBytes + " bytes", allocatedBytes < 1024 * 1024);
+    }
+
+    @Test
+    public void mappedFileIsReadAcrossItsWindows() throws IOException {
+        // A start date folded over the end of the first window, between events on the 21st, and one event on the 23rd after it
+        byte[] head = ascii("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n");
+        byte[] event = ascii("BEGIN:VEVENT\r\nDTSTART;VALUE=DATE:20150721\r\nEND:VEVENT\r\n");
+        byte[] foldStart = ascii("BEGIN:VEVENT\r\nDTSTART;VALUE=DATE:2015\r\n");
+        byte[] foldEnd = ascii(" 0722\r\nEND:VEVENT\r\n");
+        byte[] tail = ascii("BEGIN:VEVENT\r\nDTSTART;VALUE=DATE:20150723\r\nEND:VEVENT\r\nEND:VCALENDAR\r\n");
+        int padding = "X-PADDING:\r\n".length();
+        int eventsBefore = (IcsImporter.MAP_WINDOW_SIZE - head.length - padding - foldStart.length) / event.length;
+        StringBuilder paddingLine = new StringBuilder("X-PADDING:");
+        for (int i = head.length + eventsBefore * event.length + padding + foldStart.length; i < IcsImporter.MAP_WINDOW_SIZE; i++) {
+            paddingLine.append('x');
+        }
+        paddingLine.append("\r\n");
+        int eventsAfter = 1024 * 1024 / event.length;
+
+        File file = File.createTempFile("calendar", ".ics");
+        try {
+            OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file));
+            try {
+                outputStream.write(head);
+                for (int i = 0; i < eventsBefore; i++) {
+                    outputStream.write(event);
+                }
+                outputStream.write(ascii(paddingLine.toString()));
+                outputStream.write(foldStart);
+                outputStream.write(foldEnd);
+                for (int i = 0; i < eventsAfter; i++) {
+                    outputStream.write(event);
+                }
+                outputStream.write(tail);
+            } finally {
+                outputStream.close();
+            }
+            assertTrue(file.length() > IcsImporter.MAP_WINDOW_SIZE);
+
+            importer.importFile(file);
+        } finally {
+            assertTrue(file.delete());
+        }
+
+        assertEquals(head.length + (long) (eventsBefore + eventsAfter) * event.length + paddingLine.length() + foldStart.length + foldEnd.length
+                + tail.length, importer.getByteCount());
+        assertEquals(eventsBefore + eventsAfter + 2, importer.getEventCount());
+        assertEquals(days(21, 22, 23), getJulyMask());
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Helper methods
+    // ************************************************************************************************************************************************************************
+
+    private void importEvents(String... properties) throws IOException {
+        StringBuilder ics = new StringBuilder("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nBEGIN:VEVENT\r\nUID:1@test\r\n");
+        for (String property : properties) {
+            ics.append(property);
+        }
+        ics.append("END:VEVENT\r\nEND:VCALENDAR\r\n");
+        importer.importStream(new ByteArrayInputStream(ascii(ics.toString())));
+    }
+
+    private void assertUnsupportedRule(int julyMask) {
+        assertEquals(0, importer.getRuleCount());
+        assertEquals(1, importer.getUnsupportedRuleCount());
+        assertEquals(0, decorationStore.getRuleCount());
+        assertEquals(julyMask, getJulyMask());
+    }
+
+    private int getJulyMask() {
+        MonthDecorations july = decorationStore.getMonth(2015, Calendar.JULY);
+        return july != null ? july.getMask(SLOT) : 0;
+    }
+
+    private static int days(int... daysOfMonth) {
+        int mask = 0;
+        for (int dayOfMonth : daysOfMonth) {
+            mask |= 1 << (dayOfMonth - 1);
+        }
+        return mask;
+    }
+
+    private static byte[] ascii(String text) {
+        try {
+            return text.getBytes("US-ASCII");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // A head followed by the same block repeated, generated while it is read so the test does not hold the file either
+    private static final class RepeatingInputStream extends InputStream {
+
+        private final byte[] head;
+        private final byte[] block;
+        private int remainingBlocks;
+        private byte[] current;
+        private int position;
+
+        RepeatingInputStream(byte[] head, byte[] block, int blocks) {
+            this.head = head;
+            this.block = block;
+            this.remainingBlocks = blocks;
+            this.current = head;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position == current.length) {
+                if (remainingBlocks == 0) {
+                    return -1;
+                }
+                remainingBlocks--;
+                current = block;
+                position = 0;
+            }
+            int count = Math.min(length, current.length - position);
+            System.arraycopy(current, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the epoch day and grid offset math of {@link MonthGrid} against {@link Calendar}
+ */
+public class MonthGridTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    // ************************************************************************************************************************************************************************
+    // * Epoch day methods
+    // ************************************************************************************************************************************************************************
+
+    @Test
+    public void epochDaysMatchCalendar() {
+        Calendar calendar = newUtcCalendar();
+        calendar.set(1600, Calendar.JANUARY, 1);
+        int epochDay = (int) Math.floor(calendar.getTimeInMillis() / (double) MILLIS_PER_DAY);
+
+        // Every day of 1600 to 2400, two full 400 year cycles
+        while (calendar.get(Calendar.YEAR) < 2400) {
+            int year = calendar.get(Calendar.YEAR);
+            int month = calendar.get(Calendar.MONTH);
+            int dayOfMonth = calendar.get(Calendar.DAY_OF_MONTH);
+
+            assertEquals(epochDay, MonthGrid.toEpochDay(year, month, dayOfMonth));
+            assertEquals(year * 10000 + (month + 1) * 100 + dayOfMonth, MonthGrid.toPackedDate(epochDay));
+            assertEquals(calendar.get(Calendar.DAY_OF_WEEK), MonthGrid.getDayOfWeekOfEpochDay(epochDay));
+
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            epochDay++;
+        }
+    }
+
+    @Test
+    public void epochDayOfFirstDays() {
+        assertEquals(0, MonthGrid.toEpochDay(1970, Calendar.JANUARY, 1));
+        assertEquals(-1, MonthGrid.toEpochDay(1969, Calendar.DECEMBER, 31));
+        assertEquals(10957, MonthGrid.toEpochDay(2000, Calendar.JANUARY, 1));
+        assertEquals(Calendar.THURSDAY, MonthGrid.getDayOfWeekOfEpochDay(0));
+        assertEquals(Calendar.WEDNESDAY, MonthGrid.getDayOfWeekOfEpochDay(-1));
+        assertEquals(20150721, MonthGrid.toPackedDate(MonthGrid.fromPackedDate(20150721)));
+    }
+
+    @Test
+    public void epochDayOfInstantsMatchesCalendar() {
+        String[] timeZones = {"UTC", "Europe/Madrid", "America/Los_Angeles", "Asia/Kolkata", "Pacific/Apia"};
+        for (String id : timeZones) {
+            TimeZone timeZone = TimeZone.getTimeZone(id);
+            Calendar calendar = Calendar.getInstance(timeZone);
+            // Every 7 hours from 1969 to 2016, on both sides of the epoch
+            for (long millis = -365 * MILLIS_PER_DAY; millis < 46 * 365 * MILLIS_PER_DAY; millis += 7 * 60 * 60 * 1000) {
+                calendar.setTimeInMillis(millis);
+                int epochDay = MonthGrid.toEpochDay(millis, timeZone);
+                assertEquals(id + " " + new Date(millis), calendar.get(Calendar.YEAR), MonthGrid.getYearOfEpochDay(epochDay));
+                assertEquals(id + " " + new Date(millis), calendar.get(Calendar.MONTH), MonthGrid.getMonthOfEpochDay(epochDay));
+                assertEquals(id + " " + new Date(millis), calendar.get(Calendar.DAY_OF_MONTH), MonthGrid.getDayOfMonthOfEpochDay(epochDay));
+            }
+        }
+    }
+
+    @Test
+    public void startOfDayMatchesCalendar() {
+        // Madrid moves its clocks at 02:00 and Sao Paulo moved them at midnight, so some of its days started at 01:00
+        String[] timeZones = {"Europe/Madrid", "America/Sao_Paulo", "America/Havana"};
+        for (String id : timeZones) {
+            TimeZone timeZone = TimeZone.getTimeZone(id);
+            Calendar calendar = Calendar.getInstance(timeZone);
+            calendar.clear();
+            calendar.set(2014, Calendar.JANUARY, 1);
+            int epochDay = MonthGrid.toEpochDay(2014, Calendar.JANUARY, 1);
+            while (calendar.get(Calendar.YEAR) < 2016) {
+                Calendar startOfDay = Calendar.getInstance(timeZone);
+                startOfDay.setTimeInMillis(MonthGrid.toMillis(epochDay, timeZone));
+                assertEquals(id + " " + epochDay, epochDay, MonthGrid.toEpochDay(startOfDay.getTimeInMillis(), timeZone));
+                assertEquals(id + " " + epochDay, epochDay, MonthGrid.toEpochDay(startOfDay.getTimeInMillis() + MILLIS_PER_DAY - 2 * 60 * 60 * 1000, timeZone));
+                assertTrue(id + " " + epochDay, startOfDay.get(Calendar.HOUR_OF_DAY) <= 1);
+                calendar.add(Calendar.DAY_OF_MONTH, 1);
+                epochDay++;
+            }
+        }
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Leap year methods
+    // ************************************************************************************************************************************************************************
+
+    @Test
+    public void leapYearsMatchCalendar() {
+        GregorianCalendar calendar = newUtcCalendar();
+        for (int year = 1600; year <= 2400; year++) {
+            assertEquals(String.valueOf(year), calendar.isLeapYear(year), MonthGrid.isLeapYear(year));
+            calendar.set(year, Calendar.FEBRUARY, 1);
+            assertEquals(String.valueOf(year), calendar.getActualMaximum(Calendar.DAY_OF_MONTH), MonthGrid.getDaysInMonth(year, Calendar.FEBRUARY));
+        }
+        assertFalse(MonthGrid.isLeapYear(1900));
+        assertTrue(MonthGrid.isLeapYear(2000));
+        assertTrue(MonthGrid.isLeapYear(2016));
+        assertFalse(MonthGrid.isLeapYear(2100));
+    }
+
+    @Test
+    public void leapDayIsInTheGrid() {
+        MonthGrid monthGrid = MonthGrid.of(2016, Calendar.FEBRUARY, Calendar.MONDAY);
+        assertEquals(29, monthGrid.getDaysInMonth());
+        assertEquals(MonthGrid.toEpochDay(2016, Calendar.FEBRUARY, 29), monthGrid.getLastEpochDay());
+        assertEquals(MonthGrid.toEpochDay(2016, Calendar.MARCH, 1), monthGrid.getEpochDay(monthGrid.getIndexOfDayOfMonth(29) + 1));
+
+        monthGrid = MonthGrid.of(2015, Calendar.FEBRUARY, Calendar.SUNDAY);
+        assertEquals(28, monthGrid.getDaysInMonth());
+        // February 2015 starts on a Sunday and fills exactly 4 weeks
+        assertEquals(0, monthGrid.getLeadingDays());
+        assertEquals(4, monthGrid.getWeekRows());
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Grid methods
+    // ************************************************************************************************************************************************************************
+
+    @Test
+    public void gridsMatchCalendar() {
+        for (int year = 1999; year <= 2030; year++) {
+            for (int month = Calendar.JANUARY; month <= Calendar.DECEMBER; month++) {
+                for (int firstDayOfWeek = Calendar.SUNDAY; firstDayOfWeek <= Calendar.SATURDAY; firstDayOfWeek++) {
+                    assertGridMatchesCalendar(year, month, firstDayOfWeek);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void firstDayOfWeekShiftsTheColumns() {
+        // July 2015 starts on a Wednesday
+        assertEquals(3, MonthGrid.of(2015, Calendar.JULY, Calendar.SUNDAY).getLeadingDays());
+        assertEquals(2, MonthGrid.of(2015, Calendar.JULY, Calendar.MONDAY).getLeadingDays());
+        assertEquals(0, MonthGrid.of(2015, Calendar.JULY, Calendar.WEDNESDAY).getLeadingDays());
+        assertEquals(6, MonthGrid.of(2015, Calendar.JULY, Calendar.THURSDAY).getLeadingDays());
+
+        MonthGrid monthGrid = MonthGrid.of(2015, Calendar.JULY, Calendar.MONDAY);
+        assertEquals(Calendar.MONDAY, monthGrid.getDayOfWeekOfColumn(0));
+        assertEquals(Calendar.SUNDAY, monthGrid.getDayOfWeekOfColumn(6));
+        assertEquals(6, MonthGrid.getColumn(Calendar.SUNDAY, Calendar.MONDAY));
+        assertEquals(0, MonthGrid.getColumn(Calendar.SUNDAY, Calendar.SUNDAY));
+    }
+
+    @Test
+    public void monthBoundaries() {
+        MonthGrid monthGrid = MonthGrid.of(2015, Calendar.DECEMBER, Calendar.MONDAY);
+        int firstIndex = monthGrid.getIndexOfDayOfMonth(1);
+        int lastIndex = monthGrid.getIndexOfDayOfMonth(31);
+
+        assertEquals(MonthGrid.toEpochDay(2015, Calendar.NOVEMBER, 30), monthGrid.getEpochDay(firstIndex - 1));
+        assertEquals(MonthGrid.toEpochDay(2016, Calendar.JANUARY, 1), monthGrid.getEpochDay(lastIndex + 1));
+        assertFalse(monthGrid.isInMonth(firstIndex - 1));
+        assertTrue(monthGrid.isInMonth(firstIndex));
+        assertTrue(monthGrid.isInMonth(lastIndex));
+        assertFalse(monthGrid.isInMonth(lastIndex + 1));
+        assertEquals(0, monthGrid.getDayOfMonth(firstIndex - 1));
+        assertEquals(0, monthGrid.getDayOfMonth(lastIndex + 1));
+
+        assertEquals(-1, monthGrid.getIndex(MonthGrid.toEpochDay(2015, Calendar.NOVEMBER, 30)));
+        assertEquals(firstIndex, monthGrid.getIndex(MonthGrid.toEpochDay(2015, Calendar.DECEMBER, 1)));
+        assertEquals(lastIndex, monthGrid.getIndex(MonthGrid.toEpochDay(2015, Calendar.DECEMBER, 31)));
+        assertEquals(-1, monthGrid.getIndex(MonthGrid.toEpochDay(2016, Calendar.JANUARY, 1)));
+        assertFalse(monthGrid.contains(MonthGrid.toEpochDay(2016, Calendar.JANUARY, 1)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidMonthIsRejected() {
+        MonthGrid.of(2015, 12, Calendar.SUNDAY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidFirstDayOfWeekIsRejected() {
+        MonthGrid.of(2015, Calendar.JANUARY, 0);
+    }
+
+    private static void assertGridMatchesCalendar(int year, int month, int firstDayOfWeek) {
+        String message = year + "-" + (month + 1) + " first day " + firstDayOfWeek;
+        MonthGrid monthGrid = MonthGrid.of(year, month, firstDayOfWeek);
+
+        GregorianCalendar calendar = newUtcCalendar();
+        calendar.setFirstDayOfWeek(firstDayOfWeek);
+        calendar.setMinimalDaysInFirstWeek(1);
+        calendar.set(year, month, 1);
+
+        assertEquals(message, calendar.getActualMaximum(Calendar.DAY_OF_MONTH), monthGrid.getDaysInMonth());
+        assertEquals(message, calendar.getActualMaximum(Calendar.WEEK_OF_MONTH), monthGrid.getWeekRows());
+        int leadingDays = (calendar.get(Calendar.DAY_OF_WEEK) - firstDayOfWeek + 7) % 7;
+        assertEquals(message, leadingDays, monthGrid.getLeadingDays());
+        assertEquals(message, MonthGrid.DAYS_IN_GRID - leadingDays - monthGrid.getDaysInMonth(), monthGrid.getTrailingDays());
+
+        // Every cell, from the days of the previous month to the days of the next one
+        calendar.add(Calendar.DAY_OF_MONTH, -leadingDays);
+        for (int i = 0; i < MonthGrid.DAYS_IN_GRID; i++) {
+            int epochDay = monthGrid.getEpochDay(i);
+            assertEquals(message, calendar.get(Calendar.YEAR), MonthGrid.getYearOfEpochDay(epochDay));
+            assertEquals(message, calendar.get(Calendar.MONTH), MonthGrid.getMonthOfEpochDay(epochDay));
+            assertEquals(message, calendar.get(Calendar.DAY_OF_MONTH), MonthGrid.getDayOfMonthOfEpochDay(epochDay));
+            assertEquals(message, calendar.get(Calendar.DAY_OF_WEEK), monthGrid.getDayOfWeekOfColumn(i % MonthGrid.DAYS_IN_WEEK));
+            assertEquals(message, calendar.get(Calendar.MONTH) == month ? calendar.get(Calendar.DAY_OF_MONTH) : 0, monthGrid.getDayOfMonth(i));
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+    }
+
+    // Proleptic Gregorian in UTC, as the epoch days of MonthGrid
+    private static GregorianCalendar newUtcCalendar() {
+        GregorianCalendar calendar = new GregorianCalendar(UTC);
+        calendar.setGregorianChange(new Date(Long.MIN_VALUE));
+        calendar.clear();
+        return calendar;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Render cost regression suite, each scenario fails the build when the calendar measures, lays out, inflates, searches or writes more than its
+ * budget. Raise a budget only for a change that is meant to cost more.
+ * <p/>
+ * The allocated bytes are the ones HotSpot counts for the thread of the test, so they include the work of Robolectric and are far above the
+ * ones of a device. They were measured on JDK 8 with about a quarter of room, and are not checked on a JVM that does not count them.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21, shadows = SharedAccessibilityManagerShadow.class)
+public class RenderCostTest {
+
+    // ************************************************************************************************************************************************************************
+    // * Budgets
+    // ************************************************************************************************************************************************************************
+
+    private static final int VIEW_COUNT = 272;
+    private static final int MONTHS = 24;
+    private static final int CLICKS = 20;
+    private static final int MARKERS = 1000;
+
+    // One inflation, the tags of the 7 week days, 6 week rows and 5 views of the 42 cells searched once, every view written once. The calendar
+    // is created on the current month, the writes leave room for the longest months.
+    private static final RenderBudget CONSTRUCT_BUDGET = new RenderBudget.Builder()
+            .setMaxMeasurePasses(1)
+            .setMaxLayoutPasses(1)
+            .setMaxInflations(1)
+            .setMaxTagSearches(223)
+            .setMaxViewMutations(420)
+            .setMaxViewCount(VIEW_COUNT)
+            .setMaxAllocatedBytes(72 * 1024 * 1024)
+            .build();
+
+    // No inflation nor tag search, at most one traversal per month and only the cells that change are written
+    private static final RenderBudget FLIP_BUDGET = new RenderBudget.Builder()
+            .setMaxMeasurePasses(MONTHS)
+            .setMaxLayoutPasses(MONTHS)
+            .setMaxInflations(0)
+            .setMaxTagSearches(0)
+            .setMaxViewMutations(MONTHS * 45)
+            .setMaxViewCount(VIEW_COUNT)
+            .setMaxAllocatedBytes(9 * 1024 * 1024)
+            .build();
+
+    // A click moves the selection circle, the backgrounds of the previous and the new selected day are written
+    private static final RenderBudget CLICK_BUDGET = new RenderBudget.Builder()
+            .setMaxMeasurePasses(CLICKS)
+            .setMaxLayoutPasses(CLICKS)
+            .setMaxInflations(0)
+            .setMaxTagSearches(0)
+            .setMaxViewMutations(CLICKS * 2)
+            .setMaxViewCount(VIEW_COUNT)
+            .setMaxAllocatedBytes(7 * 1024 * 1024)
+            .build();
+
+    // The markers posted in one frame are merged by the update queue, the visibility and the style of each underline of a day are written once
+    private static final RenderBudget MARKERS_BUDGET = new RenderBudget.Builder()
+            .setMaxMeasurePasses(1)
+            .setMaxLayoutPasses(1)
+            .setMaxInflations(0)
+            .setMaxTagSearches(0)
+            .setMaxViewMutations(31 * 2 * 2)
+            .setMaxViewCount(VIEW_COUNT)
+            .setMaxAllocatedBytes(384 * 1024)
+            .build();
+
+    private RobotoCalendarView calendarView;
+
+    @Before
+    public void setUp() {
+        calendarView = CalendarScenario.createCalendarView(RuntimeEnvironment.application);
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Scenarios
+    // ************************************************************************************************************************************************************************
+
+    @Test
+    public void construct() {
+        // The calendar of setUp loaded the classes, the second one only allocates what a construction does
+        long startBytes = ThreadAllocations.getAllocatedBytes();
+        RobotoCalendarView constructed = CalendarScenario.createCalendarView(RuntimeEnvironment.application);
+        RenderCost cost = constructed.getRenderCostSinceCreation();
+        cost.allocatedBytes = (int) (ThreadAllocations.getAllocatedBytes() - startBytes);
+        CONSTRUCT_BUDGET.verify(cost);
+    }
+
+    @Test
+    public void flipMonths() {
+        flipMonths(CalendarScenario.createCalendarView(RuntimeEnvironment.application));
+        FLIP_BUDGET.verify(flipMonths(calendarView));
+    }
+
+    @Test
+    public void clickDays() {
+        clickDays(CalendarScenario.createCalendarView(RuntimeEnvironment.application));
+        CLICK_BUDGET.verify(clickDays(calendarView));
+    }
+
+    @Test
+    public void applyMarkers() {
+        applyMarkers(CalendarScenario.createCalendarView(RuntimeEnvironment.application));
+        MARKERS_BUDGET.verify(applyMarkers(calendarView));
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Helper methods
+    // ************************************************************************************************************************************************************************
+
+    // Each scenario is run once on another calendar before the one that is checked, so the loading of classes is not counted in its allocations
+
+    private static RenderCost flipMonths(RobotoCalendarView calendarView) {
+        Calendar calendar = CalendarScenario.getFirstMonth();
+        long startBytes = startRecording(calendarView);
+        for (int i = 0; i < MONTHS; i++) {
+            calendar.add(Calendar.MONTH, 1);
+            calendarView.initializeCalendar((Calendar) calendar.clone());
+            CalendarScenario.runTraversal(calendarView);
+        }
+        return stopRecording(calendarView, startBytes);
+    }
+
+    private static RenderCost clickDays(final RobotoCalendarView calendarView) {
+        calendarView.setRobotoCalendarListener(new RobotoCalendarView.RobotoCalendarListener() {
+            @Override
+            public void onDateSelected(Date date) {
+                calendarView.markDayAsSelectedDay(date);
+            }
+
+            @Override
+            public void onRightButtonClick() {
+            }
+
+            @Override
+            public void onLeftButtonClick() {
+            }
+        });
+        calendarView.initializeCalendar(CalendarScenario.getFirstMonth());
+        CalendarScenario.runTraversal(calendarView);
+
+        // The containers are found before the recording, the calendar itself must not search them
+        MonthGrid monthGrid = calendarView.getMonthGrid();
+        View[] containers = new View[CLICKS];
+        for (int i = 0; i < containers.length; i++) {
+            int index = monthGrid.getIndexOfDayOfMonth(i % monthGrid.getDaysInMonth() + 1);
+            containers[i] = calendarView.findViewWithTag("dayOfMonthContainer" + (index + 1));
+        }
+
+        long startBytes = startRecording(calendarView);
+        for (View container : containers) {
+            container.performClick();
+            CalendarScenario.runTraversal(calendarView);
+        }
+        return stopRecording(calendarView, startBytes);
+    }
+
+    private static RenderCost applyMarkers(RobotoCalendarView calendarView) {
+        calendarView.initializeCalendar(CalendarScenario.getFirstMonth());
+        CalendarScenario.runTraversal(calendarView);
+        MonthGrid monthGrid = calendarView.getMonthGrid();
+        int[] styles = {RobotoCalendarView.RED_COLOR, RobotoCalendarView.GREEN_COLOR, RobotoCalendarView.BLUE_COLOR};
+
+        long startBytes = startRecording(calendarView);
+        // Paused, the posted markers wait for the next frame as on a device
+        ShadowLooper.pauseMainLooper();
+        for (int i = 0; i < MARKERS; i++) {
+            int epochDay = monthGrid.getFirstEpochDay() + i % monthGrid.getDaysInMonth();
+            if ((i & 1) == 0) {
+                calendarView.postFirstUnderlineWithStyle(styles[i % styles.length], epochDay);
+            } else {
+                calendarView.postSecondUnderlineWithStyle(styles[i % styles.length], epochDay);
+            }
+        }
+        ShadowLooper.unPauseMainLooper();
+        CalendarScenario.runTraversal(calendarView);
+        return stopRecording(calendarView, startBytes);
+    }
+
+    private static long startRecording(RobotoCalendarView calendarView) {
+        calendarView.startRenderCostRecording();
+        return ThreadAllocations.getAllocatedBytes();
+    }
+
+    // Robolectric counts no allocation, the bytes are the ones the JVM counted for the thread of the test
+    private static RenderCost stopRecording(RobotoCalendarView calendarView, long startBytes) {
+        long allocatedBytes = ThreadAllocations.getAllocatedBytes() - startBytes;
+        RenderCost cost = calendarView.stopRenderCostRecording();
+        cost.allocatedBytes = (int) allocatedBytes;
+        return cost;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import android.content.Context;
+import android.view.accessibility.AccessibilityManager;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.shadows.ShadowAccessibilityManager;
+
+/**
+ * Returns one accessibility manager per application, as a device does.
+ * <p/>
+ * Robolectric builds a new manager service on every call, each one registering one more content observer, so the bytes allocated by a view
+ * grow with the number of views written before it and cannot be compared with a budget.
+ */
+@Implements(AccessibilityManager.class)
+public class SharedAccessibilityManagerShadow extends ShadowAccessibilityManager {
+
+    private static Context application;
+    private static AccessibilityManager accessibilityManager;
+
+    @Implementation
+    public static AccessibilityManager getInstance(Context context) throws Exception {
+        Context applicationContext = context.getApplicationContext();
+        if (accessibilityManager == null || application != applicationContext) {
+            application = applicationContext;
+            accessibilityManager = ShadowAccessibilityManager.getInstance(context);
+        }
+        return accessibilityManager;
+    }
+}
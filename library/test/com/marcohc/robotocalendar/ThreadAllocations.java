@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Bytes allocated by the current thread, as counted by the HotSpot JVM that runs the tests. Unlike the used heap it does not depend on when the
+ * collector runs, so it can be compared with a bound.
+ */
+final class ThreadAllocations {
+
+    private ThreadAllocations() {
+    }
+
+    /**
+     * @return false on a JVM that does not count the bytes allocated per thread, {@link #getAllocatedBytes()} is then always 0
+     */
+    static boolean isSupported() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        return threadMXBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * @return the bytes allocated by the current thread since it started
+     */
+    static long getAllocatedBytes() {
+        if (!isSupported()) {
+            return 0;
+        }
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2015 Marco Hernaiz Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marcohc.robotocalendar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the columns and the clusters given by {@link TimelineLayout#layout(long[], long[], int)}
+ */
+public class TimelineLayoutTest {
+
+    private TimelineLayout timelineLayout;
+
+    @Before
+    public void setUp() {
+        timelineLayout = new TimelineLayout();
+    }
+
+    @Test
+    public void backToBackEventsDoNotOverlap() {
+        layout(new long[]{0, 10, 20}, new long[]{10, 20, 30});
+
+        assertColumns(new int[]{0, 0, 0}, new int[]{1, 1, 1});
+        assertEquals(1, timelineLayout.getMaxColumnCount());
+    }
+
+    @Test
+    public void chainedOverlapsFormOneCluster() {
+        // The first and the third events do not overlap but both overlap the second one, the last event is alone
+        layout(new long[]{0, 5, 12, 30}, new long[]{10, 15, 20, 40});
+
+        assertColumns(new int[]{0, 1, 0, 0}, new int[]{2, 2, 2, 1});
+        assertEquals(2, timelineLayout.getMaxColumnCount());
+    }
+
+    @Test
+    public void longestEventIsLeftmostOnEqualStarts() {
+        layout(new long[]{0, 0, 0}, new long[]{10, 30, 20});
+
+        assertOrder(1, 2, 0);
+        assertColumns(new int[]{2, 0, 1}, new int[]{3, 3, 3});
+    }
+
+    @Test
+    public void zeroLengthEventLastsOneUnit() {
+        // Two events with no duration at the same time overlap
+        layout(new long[]{5, 5}, new long[]{5, 5});
+        assertColumns(new int[]{0, 1}, new int[]{2, 2});
+
+        // At the end of another event it does not overlap it, inside it does
+        layout(new long[]{0, 10}, new long[]{10, 10});
+        assertColumns(new int[]{0, 0}, new int[]{1, 1});
+        layout(new long[]{0, 5}, new long[]{10, 5});
+        assertColumns(new int[]{0, 1}, new int[]{2, 2});
+    }
+
+    @Test
+    public void lowestFreeColumnIsReused() {
+        // When the last event starts the third and the second columns are free, it takes the second one
+        layout(new long[]{0, 0, 0, 25}, new long[]{40, 20, 10, 30});
+
+        assertColumns(new int[]{0, 1, 2, 1}, new int[]{3, 3, 3, 3});
+        assertEquals(3, timelineLayout.getMaxColumnCount());
+    }
+
+    @Test
+    public void instanceIsReusedForAnotherLayout() {
+        // More events than the initial capacity, each one overlapping the next
+        int count = 40;
+        long[] starts = new long[count];
+        long[] ends = new long[count];
+        for (int i = 0; i < count; i++) {
+            starts[i] = i * 10;
+            ends[i] = i * 10 + 15;
+        }
+        layout(starts, ends);
+        for (int i = 0; i < count; i++) {
+            assertEquals(i % 2, timelineLayout.getColumn(i));
+            assertEquals(2, timelineLayout.getColumnCount(i));
+        }
+
+        layout(new long[]{0, 10, 20}, new long[]{10, 20, 30});
+        assertEquals(3, timelineLayout.getCount());
+        assertColumns(new int[]{0, 0, 0}, new int[]{1, 1, 1});
+        assertEquals(1, timelineLayout.getMaxColumnCount());
+    }
+
+    @Test
+    public void noEvents() {
+        layout(new long[0], new long[0]);
+
+        assertEquals(0, timelineLayout.getCount());
+        assertEquals(0, timelineLayout.getMaxColumnCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void countLongerThanTheEvents() {
+        timelineLayout.layout(new long[]{0}, new long[]{10}, 2);
+    }
+
+    // ************************************************************************************************************************************************************************
+    // * Helper methods
+    // ************************************************************************************************************************************************************************
+
+    private void layout(long[] starts, long[] ends) {
+        timelineLayout.layout(starts, ends, starts.length);
+    }
+
+    private void assertOrder(int... events) {
+        for (int k = 0; k < events.length; k++) {
+            assertEquals(events[k], timelineLayout.getOrder(k));
+        }
+    }
+
+    private void assertColumns(int[] columns, int[] columnCounts) {
+        assertEquals(columns.length, timelineLayout.getCount());
+        for (int i = 0; i < columns.length; i++) {
+            assertEquals("Column of event " + i, columns[i], timelineLayout.getColumn(i));
+            assertEquals("Column count of event " + i, columnCounts[i], timelineLayout.getColumnCount(i));
+        }
+    }
+}
@@ -25,7 +25,6 @@ public class MainActivity extends Activity implements RobotoCalendarListener {
     private RobotoCalendarView robotoCalendarView;
     private int currentMonthIndex;
     private Calendar currentCalendar;
-    private Date Today;
 
 
 
@@ -47,9 +46,8 @@ public class MainActivity extends Activity implements RobotoCalendarListener {
         currentMonthIndex = 0;
         currentCalendar = Calendar.getInstance(Locale.getDefault());
 
-        // Mark current day
-        robotoCalendarView.markDayAsCurrentDay(currentCalendar.getTime());
-        Today = currentCalendar.getTime();
+        // Mark current day, the calendar moves the mark at midnight
+        robotoCalendarView.setTodayTracked(true);
 
 
     }
@@ -100,18 +98,6 @@ public class MainActivity extends Activity implements RobotoCalendarListener {
         currentCalendar = Calendar.getInstance(Locale.getDefault());
         currentCalendar.add(Calendar.MONTH, currentMonthIndex); //月的加減
         robotoCalendarView.initializeCalendar(currentCalendar);
-        if (currentMonthIndex == 0) { //等於零等於今天這個月份
-            robotoCalendarView.markDayAsCurrentDay(Today);
-        }
-
-    }
-
-    @Override
-    public void onResume() {
-        super.onResume();
-        if (currentMonthIndex == 0) { //等於零等於今天這個月份
-            robotoCalendarView.markDayAsCurrentDay(Today);
-        }
     }
 
 